@@ -0,0 +1,45 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 嵌套对象
+ */
+public class Address {
+    private String country;
+    private String city;
+    private String street;
+    private int zipCode;
+
+    public static Address create(int seed) {
+        Address address = new Address();
+        address.country = "CN";
+        address.city = "city-" + seed % 10;
+        address.street = "street-" + seed;
+        address.zipCode = 100000 + seed;
+        return address;
+    }
+
+    Address withZipCode(int zipCode) {
+        Address address = new Address();
+        address.country = country;
+        address.city = city;
+        address.street = street;
+        address.zipCode = zipCode;
+        return address;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getStreet() {
+        return street;
+    }
+
+    public int getZipCode() {
+        return zipCode;
+    }
+}
@@ -0,0 +1,34 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 继承层次的父类，字段分布在多层类中
+ */
+public class BaseEntity {
+    private long id;
+    private long createdAt;
+    private String createdBy;
+    private int version;
+
+    void init(int seed) {
+        id = seed;
+        createdAt = 1700000000000L + seed;
+        createdBy = "creator-" + seed % 7;
+        version = seed % 5;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,63 @@
+package com.cong.entitydiff.benchmark;
+
+import com.cong.entitydiff.AbstractComparator;
+import com.cong.entitydiff.FieldBaseComparator;
+import com.cong.entitydiff.GetterBaseComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同构对象批量比对的基准测试，比较逐对 diff 与按列 diffColumnar 的吞吐，每 10 行修改 1 行
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+    @Param({"field", "getter"})
+    private String comparator;
+
+    @Param({"primitive", "flat"})
+    private String shape;
+
+    @Param({"1000"})
+    private int rows;
+
+    private AbstractComparator target;
+    private List<Object> first;
+    private List<Object> second;
+
+    @Setup
+    public void setup() {
+        target = "field".equals(comparator) ? new FieldBaseComparator() : new GetterBaseComparator();
+        first = new ArrayList<>(rows);
+        second = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            first.add(Entities.create(shape, i));
+            Object entity = Entities.create(shape, i);
+            if (i % 10 == 0) {
+                Entities.mutate(entity);
+            }
+            second.add(entity);
+        }
+    }
+
+    @Benchmark
+    public int pairwise() {
+        int count = 0;
+        for (int i = 0; i < rows; i++) {
+            count += target.diff(first.get(i), second.get(i)).size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int columnar() {
+        return target.diffColumnar(first, second).getDiffRowCount();
+    }
+}
@@ -0,0 +1,51 @@
+package com.cong.entitydiff.benchmark;
+
+import java.util.*;
+
+/**
+ * 包含集合属性的实体
+ */
+public class CollectionEntity {
+    private long id;
+    private List<Integer> scores;
+    private Set<String> tags;
+    private Map<String, String> attributes;
+
+    public static CollectionEntity create(int seed, int size) {
+        CollectionEntity entity = new CollectionEntity();
+        entity.id = seed;
+        entity.scores = new ArrayList<>(size);
+        entity.tags = new HashSet<>();
+        entity.attributes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            entity.scores.add(seed + i);
+            entity.tags.add("tag-" + i);
+            entity.attributes.put("key-" + i, "value-" + (seed + i));
+        }
+        return entity;
+    }
+
+    /**
+     * 修改列表的最后一个元素
+     */
+    public void mutate() {
+        int last = scores.size() - 1;
+        scores.set(last, scores.get(last) + 1);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public List<Integer> getScores() {
+        return scores;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.cong.entitydiff.benchmark;
+
+import com.cong.entitydiff.AbstractComparator;
+import com.cong.entitydiff.DiffOptions;
+import com.cong.entitydiff.FieldBaseComparator;
+import com.cong.entitydiff.FieldInfo;
+import com.cong.entitydiff.GetterBaseComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比对器热点路径的基准测试
+ * <p>
+ * 按比对器类型、实体形状和两个对象是否相等组合参数，分别测量 isEquals、getDiffFields、只取不同字段个数的 diff，
+ * 以及找到第一个差异即结束的 diff。
+ * 不相等时只修改最后一个字段，因此两种情况都需要扫描全部属性
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComparatorBenchmark {
+    @Param({"field", "getter"})
+    private String comparator;
+
+    @Param({"flat", "wide", "inherited", "nested", "primitive", "wrapper", "collection"})
+    private String shape;
+
+    @Param({"true", "false"})
+    private boolean equal;
+
+    private AbstractComparator target;
+    private Object first;
+    private Object second;
+    private DiffOptions firstOnly;
+
+    @Setup
+    public void setup() {
+        target = "field".equals(comparator) ? new FieldBaseComparator() : new GetterBaseComparator();
+        if ("nested".equals(shape)) {
+            target.setRecursive(true);
+        }
+        first = Entities.create(shape, 42);
+        second = Entities.create(shape, 42);
+        if (!equal) {
+            Entities.mutate(second);
+        }
+        firstOnly = new DiffOptions();
+        firstOnly.setMaxDiffs(1);
+    }
+
+    @Benchmark
+    public boolean isEquals() {
+        return target.isEquals(first, second);
+    }
+
+    @Benchmark
+    public List<FieldInfo> getDiffFields() {
+        return target.getDiffFields(first, second);
+    }
+
+    @Benchmark
+    public int diffCount() {
+        return target.diff(first, second).size();
+    }
+
+    @Benchmark
+    public int firstDiff() {
+        return target.diff(first, second, firstOnly).size();
+    }
+}
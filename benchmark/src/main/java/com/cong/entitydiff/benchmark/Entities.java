@@ -0,0 +1,52 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 按名称创建基准测试使用的实体
+ */
+final class Entities {
+    private static final int COLLECTION_SIZE = 32;
+
+    private Entities() {
+    }
+
+    static Object create(String shape, int seed) {
+        switch (shape) {
+            case "flat":
+                return FlatEntity.create(seed);
+            case "wide":
+                return WideEntity.create(seed);
+            case "inherited":
+                return InheritedEntity.create(seed);
+            case "nested":
+                return NestedEntity.create(seed);
+            case "primitive":
+                return PrimitiveEntity.create(seed);
+            case "wrapper":
+                return WrapperEntity.create(seed);
+            case "collection":
+                return CollectionEntity.create(seed, COLLECTION_SIZE);
+            default:
+                throw new IllegalArgumentException("未知的实体类型: " + shape);
+        }
+    }
+
+    static void mutate(Object entity) {
+        if (entity instanceof FlatEntity) {
+            ((FlatEntity) entity).mutate();
+        } else if (entity instanceof WideEntity) {
+            ((WideEntity) entity).mutate();
+        } else if (entity instanceof InheritedEntity) {
+            ((InheritedEntity) entity).mutate();
+        } else if (entity instanceof NestedEntity) {
+            ((NestedEntity) entity).mutate();
+        } else if (entity instanceof PrimitiveEntity) {
+            ((PrimitiveEntity) entity).mutate();
+        } else if (entity instanceof WrapperEntity) {
+            ((WrapperEntity) entity).mutate();
+        } else if (entity instanceof CollectionEntity) {
+            ((CollectionEntity) entity).mutate();
+        } else {
+            throw new IllegalArgumentException("未知的实体类型: " + entity.getClass());
+        }
+    }
+}
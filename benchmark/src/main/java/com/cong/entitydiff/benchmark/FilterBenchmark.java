@@ -0,0 +1,65 @@
+package com.cong.entitydiff.benchmark;
+
+import com.cong.entitydiff.AbstractComparator;
+import com.cong.entitydiff.FieldBaseComparator;
+import com.cong.entitydiff.FieldInfo;
+import com.cong.entitydiff.GetterBaseComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 包含/排除字段过滤的基准测试，使用 120 个字段的 WideEntity
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    @Param({"field", "getter"})
+    private String comparator;
+
+    @Param({"none", "include", "exclude"})
+    private String filter;
+
+    /**
+     * 包含或排除的字段数
+     */
+    @Param({"10", "60"})
+    private int filterSize;
+
+    private AbstractComparator target;
+    private WideEntity first;
+    private WideEntity second;
+
+    @Setup
+    public void setup() {
+        target = "field".equals(comparator) ? new FieldBaseComparator() : new GetterBaseComparator();
+        List<String> fields = new ArrayList<>(filterSize);
+        for (int i = 0; i < filterSize; i++) {
+            fields.add(String.format("f%03d", i * 2));
+        }
+        if ("include".equals(filter)) {
+            target.setIncludeFields(fields);
+        } else if ("exclude".equals(filter)) {
+            target.setExcludeFields(fields);
+        }
+        first = WideEntity.create(42);
+        second = WideEntity.create(42);
+        second.mutate();
+    }
+
+    @Benchmark
+    public boolean isEquals() {
+        return target.isEquals(first, second);
+    }
+
+    @Benchmark
+    public List<FieldInfo> getDiffFields() {
+        return target.getDiffFields(first, second);
+    }
+}
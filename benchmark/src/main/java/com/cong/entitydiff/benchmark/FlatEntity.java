@@ -0,0 +1,67 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 常见的扁平实体，基本类型与字符串混合
+ */
+public class FlatEntity {
+    private long id;
+    private String name;
+    private String email;
+    private int age;
+    private double balance;
+    private boolean active;
+    private String city;
+    private long updatedAt;
+
+    public static FlatEntity create(int seed) {
+        FlatEntity entity = new FlatEntity();
+        entity.id = seed;
+        entity.name = "name-" + seed;
+        entity.email = "user" + seed + "@example.com";
+        entity.age = seed % 100;
+        entity.balance = seed * 1.5D;
+        entity.active = seed % 2 == 0;
+        entity.city = "city-" + seed % 10;
+        entity.updatedAt = 1700000000000L + seed;
+        return entity;
+    }
+
+    /**
+     * 修改最后一个字段，使比对需要扫描全部字段才能发现差异
+     */
+    public void mutate() {
+        updatedAt++;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
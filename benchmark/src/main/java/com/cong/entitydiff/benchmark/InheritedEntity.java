@@ -0,0 +1,38 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 三层继承的实体，字段数与 FlatEntity 接近
+ */
+public class InheritedEntity extends MiddleEntity {
+    private String title;
+    private int priority;
+    private long updatedAt;
+
+    public static InheritedEntity create(int seed) {
+        InheritedEntity entity = new InheritedEntity();
+        entity.init(seed);
+        entity.title = "title-" + seed;
+        entity.priority = seed % 4;
+        entity.updatedAt = 1700000000000L + seed;
+        return entity;
+    }
+
+    /**
+     * 修改子类的最后一个字段
+     */
+    public void mutate() {
+        updatedAt++;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 继承层次的中间层
+ */
+public class MiddleEntity extends BaseEntity {
+    private String tenant;
+    private boolean deleted;
+    private double weight;
+
+    @Override
+    void init(int seed) {
+        super.init(seed);
+        tenant = "tenant-" + seed % 3;
+        deleted = false;
+        weight = seed * 0.75D;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 包含嵌套对象的实体，递归比对时会进入 Address 比对
+ */
+public class NestedEntity {
+    private long id;
+    private String name;
+    private Address home;
+    private Address office;
+
+    public static NestedEntity create(int seed) {
+        NestedEntity entity = new NestedEntity();
+        entity.id = seed;
+        entity.name = "name-" + seed;
+        entity.home = Address.create(seed);
+        entity.office = Address.create(seed + 1);
+        return entity;
+    }
+
+    /**
+     * 替换嵌套对象，只有 zipCode 不同
+     */
+    public void mutate() {
+        office = office.withZipCode(office.getZipCode() + 1);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Address getHome() {
+        return home;
+    }
+
+    public Address getOffice() {
+        return office;
+    }
+}
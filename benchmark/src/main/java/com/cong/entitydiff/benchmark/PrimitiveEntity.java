@@ -0,0 +1,79 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 只有基本类型字段的实体
+ */
+public class PrimitiveEntity {
+    private int i1;
+    private int i2;
+    private long l1;
+    private long l2;
+    private double d1;
+    private double d2;
+    private float f1;
+    private short s1;
+    private byte b1;
+    private boolean z1;
+
+    public static PrimitiveEntity create(int seed) {
+        PrimitiveEntity entity = new PrimitiveEntity();
+        entity.i1 = seed + 0;
+        entity.i2 = seed + 1;
+        entity.l1 = seed + 2L;
+        entity.l2 = seed + 3L;
+        entity.d1 = seed * 4.25D;
+        entity.d2 = seed * 5.25D;
+        entity.f1 = seed * 6.5F;
+        entity.s1 = (short) (seed + 7);
+        entity.b1 = (byte) (seed + 8);
+        entity.z1 = seed % 2 == 0;
+        return entity;
+    }
+
+    /**
+     * 修改最后一个字段，使比对需要扫描全部字段才能发现差异
+     */
+    public void mutate() {
+        z1 = !z1;
+    }
+
+    public int getI1() {
+        return i1;
+    }
+
+    public int getI2() {
+        return i2;
+    }
+
+    public long getL1() {
+        return l1;
+    }
+
+    public long getL2() {
+        return l2;
+    }
+
+    public double getD1() {
+        return d1;
+    }
+
+    public double getD2() {
+        return d2;
+    }
+
+    public float getF1() {
+        return f1;
+    }
+
+    public short getS1() {
+        return s1;
+    }
+
+    public byte getB1() {
+        return b1;
+    }
+
+    public boolean isZ1() {
+        return z1;
+    }
+}
@@ -0,0 +1,739 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 宽实体，120 个字段，基本类型、包装类型和字符串各占一部分
+ */
+public class WideEntity {
+    private int f000;
+    private long f001;
+    private double f002;
+    private String f003;
+    private Integer f004;
+    private Long f005;
+    private int f006;
+    private long f007;
+    private double f008;
+    private String f009;
+    private Integer f010;
+    private Long f011;
+    private int f012;
+    private long f013;
+    private double f014;
+    private String f015;
+    private Integer f016;
+    private Long f017;
+    private int f018;
+    private long f019;
+    private double f020;
+    private String f021;
+    private Integer f022;
+    private Long f023;
+    private int f024;
+    private long f025;
+    private double f026;
+    private String f027;
+    private Integer f028;
+    private Long f029;
+    private int f030;
+    private long f031;
+    private double f032;
+    private String f033;
+    private Integer f034;
+    private Long f035;
+    private int f036;
+    private long f037;
+    private double f038;
+    private String f039;
+    private Integer f040;
+    private Long f041;
+    private int f042;
+    private long f043;
+    private double f044;
+    private String f045;
+    private Integer f046;
+    private Long f047;
+    private int f048;
+    private long f049;
+    private double f050;
+    private String f051;
+    private Integer f052;
+    private Long f053;
+    private int f054;
+    private long f055;
+    private double f056;
+    private String f057;
+    private Integer f058;
+    private Long f059;
+    private int f060;
+    private long f061;
+    private double f062;
+    private String f063;
+    private Integer f064;
+    private Long f065;
+    private int f066;
+    private long f067;
+    private double f068;
+    private String f069;
+    private Integer f070;
+    private Long f071;
+    private int f072;
+    private long f073;
+    private double f074;
+    private String f075;
+    private Integer f076;
+    private Long f077;
+    private int f078;
+    private long f079;
+    private double f080;
+    private String f081;
+    private Integer f082;
+    private Long f083;
+    private int f084;
+    private long f085;
+    private double f086;
+    private String f087;
+    private Integer f088;
+    private Long f089;
+    private int f090;
+    private long f091;
+    private double f092;
+    private String f093;
+    private Integer f094;
+    private Long f095;
+    private int f096;
+    private long f097;
+    private double f098;
+    private String f099;
+    private Integer f100;
+    private Long f101;
+    private int f102;
+    private long f103;
+    private double f104;
+    private String f105;
+    private Integer f106;
+    private Long f107;
+    private int f108;
+    private long f109;
+    private double f110;
+    private String f111;
+    private Integer f112;
+    private Long f113;
+    private int f114;
+    private long f115;
+    private double f116;
+    private String f117;
+    private Integer f118;
+    private Long f119;
+
+    public static WideEntity create(int seed) {
+        WideEntity entity = new WideEntity();
+        entity.f000 = seed + 0;
+        entity.f001 = seed + 1L;
+        entity.f002 = seed + 2.5D;
+        entity.f003 = "v" + (seed + 3);
+        entity.f004 = seed + 4;
+        entity.f005 = seed + 5L;
+        entity.f006 = seed + 6;
+        entity.f007 = seed + 7L;
+        entity.f008 = seed + 8.5D;
+        entity.f009 = "v" + (seed + 9);
+        entity.f010 = seed + 10;
+        entity.f011 = seed + 11L;
+        entity.f012 = seed + 12;
+        entity.f013 = seed + 13L;
+        entity.f014 = seed + 14.5D;
+        entity.f015 = "v" + (seed + 15);
+        entity.f016 = seed + 16;
+        entity.f017 = seed + 17L;
+        entity.f018 = seed + 18;
+        entity.f019 = seed + 19L;
+        entity.f020 = seed + 20.5D;
+        entity.f021 = "v" + (seed + 21);
+        entity.f022 = seed + 22;
+        entity.f023 = seed + 23L;
+        entity.f024 = seed + 24;
+        entity.f025 = seed + 25L;
+        entity.f026 = seed + 26.5D;
+        entity.f027 = "v" + (seed + 27);
+        entity.f028 = seed + 28;
+        entity.f029 = seed + 29L;
+        entity.f030 = seed + 30;
+        entity.f031 = seed + 31L;
+        entity.f032 = seed + 32.5D;
+        entity.f033 = "v" + (seed + 33);
+        entity.f034 = seed + 34;
+        entity.f035 = seed + 35L;
+        entity.f036 = seed + 36;
+        entity.f037 = seed + 37L;
+        entity.f038 = seed + 38.5D;
+        entity.f039 = "v" + (seed + 39);
+        entity.f040 = seed + 40;
+        entity.f041 = seed + 41L;
+        entity.f042 = seed + 42;
+        entity.f043 = seed + 43L;
+        entity.f044 = seed + 44.5D;
+        entity.f045 = "v" + (seed + 45);
+        entity.f046 = seed + 46;
+        entity.f047 = seed + 47L;
+        entity.f048 = seed + 48;
+        entity.f049 = seed + 49L;
+        entity.f050 = seed + 50.5D;
+        entity.f051 = "v" + (seed + 51);
+        entity.f052 = seed + 52;
+        entity.f053 = seed + 53L;
+        entity.f054 = seed + 54;
+        entity.f055 = seed + 55L;
+        entity.f056 = seed + 56.5D;
+        entity.f057 = "v" + (seed + 57);
+        entity.f058 = seed + 58;
+        entity.f059 = seed + 59L;
+        entity.f060 = seed + 60;
+        entity.f061 = seed + 61L;
+        entity.f062 = seed + 62.5D;
+        entity.f063 = "v" + (seed + 63);
+        entity.f064 = seed + 64;
+        entity.f065 = seed + 65L;
+        entity.f066 = seed + 66;
+        entity.f067 = seed + 67L;
+        entity.f068 = seed + 68.5D;
+        entity.f069 = "v" + (seed + 69);
+        entity.f070 = seed + 70;
+        entity.f071 = seed + 71L;
+        entity.f072 = seed + 72;
+        entity.f073 = seed + 73L;
+        entity.f074 = seed + 74.5D;
+        entity.f075 = "v" + (seed + 75);
+        entity.f076 = seed + 76;
+        entity.f077 = seed + 77L;
+        entity.f078 = seed + 78;
+        entity.f079 = seed + 79L;
+        entity.f080 = seed + 80.5D;
+        entity.f081 = "v" + (seed + 81);
+        entity.f082 = seed + 82;
+        entity.f083 = seed + 83L;
+        entity.f084 = seed + 84;
+        entity.f085 = seed + 85L;
+        entity.f086 = seed + 86.5D;
+        entity.f087 = "v" + (seed + 87);
+        entity.f088 = seed + 88;
+        entity.f089 = seed + 89L;
+        entity.f090 = seed + 90;
+        entity.f091 = seed + 91L;
+        entity.f092 = seed + 92.5D;
+        entity.f093 = "v" + (seed + 93);
+        entity.f094 = seed + 94;
+        entity.f095 = seed + 95L;
+        entity.f096 = seed + 96;
+        entity.f097 = seed + 97L;
+        entity.f098 = seed + 98.5D;
+        entity.f099 = "v" + (seed + 99);
+        entity.f100 = seed + 100;
+        entity.f101 = seed + 101L;
+        entity.f102 = seed + 102;
+        entity.f103 = seed + 103L;
+        entity.f104 = seed + 104.5D;
+        entity.f105 = "v" + (seed + 105);
+        entity.f106 = seed + 106;
+        entity.f107 = seed + 107L;
+        entity.f108 = seed + 108;
+        entity.f109 = seed + 109L;
+        entity.f110 = seed + 110.5D;
+        entity.f111 = "v" + (seed + 111);
+        entity.f112 = seed + 112;
+        entity.f113 = seed + 113L;
+        entity.f114 = seed + 114;
+        entity.f115 = seed + 115L;
+        entity.f116 = seed + 116.5D;
+        entity.f117 = "v" + (seed + 117);
+        entity.f118 = seed + 118;
+        entity.f119 = seed + 119L;
+        return entity;
+    }
+
+    /**
+     * 修改最后一个字段，使比对需要扫描全部字段才能发现差异
+     */
+    public void mutate() {
+        f119 = f119 + 1;
+    }
+
+    public int getF000() {
+        return f000;
+    }
+
+    public long getF001() {
+        return f001;
+    }
+
+    public double getF002() {
+        return f002;
+    }
+
+    public String getF003() {
+        return f003;
+    }
+
+    public Integer getF004() {
+        return f004;
+    }
+
+    public Long getF005() {
+        return f005;
+    }
+
+    public int getF006() {
+        return f006;
+    }
+
+    public long getF007() {
+        return f007;
+    }
+
+    public double getF008() {
+        return f008;
+    }
+
+    public String getF009() {
+        return f009;
+    }
+
+    public Integer getF010() {
+        return f010;
+    }
+
+    public Long getF011() {
+        return f011;
+    }
+
+    public int getF012() {
+        return f012;
+    }
+
+    public long getF013() {
+        return f013;
+    }
+
+    public double getF014() {
+        return f014;
+    }
+
+    public String getF015() {
+        return f015;
+    }
+
+    public Integer getF016() {
+        return f016;
+    }
+
+    public Long getF017() {
+        return f017;
+    }
+
+    public int getF018() {
+        return f018;
+    }
+
+    public long getF019() {
+        return f019;
+    }
+
+    public double getF020() {
+        return f020;
+    }
+
+    public String getF021() {
+        return f021;
+    }
+
+    public Integer getF022() {
+        return f022;
+    }
+
+    public Long getF023() {
+        return f023;
+    }
+
+    public int getF024() {
+        return f024;
+    }
+
+    public long getF025() {
+        return f025;
+    }
+
+    public double getF026() {
+        return f026;
+    }
+
+    public String getF027() {
+        return f027;
+    }
+
+    public Integer getF028() {
+        return f028;
+    }
+
+    public Long getF029() {
+        return f029;
+    }
+
+    public int getF030() {
+        return f030;
+    }
+
+    public long getF031() {
+        return f031;
+    }
+
+    public double getF032() {
+        return f032;
+    }
+
+    public String getF033() {
+        return f033;
+    }
+
+    public Integer getF034() {
+        return f034;
+    }
+
+    public Long getF035() {
+        return f035;
+    }
+
+    public int getF036() {
+        return f036;
+    }
+
+    public long getF037() {
+        return f037;
+    }
+
+    public double getF038() {
+        return f038;
+    }
+
+    public String getF039() {
+        return f039;
+    }
+
+    public Integer getF040() {
+        return f040;
+    }
+
+    public Long getF041() {
+        return f041;
+    }
+
+    public int getF042() {
+        return f042;
+    }
+
+    public long getF043() {
+        return f043;
+    }
+
+    public double getF044() {
+        return f044;
+    }
+
+    public String getF045() {
+        return f045;
+    }
+
+    public Integer getF046() {
+        return f046;
+    }
+
+    public Long getF047() {
+        return f047;
+    }
+
+    public int getF048() {
+        return f048;
+    }
+
+    public long getF049() {
+        return f049;
+    }
+
+    public double getF050() {
+        return f050;
+    }
+
+    public String getF051() {
+        return f051;
+    }
+
+    public Integer getF052() {
+        return f052;
+    }
+
+    public Long getF053() {
+        return f053;
+    }
+
+    public int getF054() {
+        return f054;
+    }
+
+    public long getF055() {
+        return f055;
+    }
+
+    public double getF056() {
+        return f056;
+    }
+
+    public String getF057() {
+        return f057;
+    }
+
+    public Integer getF058() {
+        return f058;
+    }
+
+    public Long getF059() {
+        return f059;
+    }
+
+    public int getF060() {
+        return f060;
+    }
+
+    public long getF061() {
+        return f061;
+    }
+
+    public double getF062() {
+        return f062;
+    }
+
+    public String getF063() {
+        return f063;
+    }
+
+    public Integer getF064() {
+        return f064;
+    }
+
+    public Long getF065() {
+        return f065;
+    }
+
+    public int getF066() {
+        return f066;
+    }
+
+    public long getF067() {
+        return f067;
+    }
+
+    public double getF068() {
+        return f068;
+    }
+
+    public String getF069() {
+        return f069;
+    }
+
+    public Integer getF070() {
+        return f070;
+    }
+
+    public Long getF071() {
+        return f071;
+    }
+
+    public int getF072() {
+        return f072;
+    }
+
+    public long getF073() {
+        return f073;
+    }
+
+    public double getF074() {
+        return f074;
+    }
+
+    public String getF075() {
+        return f075;
+    }
+
+    public Integer getF076() {
+        return f076;
+    }
+
+    public Long getF077() {
+        return f077;
+    }
+
+    public int getF078() {
+        return f078;
+    }
+
+    public long getF079() {
+        return f079;
+    }
+
+    public double getF080() {
+        return f080;
+    }
+
+    public String getF081() {
+        return f081;
+    }
+
+    public Integer getF082() {
+        return f082;
+    }
+
+    public Long getF083() {
+        return f083;
+    }
+
+    public int getF084() {
+        return f084;
+    }
+
+    public long getF085() {
+        return f085;
+    }
+
+    public double getF086() {
+        return f086;
+    }
+
+    public String getF087() {
+        return f087;
+    }
+
+    public Integer getF088() {
+        return f088;
+    }
+
+    public Long getF089() {
+        return f089;
+    }
+
+    public int getF090() {
+        return f090;
+    }
+
+    public long getF091() {
+        return f091;
+    }
+
+    public double getF092() {
+        return f092;
+    }
+
+    public String getF093() {
+        return f093;
+    }
+
+    public Integer getF094() {
+        return f094;
+    }
+
+    public Long getF095() {
+        return f095;
+    }
+
+    public int getF096() {
+        return f096;
+    }
+
+    public long getF097() {
+        return f097;
+    }
+
+    public double getF098() {
+        return f098;
+    }
+
+    public String getF099() {
+        return f099;
+    }
+
+    public Integer getF100() {
+        return f100;
+    }
+
+    public Long getF101() {
+        return f101;
+    }
+
+    public int getF102() {
+        return f102;
+    }
+
+    public long getF103() {
+        return f103;
+    }
+
+    public double getF104() {
+        return f104;
+    }
+
+    public String getF105() {
+        return f105;
+    }
+
+    public Integer getF106() {
+        return f106;
+    }
+
+    public Long getF107() {
+        return f107;
+    }
+
+    public int getF108() {
+        return f108;
+    }
+
+    public long getF109() {
+        return f109;
+    }
+
+    public double getF110() {
+        return f110;
+    }
+
+    public String getF111() {
+        return f111;
+    }
+
+    public Integer getF112() {
+        return f112;
+    }
+
+    public Long getF113() {
+        return f113;
+    }
+
+    public int getF114() {
+        return f114;
+    }
+
+    public long getF115() {
+        return f115;
+    }
+
+    public double getF116() {
+        return f116;
+    }
+
+    public String getF117() {
+        return f117;
+    }
+
+    public Integer getF118() {
+        return f118;
+    }
+
+    public Long getF119() {
+        return f119;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cong.entitydiff.benchmark;
+
+/**
+ * 与 PrimitiveEntity 字段相同，但全部为包装类型
+ */
+public class WrapperEntity {
+    private Integer i1;
+    private Integer i2;
+    private Long l1;
+    private Long l2;
+    private Double d1;
+    private Double d2;
+    private Float f1;
+    private Short s1;
+    private Byte b1;
+    private Boolean z1;
+
+    public static WrapperEntity create(int seed) {
+        WrapperEntity entity = new WrapperEntity();
+        entity.i1 = seed + 0;
+        entity.i2 = seed + 1;
+        entity.l1 = seed + 2L;
+        entity.l2 = seed + 3L;
+        entity.d1 = seed * 4.25D;
+        entity.d2 = seed * 5.25D;
+        entity.f1 = seed * 6.5F;
+        entity.s1 = (short) (seed + 7);
+        entity.b1 = (byte) (seed + 8);
+        entity.z1 = seed % 2 == 0;
+        return entity;
+    }
+
+    /**
+     * 修改最后一个字段，使比对需要扫描全部字段才能发现差异
+     */
+    public void mutate() {
+        z1 = !z1;
+    }
+
+    public Integer getI1() {
+        return i1;
+    }
+
+    public Integer getI2() {
+        return i2;
+    }
+
+    public Long getL1() {
+        return l1;
+    }
+
+    public Long getL2() {
+        return l2;
+    }
+
+    public Double getD1() {
+        return d1;
+    }
+
+    public Double getD2() {
+        return d2;
+    }
+
+    public Float getF1() {
+        return f1;
+    }
+
+    public Short getS1() {
+        return s1;
+    }
+
+    public Byte getB1() {
+        return b1;
+    }
+
+    public Boolean getZ1() {
+        return z1;
+    }
+}
@@ -1,14 +1,32 @@
 package com.cong.entitydiff;
 
-
+import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public abstract class AbstractComparator implements Comparator {
-    private static final List<Class<?>> WRAPPER_TYPES =
-            Arrays.asList(Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class);
+    public static final int DEFAULT_MAX_DEPTH = 16;
+    /**
+     * 比对器的类是否覆盖了 isFieldEquals、isExclude、isInclude 等扩展点，或者覆盖了 getDiffFields
+     * 却没有提供对应的 getClassPlan，此时 isEquals 不能走基于元数据的快速路径
+     */
+    private static final ClassValue<Boolean> CUSTOMIZED = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return declaringClass(type, "isFieldEquals", FieldInfo.class) != AbstractComparator.class
+                    || declaringClass(type, "isExclude", FieldInfo.class) != AbstractComparator.class
+                    || declaringClass(type, "isInclude", FieldInfo.class) != AbstractComparator.class
+                    || declaringClass(type, "getDiffFields", Object.class, Object.class) != declaringClass(type, "getClassPlan", Object.class);
+        }
+    };
     private List<String> includeFields;
     private List<String> excludeFields;
+    /**
+     * 由 includeFields 和 excludeFields 编译成的集合，为 null 表示不指定
+     */
+    private Set<String> includeSet;
+    private Set<String> excludeSet;
 
     /**
      * 默认为 true，表示只取两个对象中都存在的字段进行比较，
@@ -16,18 +34,60 @@ public abstract class AbstractComparator implements Comparator {
      */
     private boolean bothExistFieldOnly = true;
 
+    /**
+     * 比对计划的缓存键，比对计划缓存在类元数据上，包含或排除字段变更时换成新的键。
+     * reversedPlanKey 用于对象1为 null、比对计划挂在对象2的类元数据上的情况
+     */
+    private volatile PlanKey planKey;
+    private volatile PlanKey reversedPlanKey;
+    /**
+     * 注册了自定义相等判断时比对计划缓存在比对器自身，为 null 时缓存在共享的类元数据上
+     */
+    private volatile LocalComparePlans localPlans;
+    /**
+     * 类元数据缓存，为 null 时使用子类的默认缓存
+     */
+    private volatile MetadataCache metadataCache;
+
+    /**
+     * 是否递归比对嵌套的对象、数组、List 和 Map，默认为 false，即嵌套的值作为整体比对。
+     * 递归比对时不同的字段以完整路径报告，见 {@link FieldInfo#getPath()}
+     */
+    private boolean recursive;
+    /**
+     * 递归比对的最大深度，超过后嵌套的值作为整体比对
+     */
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    /**
+     * 递归比对时，没有指定键的 List 是否按最长公共子序列对齐后比对，默认为 false，即按下标比对
+     */
+    private boolean lcsListDiff;
+    /**
+     * 递归比对时集合元素的键，键为元素类型
+     */
+    private final Map<Class<?>, Function<Object, ?>> collectionKeys = new ConcurrentHashMap<>();
+    /**
+     * 非基本类型属性值的相等判断
+     */
+    private volatile EqualityRegistry equalityRegistry = EqualityRegistry.defaults();
+    /**
+     * 浮点数和 BigDecimal 属性的误差，为 null 表示按数值相等比对，属性上的 {@link DiffTolerance} 注解优先
+     */
+    private volatile NumericTolerance numericTolerance;
+    /**
+     * 监听器，多个监听器时为 {@link CompositeListener}，为 null 表示不采集，比对时不计时
+     */
+    private volatile ComparatorListener listener;
+
     protected AbstractComparator() {
-        includeFields = Collections.emptyList();
-        excludeFields = Collections.emptyList();
+        this(Collections.<String>emptyList(), Collections.<String>emptyList());
     }
 
     /**
      * @param bothExistFieldOnly 是否只对比两个类都包含的字段
      */
     protected AbstractComparator(boolean bothExistFieldOnly) {
-        includeFields = Collections.emptyList();
-        excludeFields = Collections.emptyList();
-        this.bothExistFieldOnly = bothExistFieldOnly;
+        this(Collections.<String>emptyList(), Collections.<String>emptyList(), bothExistFieldOnly);
     }
 
     /**
@@ -37,8 +97,7 @@ public abstract class AbstractComparator implements Comparator {
      * @param excludeFields 排除字段，若为 null 或空集，则不指定
      */
     protected AbstractComparator(List<String> includeFields, List<String> excludeFields) {
-        this.includeFields = includeFields;
-        this.excludeFields = excludeFields;
+        this(includeFields, excludeFields, true);
     }
 
     /**
@@ -51,7 +110,10 @@ public abstract class AbstractComparator implements Comparator {
     protected AbstractComparator(List<String> includeFields, List<String> excludeFields, boolean bothExistFieldOnly) {
         this.includeFields = includeFields;
         this.excludeFields = excludeFields;
+        this.includeSet = toSet(includeFields);
+        this.excludeSet = toSet(excludeFields);
         this.bothExistFieldOnly = bothExistFieldOnly;
+        updatePlanKey();
     }
 
     /**
@@ -63,10 +125,457 @@ public abstract class AbstractComparator implements Comparator {
      */
     @Override
     public boolean isEquals(Object first, Object second) {
-        List<FieldInfo> diff = getDiffFields(first, second);
+        if (first == second) {
+            return true;
+        }
+        // 子类自定义了比对逻辑或者需要递归比对，只能通过 getDiffFields 判断
+        if (recursive || CUSTOMIZED.get(getClass())) {
+            List<FieldInfo> diff = getDiffFields(first, second);
+            return diff == null || diff.isEmpty();
+        }
+        if (isSimpleField(first, second)) {
+            return equalityRegistry.isEquals(first, second);
+        }
+        ClassPlan firstPlan = getClassPlan(first);
+        ClassPlan secondPlan = getClassPlan(second);
+        if (firstPlan == null || secondPlan == null) {
+            List<FieldInfo> diff = getDiffFields(first, second);
+            return diff == null || diff.isEmpty();
+        }
+        return isPropertiesEquals(first, firstPlan, second, secondPlan);
+    }
+
+    /**
+     * 获取不相等的属性，递归比对时通过 memo 复用不可变子对象的比对结果。
+     * 同一个 memo 在一次批量比对的多次调用之间共享，被大量实体引用的同一对不可变子对象只会完整比对一次
+     *
+     * @param first  对象1
+     * @param second 对象2
+     * @param memo   比对结果缓存，非递归比对或比对器自定义了比对逻辑时不使用
+     * @return 不相等的属性，与 {@link #getDiffFields(Object, Object)} 的结果相同
+     */
+    public List<FieldInfo> getDiffFields(Object first, Object second, DiffMemo memo) {
+        if (memo == null || !recursive || CUSTOMIZED.get(getClass()) || first == second || isSimpleField(first, second)) {
+            return getDiffFields(first, second);
+        }
+        ClassPlan firstPlan = getClassPlan(first);
+        ClassPlan secondPlan = getClassPlan(second);
+        if (firstPlan == null || secondPlan == null) {
+            return getDiffFields(first, second);
+        }
+        return compareProperties(first, firstPlan, second, secondPlan, memo);
+    }
+
+    /**
+     * 两个对象是否全相等，递归比对时通过 memo 复用不可变子对象的比对结果
+     *
+     * @see #getDiffFields(Object, Object, DiffMemo)
+     */
+    public boolean isEquals(Object first, Object second, DiffMemo memo) {
+        if (memo == null || !recursive) {
+            return isEquals(first, second);
+        }
+        List<FieldInfo> diff = getDiffFields(first, second, memo);
         return diff == null || diff.isEmpty();
     }
 
+    /**
+     * 比对两个对象，返回紧凑的比对结果，不相等的属性只记录在位图中，属性名和值在访问时才读取。
+     * 只需要不同字段的个数或名称时比 {@link #getDiffFields(Object, Object)} 开销更小
+     *
+     * @param first  对象1
+     * @param second 对象2
+     * @return 比对结果，{@link DiffResult#toFieldInfos()} 与 getDiffFields 的结果相同
+     */
+    public DiffResult diff(Object first, Object second) {
+        if (first == second) {
+            return DiffResult.of(null);
+        }
+        if (recursive || CUSTOMIZED.get(getClass()) || isSimpleField(first, second)) {
+            return DiffResult.of(getDiffFields(first, second));
+        }
+        ClassPlan firstPlan = getClassPlan(first);
+        ClassPlan secondPlan = getClassPlan(second);
+        if (firstPlan == null || secondPlan == null) {
+            return DiffResult.of(getDiffFields(first, second));
+        }
+        ComparePlan plan = getComparePlan(firstPlan, secondPlan);
+        ComparatorListener l = listener;
+        long start = l == null ? 0 : System.nanoTime();
+        long[] bits = new long[(plan.size() + 63) >>> 6];
+        int count = 0;
+        try {
+            for (int i = 0, size = plan.size(); i < size; i++) {
+                if (!isPropertyEquals(first, second, plan, i)) {
+                    bits[i >>> 6] |= 1L << i;
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (l != null) {
+                l.onError(typeOf(first), typeOf(second), e);
+            }
+            throw e;
+        }
+        if (l != null) {
+            l.onCompare(typeOf(first), typeOf(second), System.nanoTime() - start, plan.size(), count);
+        }
+        return new DiffResult(first, second, plan, bits, count);
+    }
+
+    /**
+     * 比对两个对象，满足 options 中的条件时提前结束。属性按比对计划的求值顺序比对：开销低的基本类型在前，
+     * 集合和嵌套的实体在后，开销相同时之前更常不相等的属性在前，因此报告的是最先找到的差异，不一定是计划中靠前的属性。
+     * 递归比对或者比对器自定义了比对逻辑时仍会完整比对，只截取前 maxDiffs 个差异
+     *
+     * @param first   对象1
+     * @param second  对象2
+     * @param options 提前结束的条件，为 null 或没有设置任何条件时与 {@link #diff(Object, Object)} 相同
+     * @return 比对结果，提前结束时 {@link DiffResult#isTruncated()} 为 true
+     */
+    public DiffResult diff(Object first, Object second, DiffOptions options) {
+        if (options == null || !options.isBounded()) {
+            return diff(first, second);
+        }
+        if (first == second) {
+            return DiffResult.of(null);
+        }
+        if (recursive || CUSTOMIZED.get(getClass()) || isSimpleField(first, second)) {
+            return DiffResult.of(getDiffFields(first, second), options.getMaxDiffs());
+        }
+        ClassPlan firstPlan = getClassPlan(first);
+        ClassPlan secondPlan = getClassPlan(second);
+        if (firstPlan == null || secondPlan == null) {
+            return DiffResult.of(getDiffFields(first, second), options.getMaxDiffs());
+        }
+        ComparePlan plan = getComparePlan(firstPlan, secondPlan);
+        ComparatorListener l = listener;
+        long start = l != null || options.getTimeoutNanos() != 0 ? System.nanoTime() : 0;
+        int maxDiffs = options.getMaxDiffs();
+        long maxCost = options.getMaxCost();
+        long timeout = options.getTimeoutNanos();
+        int[] order = plan.getOrder();
+        long[] bits = new long[(plan.size() + 63) >>> 6];
+        int count = 0;
+        int scanned = 0;
+        long cost = 0;
+        try {
+            for (int size = order.length; scanned < size; scanned++) {
+                int i = order[scanned];
+                int propertyCost = plan.getCost(i);
+                if (count >= maxDiffs || cost + propertyCost > maxCost
+                        || timeout != 0 && propertyCost >= ComparePlan.OBJECT_COST && System.nanoTime() - start >= timeout) {
+                    break;
+                }
+                cost += propertyCost;
+                boolean different = !isPropertyEquals(first, second, plan, i);
+                plan.record(i, different);
+                if (different) {
+                    bits[i >>> 6] |= 1L << i;
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (l != null) {
+                l.onError(typeOf(first), typeOf(second), e);
+            }
+            throw e;
+        }
+        plan.observe();
+        if (l != null) {
+            l.onCompare(typeOf(first), typeOf(second), System.nanoTime() - start, scanned, count);
+        }
+        return new DiffResult(first, second, plan, bits, count, scanned < order.length);
+    }
+
+    /**
+     * 按列比对两批同一个类的对象，第 i 行比对 first.get(i) 与 second.get(i)。
+     * 每个属性在整批对象上读取一次、在一个循环中比对，不创建 FieldInfo，大量同构对象的吞吐比逐对比对高
+     *
+     * @param first  对象1，所有元素不能为 null，且与对象2的元素都是同一个类
+     * @param second 对象2，元素个数与对象1相同
+     * @return 每一行的比对结果
+     */
+    public ColumnarDiff diffColumnar(List<?> first, List<?> second) {
+        if (first.size() != second.size()) {
+            throw new IllegalArgumentException("两批对象的个数不一致: " + first.size() + " / " + second.size());
+        }
+        if (recursive || CUSTOMIZED.get(getClass())) {
+            throw new IllegalStateException("递归比对或自定义了比对逻辑的比对器不支持按列比对: " + getClass().getName());
+        }
+        Object[] firstRows = first.toArray();
+        Object[] secondRows = second.toArray();
+        if (firstRows.length == 0) {
+            return ColumnarDiff.of(null, firstRows, secondRows);
+        }
+        Class<?> type = typeOf(firstRows[0]);
+        for (int i = 0; i < firstRows.length; i++) {
+            if (typeOf(firstRows[i]) != type || typeOf(secondRows[i]) != type) {
+                throw new IllegalArgumentException("第 " + i + " 行的对象不是同一个类: " + typeOf(firstRows[i]) + " / " + typeOf(secondRows[i]));
+            }
+        }
+        if (type == null || isSimpleType(type)) {
+            throw new IllegalArgumentException("只能按列比对实体: " + type);
+        }
+        ClassPlan classPlan = getClassPlan(firstRows[0]);
+        if (classPlan == null) {
+            throw new IllegalStateException("比对器不支持按列比对: " + getClass().getName());
+        }
+        ComparePlan plan = getComparePlan(classPlan, classPlan);
+        ComparatorListener l = listener;
+        long start = l == null ? 0 : System.nanoTime();
+        ColumnarDiff result;
+        try {
+            result = ColumnarDiff.of(plan, firstRows, secondRows);
+        } catch (RuntimeException e) {
+            if (l != null) {
+                l.onError(type, type, e);
+            }
+            throw e;
+        }
+        if (l != null) {
+            // 按列比对无法得到每一行的耗时，按平均值通知
+            long nanos = (System.nanoTime() - start) / firstRows.length;
+            for (int row = 0; row < firstRows.length; row++) {
+                l.onCompare(type, type, nanos, plan.size(), result.getDiffCount(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算对象的结构指纹，只包含本比对器会比对的属性，包含、排除和注解的配置与 getDiffFields 一致。
+     * 两个同类对象的指纹相同时可以跳过 getDiffFields，不同时再做完整比对
+     *
+     * @param obj 对象
+     * @return 128 位指纹
+     */
+    public Fingerprint fingerprint(Object obj) {
+        return new Fingerprinter(this).fingerprint(obj);
+    }
+
+    /**
+     * 获取对象的类元数据，子类基于元数据实现比对时覆盖此方法，使 {@link #isEquals(Object, Object)} 可以走快速路径
+     *
+     * @param obj 对象
+     * @return 类元数据，对象为 null 时返回空元数据；返回 null 表示不支持
+     */
+    protected ClassPlan getClassPlan(Object obj) {
+        return null;
+    }
+
+    /**
+     * 按类型获取类元数据，不在缓存中时扫描类，供预热使用
+     *
+     * @return 类元数据，返回 null 表示不支持
+     */
+    ClassPlan loadClassPlan(Class<?> type) {
+        return null;
+    }
+
+    /**
+     * 把从快照中恢复的类元数据放入缓存，已经存在时保留缓存中的
+     */
+    void preloadClassPlan(Class<?> type, ClassPlan plan) {
+    }
+
+    /**
+     * @return 类元数据的种类，用于校验快照与比对器是否匹配，返回 null 表示不支持快照
+     */
+    String getMetadataKind() {
+        return null;
+    }
+
+    /**
+     * 扫描类时找到的候选成员数量，只读取成员不创建访问器，用于校验快照保存之后类是否新增或删除了属性
+     *
+     * @return 候选成员数量，不支持快照时返回 -1
+     */
+    int countMembers(Class<?> type) {
+        return -1;
+    }
+
+    /**
+     * 逐个属性比对，遇到第一个不相等的属性即返回，比对过程中不创建 FieldInfo 和字段名集合，基本类型不装箱
+     */
+    boolean isPropertiesEquals(Object first, ClassPlan firstPlan, Object second, ClassPlan secondPlan) {
+        ComparePlan plan = getComparePlan(firstPlan, secondPlan);
+        ComparatorListener l = listener;
+        if (l == null) {
+            return firstDifference(first, second, plan) < 0;
+        }
+        long start = System.nanoTime();
+        int index;
+        try {
+            index = firstDifference(first, second, plan);
+        } catch (RuntimeException e) {
+            l.onError(typeOf(first), typeOf(second), e);
+            throw e;
+        }
+        l.onCompare(typeOf(first), typeOf(second), System.nanoTime() - start, index < 0 ? plan.size() : index + 1, index < 0 ? 0 : 1);
+        return index < 0;
+    }
+
+    /**
+     * @return 第一个不相等的属性在求值顺序中的位置，全部相等时返回 -1
+     */
+    private int firstDifference(Object first, Object second, ComparePlan plan) {
+        // 按求值顺序比对，开销低的属性先比对
+        int[] order = plan.getOrder();
+        for (int k = 0, size = order.length; k < size; k++) {
+            if (!isPropertyEquals(first, second, plan, order[k])) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 比对比对计划中的第 index 个属性，注解策略优先
+     */
+    private boolean isPropertyEquals(Object first, Object second, ComparePlan plan, int index) {
+        PropertyPolicy policy = plan.getPolicy(index);
+        PropertyAccessor firstAccessor = plan.getFirstAccessor(index);
+        PropertyAccessor secondAccessor = plan.getSecondAccessor(index);
+        if (policy == null) {
+            return isPropertyEquals(first, firstAccessor, second, secondAccessor, plan.getEquality(index));
+        }
+        if (policy.isPrimitiveTolerance(firstAccessor, secondAccessor)) {
+            return policy.isPrimitiveEquals(first, firstAccessor, second, secondAccessor);
+        }
+        return policy.isEquals(valueOf(firstAccessor, first), valueOf(secondAccessor, second));
+    }
+
+    /**
+     * 比对单个属性，与 {@link #isFieldEquals(FieldInfo)} 的默认实现语义一致，包含和排除已经在比对计划中处理
+     *
+     * @param firstAccessor  对象1的访问器，属性不存在时为 null
+     * @param secondAccessor 对象2的访问器，属性不存在时为 null
+     * @param equality       按声明类型解析的相等判断
+     */
+    private boolean isPropertyEquals(Object first, PropertyAccessor firstAccessor, Object second, PropertyAccessor secondAccessor,
+                                     PropertyEquality equality) {
+        if (isSamePrimitive(firstAccessor, secondAccessor)) {
+            return firstAccessor.isPrimitiveEquals(first, secondAccessor, second);
+        }
+        return equality.isEquals(valueOf(firstAccessor, first), valueOf(secondAccessor, second));
+    }
+
+    private static Object valueOf(PropertyAccessor accessor, Object target) {
+        return accessor != null ? accessor.get(target) : null;
+    }
+
+    /**
+     * 两个属性是否为同一种基本类型，是则可以不装箱直接比对
+     */
+    private static boolean isSamePrimitive(PropertyAccessor firstAccessor, PropertyAccessor secondAccessor) {
+        return firstAccessor != null && secondAccessor != null
+                && firstAccessor.sort != PropertyAccessor.NOT_PRIMITIVE && firstAccessor.sort == secondAccessor.sort;
+    }
+
+    /**
+     * 获取两个类之间的比对计划，同一对类只在第一次比对时构建
+     *
+     * @param firstPlan  对象1的类元数据，对象为 null 时为 {@link ClassPlan#EMPTY}
+     * @param secondPlan 对象2的类元数据，对象为 null 时为 {@link ClassPlan#EMPTY}
+     */
+    ComparePlan getComparePlan(ClassPlan firstPlan, ClassPlan secondPlan) {
+        // 对象1为 null 时挂在对象2的类元数据上，避免全局共享的空元数据引用各个类
+        boolean reversed = firstPlan == ClassPlan.EMPTY && secondPlan != ClassPlan.EMPTY;
+        ClassPlan host = reversed ? secondPlan : firstPlan;
+        ClassPlan other = reversed ? firstPlan : secondPlan;
+        PlanKey key = reversed ? reversedPlanKey : planKey;
+        LocalComparePlans local = localPlans;
+        ComparePlan plan = local == null ? host.getComparePlan(key, other) : local.get(host, key, other);
+        if (plan == null) {
+            plan = buildComparePlan(firstPlan, secondPlan);
+            plan = local == null ? host.putComparePlan(key, other, plan) : local.put(host, key, other, plan);
+        }
+        return plan;
+    }
+
+    private ComparePlan buildComparePlan(ClassPlan firstPlan, ClassPlan secondPlan) {
+        // 一方为 null 时取另一方的全部字段，否则根据配置取交集或并集
+        boolean includeMissing = firstPlan == ClassPlan.EMPTY || secondPlan == ClassPlan.EMPTY || !isBothExistFieldOnly();
+        // 子类自定义了包含和排除规则时不能预先剔除，交给 isFieldEquals 判断
+        boolean prune = !CUSTOMIZED.get(getClass());
+        List<String> names = new ArrayList<>();
+        List<PropertyAccessor> firstAccessors = new ArrayList<>();
+        List<PropertyAccessor> secondAccessors = new ArrayList<>();
+        List<PropertyPolicy> policies = new ArrayList<>();
+        List<PropertyEquality> equalities = new ArrayList<>();
+        EqualityRegistry registry = equalityRegistry;
+        for (int i = 0, size = firstPlan.size(); i < size; i++) {
+            PropertyAccessor firstAccessor = firstPlan.getAccessor(i);
+            String name = firstAccessor.getName();
+            PropertyAccessor secondAccessor = secondPlan.getAccessor(name);
+            PropertyPolicy policy = policyOf(firstPlan, secondPlan, name);
+            if (policy == null && prune) {
+                policy = tolerancePolicy(firstAccessor.getType(), secondAccessor == null ? null : secondAccessor.getType());
+            }
+            if ((secondAccessor != null || includeMissing) && (!prune || isCompareField(name)) && !isIgnore(policy)) {
+                names.add(name);
+                firstAccessors.add(firstAccessor);
+                secondAccessors.add(secondAccessor);
+                policies.add(policy);
+                equalities.add(new PropertyEquality(registry, firstAccessor.getType(), secondAccessor == null ? null : secondAccessor.getType()));
+            }
+        }
+        if (includeMissing) {
+            for (int i = 0, size = secondPlan.size(); i < size; i++) {
+                PropertyAccessor secondAccessor = secondPlan.getAccessor(i);
+                String name = secondAccessor.getName();
+                PropertyPolicy policy = secondPlan.getPolicy(name);
+                if (policy == null && prune) {
+                    policy = tolerancePolicy(null, secondAccessor.getType());
+                }
+                if (firstPlan.getAccessor(name) == null && (!prune || isCompareField(name)) && !isIgnore(policy)) {
+                    names.add(name);
+                    firstAccessors.add(null);
+                    secondAccessors.add(secondAccessor);
+                    policies.add(policy);
+                    equalities.add(new PropertyEquality(registry, null, secondAccessor.getType()));
+                }
+            }
+        }
+        return new ComparePlan(names, firstAccessors, secondAccessors, policies, equalities);
+    }
+
+    /**
+     * 属性的注解策略，对象1的类上的注解优先，任意一方标注了忽略即忽略
+     */
+    private static PropertyPolicy policyOf(ClassPlan firstPlan, ClassPlan secondPlan, String name) {
+        PropertyPolicy firstPolicy = firstPlan.getPolicy(name);
+        PropertyPolicy secondPolicy = secondPlan.getPolicy(name);
+        if (isIgnore(secondPolicy) || firstPolicy == null) {
+            return secondPolicy;
+        }
+        return firstPolicy;
+    }
+
+    /**
+     * 比对器设置了误差时，声明类型为浮点数或 BigDecimal 的属性按误差比对
+     *
+     * @param firstType  对象1的属性类型，属性不存在时为 null
+     * @param secondType 对象2的属性类型，属性不存在时为 null
+     */
+    private PropertyPolicy tolerancePolicy(Class<?> firstType, Class<?> secondType) {
+        NumericTolerance tolerance = numericTolerance;
+        if (tolerance == null || firstType == null && secondType == null
+                || firstType != null && !isToleranceType(firstType) || secondType != null && !isToleranceType(secondType)) {
+            return null;
+        }
+        return PropertyPolicy.tolerance(tolerance);
+    }
+
+    private static boolean isToleranceType(Class<?> type) {
+        return type == double.class || type == Double.class || type == float.class || type == Float.class || type == BigDecimal.class;
+    }
+
+    private static boolean isIgnore(PropertyPolicy policy) {
+        return policy != null && policy.isIgnore();
+    }
+
     /**
      * 判断字段是否相等
      *
@@ -82,32 +591,66 @@ public abstract class AbstractComparator implements Comparator {
         if (!isInclude(fieldInfo)) {
             return true;
         }
-        return nullableEquals(fieldInfo.getFirstVal(), fieldInfo.getSecondVal());
+        Object firstVal = fieldInfo.getFirstVal();
+        Object secondVal = fieldInfo.getSecondVal();
+        NumericTolerance tolerance = numericTolerance;
+        if (tolerance != null && isToleranceValue(firstVal) && isToleranceValue(secondVal)) {
+            return tolerance.isEquals(firstVal, secondVal);
+        }
+        return equalityRegistry.isEquals(firstVal, secondVal);
+    }
+
+    private static boolean isToleranceValue(Object value) {
+        return value instanceof Double || value instanceof Float || value instanceof BigDecimal;
     }
 
     /**
      * 确定是否需要需要排除这个字段，子类可以扩展这个方法，自定义判断方式
      */
     protected boolean isExclude(FieldInfo fieldInfo) {
+        return isExcludeField(fieldInfo.getFieldName());
+    }
+
+    private boolean isExcludeField(String fieldName) {
         // 如果有指定需要排除的字段，而且当前字段是需要排除字段，则直接返回 true
-        return excludeFields != null && !excludeFields.isEmpty() && excludeFields.contains(fieldInfo.getFieldName());
+        return excludeSet != null && excludeSet.contains(fieldName);
     }
 
     /**
      * 确定是否需要比较这个字段，子类可以扩展这个方法，自定义判断方式
      */
     protected boolean isInclude(FieldInfo fieldInfo) {
+        return isIncludeField(fieldInfo.getFieldName());
+    }
+
+    private boolean isIncludeField(String fieldName) {
         // 没有指定需要包含的字段，则全部都包含,需要比对
-        if (includeFields == null || includeFields.isEmpty()) {
+        if (includeSet == null) {
             return true;
         }
-        return includeFields.contains(fieldInfo.getFieldName());
+        return includeSet.contains(fieldName);
+    }
+
+    /**
+     * 字段是否需要比对，排除优先于包含
+     */
+    private boolean isCompareField(String fieldName) {
+        return !isExcludeField(fieldName) && isIncludeField(fieldName);
     }
 
+    /**
+     * 对象是否为简单类型，简单类型直接比对，不扫描属性，见 {@link SimpleTypes}
+     */
     boolean isSimpleField(Object first, Object second) {
         Object obj = first == null ? second : first;
-        Class<?> clazz = obj.getClass();
-        return clazz.isPrimitive() || WRAPPER_TYPES.contains(clazz);
+        return isSimpleType(obj.getClass());
+    }
+
+    /**
+     * 简单类型以及注册了比对方式的类型都作为整体比对
+     */
+    private boolean isSimpleType(Class<?> clazz) {
+        return SimpleTypes.isSimple(clazz) || equalityRegistry.getStrategy(clazz) != null;
     }
     /**
      * 如果简单数据类型的对象则直接进行比对
@@ -117,7 +660,7 @@ public abstract class AbstractComparator implements Comparator {
      * @return 不同的字段信息，相等返回空集，不等则 FieldInfo 的字段名为对象的类型名称
      */
     List<FieldInfo> compareSimpleField(Object first, Object second) {
-        if (Objects.equals(first, second)) {
+        if (equalityRegistry.isEquals(first, second)) {
             return Collections.emptyList();
         } else {
             Object obj = first == null ? second : first;
@@ -128,31 +671,445 @@ public abstract class AbstractComparator implements Comparator {
     }
 
     /**
-     * 根据配置的规则决定取两个对象字段的交集或并集
+     * 根据两个对象的类元数据逐个属性进行比对
+     *
+     * @param first      对象1
+     * @param firstPlan  对象1的类元数据，对象为 null 时为空元数据
+     * @param second     对象2
+     * @param secondPlan 对象2的类元数据，对象为 null 时为空元数据
+     * @return 不同的字段信息
+     */
+    List<FieldInfo> compareProperties(Object first, ClassPlan firstPlan, Object second, ClassPlan secondPlan) {
+        return compareProperties(first, firstPlan, second, secondPlan, null);
+    }
+
+    /**
+     * @param memo 递归比对时复用不可变对象比对结果的缓存，可以为 null
+     */
+    List<FieldInfo> compareProperties(Object first, ClassPlan firstPlan, Object second, ClassPlan secondPlan, DiffMemo memo) {
+        List<FieldInfo> diffFields = new LinkedList<>();
+        DiffContext context = recursive ? new DiffContext(maxDepth, first, second, memo) : null;
+        ComparatorListener l = listener;
+        if (l == null) {
+            compareProperties(first, firstPlan, second, secondPlan, null, context, diffFields);
+            return diffFields;
+        }
+        long start = System.nanoTime();
+        try {
+            compareProperties(first, firstPlan, second, secondPlan, null, context, diffFields);
+        } catch (RuntimeException e) {
+            l.onError(typeOf(first), typeOf(second), e);
+            throw e;
+        }
+        l.onCompare(typeOf(first), typeOf(second), System.nanoTime() - start,
+                getComparePlan(firstPlan, secondPlan).size(), diffFields.size());
+        return diffFields;
+    }
+
+    /**
+     * 为原地修改的可变对象记录基线快照，之后通过 {@link #getDiffFields(EntitySnapshot, Object)} 得到修改过的属性，
+     * 不需要复制整个对象。快照使用创建时的包含、排除和比对方式配置，只比对对象自身的属性，
+     * 集合、数组和嵌套实体的原地修改通过按结构计算的 64 位内容哈希发现，见 {@link EntitySnapshot}
+     *
+     * @param obj 对象，不能为 null 或简单类型
+     * @return 基线快照
+     */
+    public EntitySnapshot snapshot(Object obj) {
+        Objects.requireNonNull(obj, "obj");
+        if (isSimpleField(obj, null)) {
+            throw new IllegalArgumentException("简单类型不支持快照: " + obj.getClass().getName());
+        }
+        ClassPlan classPlan = getClassPlan(obj);
+        if (classPlan == null) {
+            throw new IllegalStateException("比对器不支持快照: " + getClass().getName());
+        }
+        return new EntitySnapshot(obj, getComparePlan(classPlan, classPlan), new Fingerprinter(this, true));
+    }
+
+    /**
+     * 比对对象的当前状态与快照，返回修改过的属性，对象1的值为快照中的值。
+     * 被原地修改的集合、数组等值在快照中保存的是同一个引用，此时两个值相同
+     *
+     * @param baseline 快照
+     * @param current  当前对象，类型必须与快照一致
+     * @return 修改过的属性
+     */
+    public List<FieldInfo> getDiffFields(EntitySnapshot baseline, Object current) {
+        List<FieldInfo> diffFields = new LinkedList<>();
+        compareSnapshot(baseline, current, diffFields);
+        return diffFields;
+    }
+
+    /**
+     * @return 对象相对快照是否被修改过，遇到第一个修改过的属性即返回
+     */
+    public boolean isChanged(EntitySnapshot baseline, Object current) {
+        return compareSnapshot(baseline, current, null);
+    }
+
+    /**
+     * @param diffFields 收集修改过的属性，为 null 时遇到第一个即返回
+     * @return 是否有修改过的属性
      */
-    Set<String> getAllFieldNames(Set<String> firstFields, Set<String> secondFields) {
-        Set<String> allFields;
-        // 只取交集
-        if (isBothExistFieldOnly()) {
-            allFields = firstFields.stream().filter(secondFields::contains).collect(Collectors.toSet());
+    private boolean compareSnapshot(EntitySnapshot baseline, Object current, List<FieldInfo> diffFields) {
+        Objects.requireNonNull(baseline, "baseline");
+        if (current == null || current.getClass() != baseline.getType()) {
+            throw new IllegalArgumentException("对象类型与快照不一致: " + baseline.getType().getName() + " / " + typeOf(current));
+        }
+        ComparePlan plan = baseline.getPlan();
+        ComparatorListener l = listener;
+        long start = l == null ? 0 : System.nanoTime();
+        boolean customized = CUSTOMIZED.get(getClass());
+        boolean changed = false;
+        Fingerprinter hasher = new Fingerprinter(this, true);
+        for (int i = 0, size = plan.size(); i < size; i++) {
+            if (!baseline.isChanged(i, current, hasher)) {
+                continue;
+            }
+            PropertyAccessor accessor = plan.getFirstAccessor(i);
+            Object firstVal = baseline.getValue(i);
+            Object secondVal = accessor.get(current);
+            FieldInfo fieldInfo = newFieldInfo(plan.getName(i), null, accessor.getType(), accessor.getType(), firstVal, secondVal);
+            boolean equals;
+            if (customized) {
+                // 原地修改的值引用相同，isFieldEquals 无法分辨，只判断包含和排除
+                equals = firstVal == secondVal ? isExclude(fieldInfo) || !isInclude(fieldInfo) : isFieldEquals(fieldInfo);
+            } else if (firstVal == secondVal || baseline.isPrimitive(i)) {
+                equals = false;
+            } else {
+                PropertyPolicy policy = plan.getPolicy(i);
+                equals = policy != null ? policy.isEquals(firstVal, secondVal) : plan.getEquality(i).isEquals(firstVal, secondVal);
+            }
+            if (!equals) {
+                changed = true;
+                if (diffFields == null) {
+                    break;
+                }
+                diffFields.add(fieldInfo);
+            }
+        }
+        if (l != null) {
+            l.onCompare(baseline.getType(), baseline.getType(), System.nanoTime() - start, plan.size(),
+                    diffFields == null ? (changed ? 1 : 0) : diffFields.size());
+        }
+        return changed;
+    }
+
+    /**
+     * 从类元数据缓存中获取类元数据，未命中时通过 loader 扫描类并放入缓存，同时通知监听器
+     *
+     * @param defaultCache 没有指定缓存时使用的子类默认缓存
+     * @param type         类型
+     * @param loader       扫描类生成元数据
+     */
+    ClassPlan getCachedClassPlan(MetadataCache defaultCache, Class<?> type, Function<Class<?>, ClassPlan> loader) {
+        MetadataCache cache = metadataCache != null ? metadataCache : defaultCache;
+        ComparatorListener l = listener;
+        ClassPlan plan = cache.get(type);
+        if (plan != null) {
+            if (l != null) {
+                l.onMetadataHit(type);
+            }
+            return plan;
+        }
+        if (l == null) {
+            return cache.computeIfAbsent(type, loader);
+        }
+        long start = System.nanoTime();
+        boolean[] loaded = new boolean[1];
+        try {
+            plan = cache.computeIfAbsent(type, k -> {
+                loaded[0] = true;
+                return loader.apply(k);
+            });
+        } catch (RuntimeException e) {
+            l.onError(type, null, e);
+            throw e;
+        }
+        if (loaded[0]) {
+            l.onMetadataMiss(type, System.nanoTime() - start, cache.size());
         } else {
-            // 否则取并集
-            allFields = new HashSet<>(firstFields);
-            allFields.addAll(secondFields);
+            // 其他线程抢先放入了缓存
+            l.onMetadataHit(type);
+        }
+        return plan;
+    }
+
+    /**
+     * @param parentPath 父对象的路径，顶层对象为 null
+     * @param context    递归比对的上下文，非递归模式为 null
+     * @param diffFields 收集不同的字段信息
+     */
+    private void compareProperties(Object first, ClassPlan firstPlan, Object second, ClassPlan secondPlan,
+                                   String parentPath, DiffContext context, List<FieldInfo> diffFields) {
+        ComparePlan plan = getComparePlan(firstPlan, secondPlan);
+        // 没有自定义 isFieldEquals 时，相等的字段不需要创建 FieldInfo，相等的基本类型字段也不需要装箱
+        boolean customized = CUSTOMIZED.get(getClass());
+        for (int i = 0, size = plan.size(); i < size; i++) {
+            PropertyAccessor firstAccessor = plan.getFirstAccessor(i);
+            PropertyAccessor secondAccessor = plan.getSecondAccessor(i);
+            PropertyPolicy policy = plan.getPolicy(i);
+            boolean primitive = policy == null && isSamePrimitive(firstAccessor, secondAccessor);
+            if (!customized && primitive && firstAccessor.isPrimitiveEquals(first, secondAccessor, second)) {
+                continue;
+            }
+            // 按误差比对的基本类型同样先不装箱比对，只有不相等时才读取装箱的值
+            if (policy != null && policy.isPrimitiveTolerance(firstAccessor, secondAccessor)
+                    && policy.isPrimitiveEquals(first, firstAccessor, second, secondAccessor)) {
+                continue;
+            }
+            Object firstVal = null;
+            Class<?> firstType = null;
+            Class<?> secondType = null;
+            Object secondVal = null;
+            if (firstAccessor != null) {
+                firstVal = firstAccessor.get(first);
+                firstType = firstAccessor.getType();
+            }
+            if (secondAccessor != null) {
+                secondVal = secondAccessor.get(second);
+                secondType = secondAccessor.getType();
+            }
+            String fieldName = plan.getName(i);
+            if (policy != null) {
+                // 注解指定了比对方式，不再递归，也不经过 isFieldEquals
+                if (!policy.isEquals(firstVal, secondVal)) {
+                    diffFields.add(newFieldInfo(fieldName, parentPath == null ? (context == null ? null : fieldName) : parentPath + "." + fieldName,
+                            firstType, secondType, firstVal, secondVal));
+                }
+            } else if (primitive && !customized) {
+                // 基本类型已经比对过，能走到这里说明不相等
+                diffFields.add(newFieldInfo(fieldName, parentPath == null ? null : parentPath + "." + fieldName,
+                        firstType, secondType, firstVal, secondVal));
+            } else {
+                String path = parentPath == null ? (context == null ? null : fieldName) : parentPath + "." + fieldName;
+                compareValue(fieldName, path, firstType, secondType, firstVal, secondVal, plan.getEquality(i), context, diffFields);
+            }
         }
-        return allFields;
     }
 
-    private boolean nullableEquals(Object first, Object second) {
-        // 1. 检查两个对象是否都是集合类型（List/Set等）
-        if (first instanceof Collection && second instanceof Collection) {
-            // 2. 如果是集合类型，将它们转换为数组，再进行深度比较
-            return Objects.deepEquals(((Collection<?>) first).toArray(), ((Collection<?>) second).toArray());
+    /**
+     * 比对一对值，递归模式下嵌套的对象、数组、List 和 Map 会继续向下比对
+     *
+     * @param fieldName 字段名称，集合元素为 属性名[下标]
+     * @param path      字段的完整路径，非递归模式为 null
+     */
+    private void compareValue(String fieldName, String path, Class<?> firstType, Class<?> secondType,
+                              Object firstVal, Object secondVal, DiffContext context, List<FieldInfo> diffFields) {
+        compareValue(fieldName, path, firstType, secondType, firstVal, secondVal, null, context, diffFields);
+    }
+
+    /**
+     * @param equality 属性按声明类型解析的相等判断，集合元素等没有声明类型的值为 null，按实际类型分派
+     */
+    private void compareValue(String fieldName, String path, Class<?> firstType, Class<?> secondType, Object firstVal,
+                              Object secondVal, PropertyEquality equality, DiffContext context, List<FieldInfo> diffFields) {
+        if (context != null && firstVal != null && secondVal != null && context.canDescend()
+                && compareNested(fieldName, path, firstVal, secondVal, context, diffFields)) {
+            return;
+        }
+        if (CUSTOMIZED.get(getClass())) {
+            FieldInfo fieldInfo = newFieldInfo(fieldName, path, firstType, secondType, firstVal, secondVal);
+            if (!isFieldEquals(fieldInfo)) {
+                diffFields.add(fieldInfo);
+            }
+        } else if (!(equality != null ? equality.isEquals(firstVal, secondVal) : equalityRegistry.isEquals(firstVal, secondVal))) {
+            diffFields.add(newFieldInfo(fieldName, path, firstType, secondType, firstVal, secondVal));
         }
-        // 3. 如果不是集合类型，直接进行深度比较
-        return Objects.deepEquals(first, second);
     }
 
+    /**
+     * 递归比对嵌套的值
+     *
+     * @return false 表示不是可以递归比对的值，需要作为整体比对
+     */
+    private boolean compareNested(String fieldName, String path, Object firstVal, Object secondVal,
+                                  DiffContext context, List<FieldInfo> diffFields) {
+        ClassPlan firstPlan = null;
+        ClassPlan secondPlan = null;
+        boolean array = firstVal instanceof Object[] && secondVal instanceof Object[];
+        boolean collection = firstVal instanceof Collection && secondVal instanceof Collection;
+        boolean map = firstVal instanceof Map && secondVal instanceof Map;
+        if (!array && !collection && !map) {
+            if (isSimpleType(firstVal.getClass()) || isSimpleType(secondVal.getClass())) {
+                return false;
+            }
+            firstPlan = getClassPlan(firstVal);
+            secondPlan = getClassPlan(secondVal);
+            if (firstPlan == null || secondPlan == null) {
+                return false;
+            }
+        }
+        // 循环引用回到了正在比对的对象，视为相等
+        if (!context.enter(firstVal, secondVal)) {
+            return true;
+        }
+        try {
+            if (array) {
+                compareIndexed(fieldName, path, Arrays.asList((Object[]) firstVal), Arrays.asList((Object[]) secondVal), context, diffFields);
+            } else if (collection) {
+                compareCollection(fieldName, path, (Collection<?>) firstVal, (Collection<?>) secondVal, context, diffFields);
+            } else if (map) {
+                compareMap(fieldName, path, (Map<?, ?>) firstVal, (Map<?, ?>) secondVal, context, diffFields);
+            } else if (context.getMemo() != null && ImmutableTypes.isImmutable(firstVal.getClass())
+                    && ImmutableTypes.isImmutable(secondVal.getClass())) {
+                compareImmutable(firstVal, firstPlan, secondVal, secondPlan, path, context, diffFields);
+            } else {
+                compareProperties(firstVal, firstPlan, secondVal, secondPlan, path, context, diffFields);
+            }
+        } finally {
+            context.exit(firstVal, secondVal);
+        }
+        return true;
+    }
+
+    /**
+     * 比对两个不可变对象，同一对对象已经比对过时直接复用结果
+     */
+    private void compareImmutable(Object first, ClassPlan firstPlan, Object second, ClassPlan secondPlan,
+                                  String path, DiffContext context, List<FieldInfo> diffFields) {
+        if (first == second) {
+            // 同一个不可变对象与自身比对没有差异
+            return;
+        }
+        DiffMemo memo = context.getMemo();
+        PlanKey config = planKey;
+        DiffMemo.Entry entry = memo.get(this, config, first, second);
+        // 记录时所有比对都没有到达深度上限，当前剩余的层数足够时结果相同
+        if (entry != null && context.getDepth() + entry.getDepth() < context.getMaxDepth()) {
+            diffFields.addAll(entry.getDiffFields(path));
+            return;
+        }
+        int truncations = context.getTruncations();
+        int previous = context.markDeepest();
+        List<FieldInfo> nested = new ArrayList<>();
+        int reached;
+        try {
+            compareProperties(first, firstPlan, second, secondPlan, path, context, nested);
+        } finally {
+            reached = context.restoreDeepest(previous);
+        }
+        if (entry == null && context.getTruncations() == truncations) {
+            memo.put(this, config, first, second, path, reached - context.getDepth(), nested);
+        }
+        diffFields.addAll(nested);
+    }
+
+    /**
+     * 比对集合：指定了元素的键时按键匹配，两个 Set 按 Set 语义比对，开启 lcsListDiff 时按最长公共子序列对齐，
+     * 否则按下标逐个比对
+     */
+    private void compareCollection(String fieldName, String path, Collection<?> first, Collection<?> second,
+                                   DiffContext context, List<FieldInfo> diffFields) {
+        Function<Object, ?> keyExtractor = getCollectionKey(first, second);
+        if (keyExtractor == null && !lcsListDiff && !(first instanceof Set && second instanceof Set)) {
+            compareIndexed(fieldName, path, first, second, context, diffFields);
+            return;
+        }
+        CollectionDiff diff = new CollectionDiffer(this, keyExtractor).diff(first, second, true);
+        for (FieldInfo element : diff.getChanged()) {
+            compareValue(fieldName + element.getFieldName(), path + element.getFieldName(), element.getFirstFieldType(),
+                    element.getSecondFieldType(), element.getFirstVal(), element.getSecondVal(), context, diffFields);
+        }
+        for (FieldInfo element : diff.getRemoved()) {
+            diffFields.add(newFieldInfo(fieldName + element.getFieldName(), path + element.getFieldName(),
+                    element.getFirstFieldType(), null, element.getFirstVal(), null));
+        }
+        for (FieldInfo element : diff.getAdded()) {
+            diffFields.add(newFieldInfo(fieldName + element.getFieldName(), path + element.getFieldName(),
+                    null, element.getSecondFieldType(), null, element.getSecondVal()));
+        }
+    }
+
+    /**
+     * 按集合中第一个非 null 元素的类型查找注册的键，会依次查找父类，没有注册时使用 {@link DiffKey} 标注的属性
+     */
+    private Function<Object, ?> getCollectionKey(Collection<?> first, Collection<?> second) {
+        Object sample = null;
+        for (Iterator<?> it = first.isEmpty() ? second.iterator() : first.iterator(); it.hasNext() && sample == null; ) {
+            sample = it.next();
+        }
+        if (sample == null) {
+            return null;
+        }
+        if (!collectionKeys.isEmpty()) {
+            for (Class<?> cls = sample.getClass(); cls != null; cls = cls.getSuperclass()) {
+                Function<Object, ?> keyExtractor = collectionKeys.get(cls);
+                if (keyExtractor != null) {
+                    return keyExtractor;
+                }
+            }
+        }
+        // 没有注册时使用元素类上 @DiffKey 标注的属性
+        ClassPlan plan = isSimpleType(sample.getClass()) ? null : getClassPlan(sample);
+        return plan == null ? null : plan.getKeyExtractor();
+    }
+
+    private void compareIndexed(String fieldName, String path, Collection<?> firstList, Collection<?> secondList,
+                                DiffContext context, List<FieldInfo> diffFields) {
+        Iterator<?> firstIt = firstList.iterator();
+        Iterator<?> secondIt = secondList.iterator();
+        for (int index = 0; firstIt.hasNext() || secondIt.hasNext(); index++) {
+            Object firstElement = firstIt.hasNext() ? firstIt.next() : null;
+            Object secondElement = secondIt.hasNext() ? secondIt.next() : null;
+            String segment = "[" + index + "]";
+            compareValue(fieldName + segment, path + segment, typeOf(firstElement), typeOf(secondElement),
+                    firstElement, secondElement, context, diffFields);
+        }
+    }
+
+    private void compareMap(String fieldName, String path, Map<?, ?> firstMap, Map<?, ?> secondMap,
+                            DiffContext context, List<FieldInfo> diffFields) {
+        for (Map.Entry<?, ?> entry : firstMap.entrySet()) {
+            Object secondValue = secondMap.get(entry.getKey());
+            String segment = "[" + entry.getKey() + "]";
+            compareValue(fieldName + segment, path + segment, typeOf(entry.getValue()), typeOf(secondValue),
+                    entry.getValue(), secondValue, context, diffFields);
+        }
+        for (Map.Entry<?, ?> entry : secondMap.entrySet()) {
+            if (!firstMap.containsKey(entry.getKey())) {
+                String segment = "[" + entry.getKey() + "]";
+                compareValue(fieldName + segment, path + segment, null, typeOf(entry.getValue()),
+                        null, entry.getValue(), context, diffFields);
+            }
+        }
+    }
+
+    private static Class<?> typeOf(Object obj) {
+        return obj == null ? null : obj.getClass();
+    }
+
+    private static FieldInfo newFieldInfo(String fieldName, String path, Class<?> firstType, Class<?> secondType,
+                                          Object firstVal, Object secondVal) {
+        FieldInfo fieldInfo = new FieldInfo(fieldName, firstType, secondType, firstVal, secondVal);
+        fieldInfo.setPath(path);
+        return fieldInfo;
+    }
+
+    private void updatePlanKey() {
+        boolean prune = !CUSTOMIZED.get(getClass());
+        planKey = new PlanKey(includeSet, excludeSet, bothExistFieldOnly, prune, equalityRegistry, numericTolerance, false);
+        reversedPlanKey = new PlanKey(includeSet, excludeSet, bothExistFieldOnly, prune, equalityRegistry, numericTolerance, true);
+        // 按引用区分的注册表不能共享比对计划，注册表变化时旧的比对计划随之丢弃
+        LocalComparePlans local = localPlans;
+        localPlans = equalityRegistry.isShared() ? null : local != null && local.isFor(equalityRegistry) ? local : new LocalComparePlans(equalityRegistry);
+    }
+
+    private static Set<String> toSet(List<String> fields) {
+        return fields == null || fields.isEmpty() ? null : new HashSet<>(fields);
+    }
+
+    private static Class<?> declaringClass(Class<?> type, String name, Class<?>... parameterTypes) {
+        for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            try {
+                cls.getDeclaredMethod(name, parameterTypes);
+                return cls;
+            } catch (NoSuchMethodException e) {
+                // 继续向父类查找
+            }
+        }
+        return null;
+    }
 
     public List<String> getIncludeFields() {
         return includeFields;
@@ -160,6 +1117,8 @@ public abstract class AbstractComparator implements Comparator {
 
     public void setIncludeFields(List<String> includeFields) {
         this.includeFields = includeFields;
+        this.includeSet = toSet(includeFields);
+        updatePlanKey();
     }
 
     public List<String> getExcludeFields() {
@@ -168,9 +1127,163 @@ public abstract class AbstractComparator implements Comparator {
 
     public void setExcludeFields(List<String> excludeFields) {
         this.excludeFields = excludeFields;
+        this.excludeSet = toSet(excludeFields);
+        updatePlanKey();
+    }
+
+    public EqualityRegistry getEqualityRegistry() {
+        return equalityRegistry;
+    }
+
+    /**
+     * 指定非基本类型属性值的相等判断。注册表按引用区分，自定义注册表对应的比对计划缓存在比对器自身，
+     * 不写入共享的类元数据，同一份配置应复用同一个比对器
+     *
+     * @param equalityRegistry 相等判断的注册表
+     */
+    public void setEqualityRegistry(EqualityRegistry equalityRegistry) {
+        this.equalityRegistry = Objects.requireNonNull(equalityRegistry, "equalityRegistry");
+        updatePlanKey();
+    }
+
+    /**
+     * 为一个类型注册相等判断，对子类和实现类同样生效，如 BigDecimal 按 compareTo 比对
+     *
+     * @param type     类型
+     * @param strategy 相等判断
+     */
+    public synchronized void registerEquality(Class<?> type, EqualityStrategy strategy) {
+        setEqualityRegistry(equalityRegistry.with(type, strategy));
+    }
+
+    public NumericTolerance getNumericTolerance() {
+        return numericTolerance;
+    }
+
+    /**
+     * 指定浮点数和 BigDecimal 属性的误差，对声明类型为 float、double、Float、Double、BigDecimal 的属性生效，
+     * 基本类型属性不装箱比对。属性上的 {@link DiffTolerance} 等注解优先
+     *
+     * @param numericTolerance 误差，为 null 时按数值相等比对
+     */
+    public void setNumericTolerance(NumericTolerance numericTolerance) {
+        this.numericTolerance = numericTolerance;
+        updatePlanKey();
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * 指定类元数据缓存，默认使用 FieldBaseComparator 或 GetterBaseComparator 各自共享的缓存
+     *
+     * @param metadataCache 类元数据缓存，为 null 时使用默认缓存
+     */
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
     }
 
     public boolean isBothExistFieldOnly() {
         return bothExistFieldOnly;
     }
+
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    public void setRecursive(boolean recursive) {
+        this.recursive = recursive;
+    }
+
+    public boolean isLcsListDiff() {
+        return lcsListDiff;
+    }
+
+    public void setLcsListDiff(boolean lcsListDiff) {
+        this.lcsListDiff = lcsListDiff;
+    }
+
+    /**
+     * 注册集合元素的键，递归比对时该类型元素组成的集合按键匹配，报告新增、删除和变化的元素
+     *
+     * @param elementType  元素类型，对子类同样生效
+     * @param keyExtractor 获取元素的键
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void registerCollectionKey(Class<T> elementType, Function<? super T, ?> keyExtractor) {
+        collectionKeys.put(elementType, (Function<Object, ?>) keyExtractor);
+    }
+
+    /**
+     * 注册监听器，用于采集比对指标或接入链路追踪，没有监听器时比对不计时
+     *
+     * @param listener 监听器
+     * @see ComparatorMetrics
+     */
+    public synchronized void addListener(ComparatorListener listener) {
+        this.listener = CompositeListener.add(this.listener, Objects.requireNonNull(listener, "listener"));
+    }
+
+    public synchronized void removeListener(ComparatorListener listener) {
+        this.listener = CompositeListener.remove(this.listener, listener);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth 不能小于 0: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * 比对计划的缓存键，影响比对计划内容的配置都在键中，配置相同的比对器实例共享比对计划
+     */
+    private static final class PlanKey {
+        private final Set<String> includeSet;
+        private final Set<String> excludeSet;
+        private final boolean bothExistFieldOnly;
+        private final boolean prune;
+        private final EqualityRegistry equalityRegistry;
+        private final NumericTolerance numericTolerance;
+        private final boolean reversed;
+        private final int hash;
+
+        PlanKey(Set<String> includeSet, Set<String> excludeSet, boolean bothExistFieldOnly, boolean prune,
+                EqualityRegistry equalityRegistry, NumericTolerance numericTolerance, boolean reversed) {
+            this.includeSet = includeSet;
+            this.excludeSet = excludeSet;
+            this.bothExistFieldOnly = bothExistFieldOnly;
+            this.prune = prune;
+            this.equalityRegistry = equalityRegistry;
+            this.numericTolerance = numericTolerance;
+            this.reversed = reversed;
+            this.hash = Objects.hash(includeSet, excludeSet, bothExistFieldOnly, prune, System.identityHashCode(equalityRegistry),
+                    numericTolerance, reversed);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey other = (PlanKey) o;
+            return hash == other.hash && bothExistFieldOnly == other.bothExistFieldOnly && prune == other.prune
+                    && reversed == other.reversed && equalityRegistry == other.equalityRegistry
+                    && Objects.equals(numericTolerance, other.numericTolerance) && Objects.equals(includeSet, other.includeSet)
+                    && Objects.equals(excludeSet, other.excludeSet);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package com.cong.entitydiff;
+
+/**
+ * 访问器工厂的选择
+ * <p>
+ * 通过系统属性 {@value #FACTORY_PROPERTY} 指定：
+ * <ul>
+ *     <li>methodHandle：默认值，使用 {@link MethodHandleAccessorFactory}</li>
+ *     <li>reflection：使用 {@link ReflectionAccessorFactory}</li>
+ *     <li>其他值视为自定义 {@link AccessorFactory} 实现的全限定类名，需要有无参构造方法</li>
+ * </ul>
+ */
+public final class AccessorFactories {
+    public static final String FACTORY_PROPERTY = "entitydiff.accessor";
+    private static final AccessorFactory DEFAULT = load(System.getProperty(FACTORY_PROPERTY));
+
+    private AccessorFactories() {
+    }
+
+    /**
+     * 比对器构建类元数据时使用的访问器工厂
+     */
+    public static AccessorFactory getDefault() {
+        return DEFAULT;
+    }
+
+    static AccessorFactory load(String name) {
+        if (name == null || name.isEmpty() || "methodHandle".equalsIgnoreCase(name)) {
+            return MethodHandleAccessorFactory.INSTANCE;
+        }
+        if ("reflection".equalsIgnoreCase(name)) {
+            return ReflectionAccessorFactory.INSTANCE;
+        }
+        try {
+            return (AccessorFactory) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("无法创建访问器工厂: " + name, e);
+        }
+    }
+}
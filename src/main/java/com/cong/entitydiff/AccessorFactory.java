@@ -0,0 +1,29 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * 属性访问器工厂，决定如何读取对象的属性
+ * <p>
+ * 默认实现见 {@link AccessorFactories#getDefault()}，可以通过系统属性
+ * {@value AccessorFactories#FACTORY_PROPERTY} 指定其他实现
+ */
+public interface AccessorFactory {
+    /**
+     * 为字段创建访问器
+     *
+     * @param field 字段
+     * @return 访问器
+     */
+    PropertyAccessor forField(Field field);
+
+    /**
+     * 为 getter 方法创建访问器
+     *
+     * @param propertyName 属性名称
+     * @param getter       无参的 getter 方法
+     * @return 访问器
+     */
+    PropertyAccessor forGetter(String propertyName, Method getter);
+}
@@ -0,0 +1,210 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * 比对器的异步门面，适合两个版本的对象需要从不同的存储中读取后再比对的场景
+ * <p>
+ * 读取和比对在执行器中进行，运行在 JDK 21 及以上时默认使用虚拟线程，否则使用固定大小的平台线程池。
+ * 同时进行中的任务数受 maxInFlight 限制，达到上限时提交任务的线程会阻塞，直到有任务完成，以此向上游施加背压。
+ * 批量比对时每 batchSize 对对象合并为一个任务，减少调度的开销
+ */
+public class AsyncComparator implements AutoCloseable {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Comparator comparator;
+    private final ExecutorService executor;
+    /**
+     * 执行器是否由本类创建，创建的执行器在 close 时关闭
+     */
+    private final boolean ownExecutor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public AsyncComparator(Comparator comparator) {
+        this(comparator, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param comparator  比对器
+     * @param maxInFlight 同时进行中的任务数上限
+     */
+    public AsyncComparator(Comparator comparator, int maxInFlight) {
+        this(comparator, maxInFlight, null);
+    }
+
+    /**
+     * @param comparator  比对器
+     * @param maxInFlight 同时进行中的任务数上限
+     * @param executor    执行读取和比对的执行器，为 null 时使用默认的执行器，外部传入的执行器不会被关闭
+     */
+    public AsyncComparator(Comparator comparator, int maxInFlight, ExecutorService executor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须大于 0: " + maxInFlight);
+        }
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.ownExecutor = executor == null;
+        this.executor = executor != null ? executor : newDefaultExecutor();
+    }
+
+    /**
+     * 异步比对两个对象
+     *
+     * @return 不相等的属性
+     */
+    public CompletableFuture<List<FieldInfo>> getDiffFields(Object first, Object second) {
+        return submit(() -> comparator.getDiffFields(first, second));
+    }
+
+    public CompletableFuture<Boolean> isEquals(Object first, Object second) {
+        return submit(() -> comparator.isEquals(first, second));
+    }
+
+    /**
+     * 并发读取两个对象后比对，两次读取和比对共占用一个任务数
+     *
+     * @param first  读取对象1，如从数据库中查询
+     * @param second 读取对象2
+     * @return 不相等的属性
+     */
+    public CompletableFuture<List<FieldInfo>> loadAndGetDiffFields(Supplier<?> first, Supplier<?> second) {
+        acquire();
+        try {
+            CompletableFuture<?> firstFuture = CompletableFuture.supplyAsync(first, executor);
+            CompletableFuture<?> secondFuture = CompletableFuture.supplyAsync(second, executor);
+            return release(firstFuture.thenCombine(secondFuture, comparator::getDiffFields));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 批量比对，first 和 second 中相同下标的对象为一对，每 batchSize 对为一个任务
+     *
+     * @return 每一对对象不相等的属性，顺序与输入一致
+     */
+    public CompletableFuture<List<List<FieldInfo>>> getDiffFieldsInBatch(List<?> first, List<?> second) {
+        return batch(first, second, comparator::getDiffFields);
+    }
+
+    /**
+     * 批量判断是否相等，first 和 second 中相同下标的对象为一对
+     */
+    public CompletableFuture<List<Boolean>> isEqualsInBatch(List<?> first, List<?> second) {
+        return batch(first, second, comparator::isEquals);
+    }
+
+    private <R> CompletableFuture<List<R>> batch(List<?> first, List<?> second, BiFunction<Object, Object, R> function) {
+        if (first.size() != second.size()) {
+            throw new IllegalArgumentException("两个列表的长度不一致: " + first.size() + " / " + second.size());
+        }
+        int size = first.size();
+        List<CompletableFuture<List<R>>> batches = new ArrayList<>((size + batchSize - 1) / batchSize);
+        for (int from = 0; from < size; from += batchSize) {
+            List<?> firstChunk = first.subList(from, Math.min(size, from + batchSize));
+            List<?> secondChunk = second.subList(from, Math.min(size, from + batchSize));
+            batches.add(submit(() -> {
+                List<R> results = new ArrayList<>(firstChunk.size());
+                for (int i = 0; i < firstChunk.size(); i++) {
+                    results.add(function.apply(firstChunk.get(i), secondChunk.get(i)));
+                }
+                return results;
+            }));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<R> results = new ArrayList<>(size);
+            for (CompletableFuture<List<R>> batch : batches) {
+                results.addAll(batch.join());
+            }
+            return results;
+        });
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> task) {
+        acquire();
+        try {
+            return release(CompletableFuture.supplyAsync(task, executor));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取任务数，达到上限时阻塞
+     */
+    private void acquire() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("等待提交比对任务时被中断");
+        }
+    }
+
+    private <R> CompletableFuture<R> release(CompletableFuture<R> future) {
+        return future.whenComplete((result, error) -> permits.release());
+    }
+
+    /**
+     * @return 正在进行中的任务数
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 关闭默认创建的执行器，已经提交的任务会继续执行完，外部传入的执行器不受影响
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * JDK 21 及以上通过反射创建虚拟线程执行器，保持 Java 8 的编译目标，否则使用守护线程组成的固定线程池
+     */
+    static ExecutorService newDefaultExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 低于 JDK 21，或者虚拟线程还是预览特性
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, runnable -> {
+            Thread thread = new Thread(runnable, "entitydiff-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
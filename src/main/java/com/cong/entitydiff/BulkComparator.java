@@ -0,0 +1,195 @@
+package com.cong.entitydiff;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 批量比对器，把大量的对象对分批交给线程池并行比对
+ * <p>
+ * 输入按 batchSize 切分为批次，每个批次作为一个任务提交到线程池，同时在执行中的批次数量有上限，
+ * 因此输入可以是很长的 Iterator 或 Stream，不需要一次性放进内存。
+ * 结果通过回调在调用线程中交付，可以按输入顺序交付，也可以按完成顺序交付以获得更高的吞吐。
+ * <p>
+ * 比对器本身是线程安全的，多个线程共享类元数据缓存，缓存命中时不加锁
+ */
+public class BulkComparator {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Comparator comparator;
+    private final Executor executor;
+    private final int batchSize;
+    /**
+     * 同时在执行中的批次数量上限
+     */
+    private final int maxInFlight;
+    /**
+     * 每次批量比对使用的 {@link DiffMemo} 的容量，0 表示不使用
+     */
+    private int memoSize;
+
+    /**
+     * 使用 ForkJoinPool.commonPool() 并行比对
+     *
+     * @param comparator 比对器
+     */
+    public BulkComparator(Comparator comparator) {
+        this(comparator, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE, ForkJoinPool.getCommonPoolParallelism() * 2);
+    }
+
+    /**
+     * @param comparator  比对器
+     * @param executor    执行比对的线程池
+     * @param batchSize   每个任务比对的对象对数量
+     * @param maxInFlight 同时在执行中的批次数量上限
+     */
+    public BulkComparator(Comparator comparator, Executor executor, int batchSize, int maxInFlight) {
+        if (batchSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("batchSize 和 maxInFlight 必须大于 0");
+        }
+        this.comparator = comparator;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * 比对所有对象对，结果顺序与输入一致
+     */
+    public <F, S> List<PairDiff<F, S>> diffAll(List<? extends DiffPair<F, S>> pairs) {
+        List<PairDiff<F, S>> result = new ArrayList<>(pairs.size());
+        diffAll(pairs.iterator(), true, result::add);
+        return result;
+    }
+
+    /**
+     * 比对 Stream 中的所有对象对
+     *
+     * @param ordered  是否按输入顺序交付结果
+     * @param consumer 结果回调，在调用线程中执行
+     */
+    public <F, S> void diffAll(Stream<? extends DiffPair<F, S>> pairs, boolean ordered, Consumer<? super PairDiff<F, S>> consumer) {
+        diffAll(pairs.iterator(), ordered, consumer);
+    }
+
+    /**
+     * 比对 Iterator 中的所有对象对
+     *
+     * @param ordered  是否按输入顺序交付结果
+     * @param consumer 结果回调，在调用线程中执行
+     */
+    public <F, S> void diffAll(Iterator<? extends DiffPair<F, S>> pairs, boolean ordered, Consumer<? super PairDiff<F, S>> consumer) {
+        DiffMemo memo = memoSize > 0 && comparator instanceof AbstractComparator ? new DiffMemo(memoSize) : null;
+        Deque<CompletableFuture<List<PairDiff<F, S>>>> inFlight = new ArrayDeque<>();
+        BlockingQueue<CompletableFuture<List<PairDiff<F, S>>>> completed = new LinkedBlockingQueue<>();
+        try {
+            while (pairs.hasNext()) {
+                List<DiffPair<F, S>> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && pairs.hasNext()) {
+                    batch.add(pairs.next());
+                }
+                CompletableFuture<List<PairDiff<F, S>>> future = CompletableFuture.supplyAsync(() -> diffBatch(batch, memo), executor);
+                inFlight.add(future);
+                if (!ordered) {
+                    future.whenComplete((r, e) -> completed.add(future));
+                }
+                if (inFlight.size() >= maxInFlight) {
+                    deliver(next(inFlight, completed, ordered), consumer);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                deliver(next(inFlight, completed, ordered), consumer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量比对被中断", e);
+        } finally {
+            for (CompletableFuture<?> future : inFlight) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 按键关联两个集合后比对，只存在于一个集合中的对象与 null 比对
+     *
+     * @param first        集合1
+     * @param second       集合2
+     * @param keyExtractor 对象的键，同一个集合中的键不能重复
+     * @return 比对结果，顺序为集合2的顺序，之后是只存在于集合1的对象
+     */
+    public <T, K> List<PairDiff<T, T>> diffByKey(Collection<? extends T> first, Collection<? extends T> second,
+                                                 Function<? super T, ? extends K> keyExtractor) {
+        Map<K, T> firstByKey = new LinkedHashMap<>(first.size() * 4 / 3 + 1);
+        for (T element : first) {
+            if (firstByKey.put(keyExtractor.apply(element), element) != null) {
+                throw new IllegalArgumentException("集合1中存在重复的键: " + keyExtractor.apply(element));
+            }
+        }
+        List<DiffPair<T, T>> pairs = new ArrayList<>(Math.max(first.size(), second.size()));
+        Set<K> secondKeys = new HashSet<>(second.size() * 4 / 3 + 1);
+        for (T element : second) {
+            K key = keyExtractor.apply(element);
+            if (!secondKeys.add(key)) {
+                throw new IllegalArgumentException("集合2中存在重复的键: " + key);
+            }
+            pairs.add(new DiffPair<>(key, firstByKey.remove(key), element));
+        }
+        for (Map.Entry<K, T> entry : firstByKey.entrySet()) {
+            pairs.add(new DiffPair<>(entry.getKey(), entry.getValue(), null));
+        }
+        return diffAll(pairs);
+    }
+
+    public int getMemoSize() {
+        return memoSize;
+    }
+
+    /**
+     * 递归比对时，在一次 diffAll 的所有批次之间共享一个指定容量的 {@link DiffMemo}，
+     * 被大量对象引用的同一对不可变子对象只完整比对一次。比对器不是 {@link AbstractComparator} 时不生效
+     *
+     * @param memoSize 缓存的容量，0 表示不使用
+     */
+    public void setMemoSize(int memoSize) {
+        if (memoSize < 0) {
+            throw new IllegalArgumentException("memoSize 不能小于 0: " + memoSize);
+        }
+        this.memoSize = memoSize;
+    }
+
+    private <F, S> List<PairDiff<F, S>> diffBatch(List<DiffPair<F, S>> batch, DiffMemo memo) {
+        List<PairDiff<F, S>> result = new ArrayList<>(batch.size());
+        for (DiffPair<F, S> pair : batch) {
+            List<FieldInfo> diffFields = memo == null ? comparator.getDiffFields(pair.getFirst(), pair.getSecond())
+                    : ((AbstractComparator) comparator).getDiffFields(pair.getFirst(), pair.getSecond(), memo);
+            result.add(new PairDiff<>(pair, diffFields));
+        }
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> next(Deque<CompletableFuture<T>> inFlight,
+                                                 BlockingQueue<CompletableFuture<T>> completed,
+                                                 boolean ordered) throws InterruptedException {
+        CompletableFuture<T> future = ordered ? inFlight.peekFirst() : completed.take();
+        inFlight.remove(future);
+        return future;
+    }
+
+    private static <T> void deliver(CompletableFuture<List<T>> future, Consumer<? super T> consumer) {
+        List<T> result;
+        try {
+            result = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        for (T t : result) {
+            consumer.accept(t);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cong.entitydiff;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 类的比对元数据，由比对器在第一次遇到某个类时构建并缓存
+ * <p>
+ * 保存了该类所有参与比对的属性访问器，顺序与构建时的扫描顺序一致。
+ * 属性上的 {@link DiffIgnore}、{@link DiffIdentity}、{@link DiffEquals}、{@link DiffTolerance} 和 {@link DiffKey}
+ * 注解也在构建时读取，基于 getter 比对时 getter 上没有注解则读取同名字段上的注解
+ */
+public final class ClassPlan {
+    /**
+     * 空对象使用的元数据，没有任何属性
+     */
+    static final ClassPlan EMPTY = new ClassPlan(Object.class, Collections.<PropertyAccessor>emptyList());
+
+    private final Class<?> type;
+    private final PropertyAccessor[] accessors;
+    private final Map<String, PropertyAccessor> accessorMap;
+    /**
+     * 属性上的注解编译成的比对策略，没有任何注解时为 null
+     */
+    private final Map<String, PropertyPolicy> policies;
+    /**
+     * 标注了 {@link DiffKey} 的属性，作为集合元素时的键
+     */
+    private final Function<Object, ?> keyExtractor;
+    /**
+     * 以本类为对象1的比对计划，按比对器的配置和对象2的类缓存。
+     * 比对计划挂在类元数据上，类元数据被缓存淘汰或随类卸载时一并回收
+     */
+    private final ComparePlans comparePlans = new ComparePlans();
+    /**
+     * 与访问器一一对应的写入器，第一次应用补丁时创建
+     */
+    private volatile PropertyWriter[] writers;
+    /**
+     * 类名和属性名、类型的摘要，0 表示还没有计算
+     */
+    private volatile long schemaHash;
+
+    public ClassPlan(Class<?> type, Collection<PropertyAccessor> accessors) {
+        this.type = type;
+        this.accessors = accessors.toArray(new PropertyAccessor[0]);
+        Map<String, PropertyAccessor> map = new LinkedHashMap<>(this.accessors.length * 2);
+        for (PropertyAccessor accessor : this.accessors) {
+            map.put(accessor.getName(), accessor);
+        }
+        this.accessorMap = Collections.unmodifiableMap(map);
+        Map<String, PropertyPolicy> policyMap = null;
+        PropertyAccessor key = null;
+        for (PropertyAccessor accessor : this.accessors) {
+            PropertyPolicy policy = PropertyPolicy.of(type, accessor);
+            if (policy != null) {
+                if (policyMap == null) {
+                    policyMap = new HashMap<>();
+                }
+                policyMap.put(accessor.getName(), policy);
+            }
+            if (key == null && PropertyPolicy.isKey(type, accessor)) {
+                key = accessor;
+            }
+        }
+        this.policies = policyMap;
+        this.keyExtractor = key == null ? null : key::get;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return 属性个数
+     */
+    public int size() {
+        return accessors.length;
+    }
+
+    /**
+     * 按下标获取访问器
+     */
+    public PropertyAccessor getAccessor(int index) {
+        return accessors[index];
+    }
+
+    /**
+     * 按属性名获取访问器
+     *
+     * @return 访问器，不存在则返回 null
+     */
+    public PropertyAccessor getAccessor(String name) {
+        return accessorMap.get(name);
+    }
+
+    /**
+     * @return 属性的下标，不存在时返回 -1
+     */
+    int indexOf(String name) {
+        for (int i = 0; i < accessors.length; i++) {
+            if (accessors[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 下标对应属性的写入器
+     */
+    PropertyWriter getWriter(int index) {
+        PropertyWriter[] current = writers;
+        if (current == null) {
+            current = new PropertyWriter[accessors.length];
+            for (int i = 0; i < accessors.length; i++) {
+                current[i] = PropertyWriter.of(type, accessors[i]);
+            }
+            writers = current;
+        }
+        return current[index];
+    }
+
+    /**
+     * 64 位 FNV-1a 摘要，覆盖类名以及按顺序排列的属性名和类型，两端的摘要相同时属性下标可以通用
+     */
+    long getSchemaHash() {
+        long hash = schemaHash;
+        if (hash == 0) {
+            hash = fnv(0xCBF29CE484222325L, type.getName());
+            for (PropertyAccessor accessor : accessors) {
+                hash = fnv(hash, accessor.getName());
+                hash = fnv(hash, accessor.getType().getName());
+            }
+            hash = hash == 0 ? 1 : hash;
+            schemaHash = hash;
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        // 分隔符，避免 "ab"+"c" 与 "a"+"bc" 相同
+        hash ^= 0xFF;
+        return hash * 0x100000001B3L;
+    }
+
+    /**
+     * @return 所有属性名称，顺序与访问器顺序一致
+     */
+    public Set<String> getPropertyNames() {
+        return accessorMap.keySet();
+    }
+
+    /**
+     * @return 属性的比对策略，没有注解时返回 null
+     */
+    PropertyPolicy getPolicy(String name) {
+        return policies == null ? null : policies.get(name);
+    }
+
+    /**
+     * @return 标注了 {@link DiffKey} 的属性的读取方法，没有时返回 null
+     */
+    Function<Object, ?> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * 获取缓存的比对计划
+     *
+     * @param config 比对器的配置，配置相同的比对器共享比对计划
+     * @param other  另一方的类元数据
+     * @return 比对计划，不存在时返回 null
+     */
+    ComparePlan getComparePlan(Object config, ClassPlan other) {
+        return comparePlans.get(config, other);
+    }
+
+    /**
+     * 缓存比对计划，并发构建时保留先放入的
+     *
+     * @return 缓存中的比对计划
+     */
+    ComparePlan putComparePlan(Object config, ClassPlan other, ComparePlan plan) {
+        return comparePlans.put(config, other, plan);
+    }
+
+    /**
+     * @return 挂在本类上的比对计划个数
+     */
+    int getComparePlanCount() {
+        return comparePlans.size();
+    }
+}
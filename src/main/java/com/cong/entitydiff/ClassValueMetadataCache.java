@@ -0,0 +1,203 @@
+package com.cong.entitydiff;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.function.Function;
+
+/**
+ * 基于 ClassValue 的类元数据缓存
+ * <p>
+ * 元数据挂在类自身上，缓存只通过弱引用记录已加载的类，因此不会阻止类和类加载器被卸载。
+ * 命中时只读取一个 volatile 字段，不加锁。
+ * <p>
+ * 指定了容量时，超出容量后按 CLOCK 算法淘汰近似最久未使用的类：加载和命中时为类打上访问标记，
+ * 淘汰时按加载顺序依次扫描，有标记的清除标记后移到末尾，没有标记的被淘汰。
+ * <p>
+ * 不同类加载器中的两个类互相比对时，比对计划挂在对象1的类元数据上并引用对象2的类，
+ * 对象2的类在对象1的元数据被回收或淘汰前不会被卸载
+ */
+public class ClassValueMetadataCache implements MetadataCache {
+    /**
+     * 容量，不大于 0 表示不限制
+     */
+    private final int maxSize;
+    private final ClassValue<Entry> entries = new EntryValue();
+    /**
+     * 以下字段由 this 保护。ring 按加载顺序记录已加载的类，也是 CLOCK 算法的环
+     */
+    private final ArrayDeque<Registration> ring = new ArrayDeque<>();
+    private final ReferenceQueue<Entry> unloaded = new ReferenceQueue<>();
+    private int size;
+
+    /**
+     * 不限制容量
+     */
+    public ClassValueMetadataCache() {
+        this(0);
+    }
+
+    /**
+     * @param maxSize 容量，不大于 0 表示不限制
+     */
+    public ClassValueMetadataCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public ClassPlan get(Class<?> type) {
+        Entry entry = entries.get(type);
+        ClassPlan plan = entry.plan;
+        if (plan != null && maxSize > 0 && !entry.referenced) {
+            // 已有标记时不再写入，避免多线程命中同一个类时反复写同一个缓存行
+            entry.referenced = true;
+        }
+        return plan;
+    }
+
+    @Override
+    public ClassPlan computeIfAbsent(Class<?> type, Function<Class<?>, ClassPlan> loader) {
+        ClassPlan plan = get(type);
+        if (plan != null) {
+            return plan;
+        }
+        Entry entry = entries.get(type);
+        // 锁住单个类，不同类可以并行扫描
+        synchronized (entry) {
+            plan = entry.plan;
+            if (plan == null) {
+                plan = loader.apply(type);
+                publish(entry, plan);
+            }
+        }
+        return plan;
+    }
+
+    private synchronized void publish(Entry entry, ClassPlan plan) {
+        expunge();
+        entry.plan = plan;
+        // 新加载的类带有访问标记，至少经过一轮扫描才会被淘汰
+        entry.referenced = true;
+        entry.registration = new Registration(entry, unloaded);
+        ring.addLast(entry.registration);
+        size++;
+        while (maxSize > 0 && size > maxSize && evictOne()) {
+            // 继续淘汰直到不超过容量
+        }
+        // 失效和被回收的记录在淘汰时顺带清理，不限制容量时需要定期整理
+        if (ring.size() > size * 2 + 64) {
+            ring.removeIf(registration -> !registration.active);
+        }
+    }
+
+    /**
+     * 按 CLOCK 算法淘汰一个类
+     *
+     * @return 没有可以淘汰的类时返回 false
+     */
+    private boolean evictOne() {
+        Registration registration;
+        while ((registration = ring.pollFirst()) != null) {
+            Entry entry = registration.get();
+            if (!registration.active) {
+                continue;
+            }
+            if (entry == null) {
+                deactivate(registration);
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                ring.addLast(registration);
+                continue;
+            }
+            entry.plan = null;
+            entry.registration = null;
+            deactivate(registration);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void invalidate(Class<?> type) {
+        Entry entry = entries.get(type);
+        if (entry.plan != null) {
+            entry.plan = null;
+            deactivate(entry.registration);
+            entry.registration = null;
+        }
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        for (Registration registration : ring) {
+            Entry entry = registration.get();
+            if (registration.active && entry != null) {
+                entry.plan = null;
+                entry.registration = null;
+            }
+            registration.active = false;
+        }
+        ring.clear();
+        size = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        expunge();
+        return size;
+    }
+
+    /**
+     * 清理类已经被卸载的记录
+     */
+    private void expunge() {
+        Registration registration;
+        while ((registration = (Registration) unloaded.poll()) != null) {
+            if (registration.active) {
+                deactivate(registration);
+            }
+        }
+    }
+
+    private void deactivate(Registration registration) {
+        if (registration != null && registration.active) {
+            registration.active = false;
+            size--;
+        }
+    }
+
+    /**
+     * 使用静态内部类，避免挂在各个类上的 ClassValue 持有缓存本身
+     */
+    private static final class EntryValue extends ClassValue<Entry> {
+        @Override
+        protected Entry computeValue(Class<?> type) {
+            return new Entry();
+        }
+    }
+
+    private static final class Entry {
+        volatile ClassPlan plan;
+        /**
+         * CLOCK 算法的访问标记，允许多线程竞争写入
+         */
+        boolean referenced;
+        /**
+         * 当前有效的加载记录，由缓存的锁保护
+         */
+        Registration registration;
+    }
+
+    /**
+     * 一次加载的记录，类被卸载后 Entry 随之回收，记录进入引用队列
+     */
+    private static final class Registration extends WeakReference<Entry> {
+        boolean active = true;
+
+        Registration(Entry entry, ReferenceQueue<Entry> queue) {
+            super(entry, queue);
+        }
+    }
+}
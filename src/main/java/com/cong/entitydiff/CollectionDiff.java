@@ -0,0 +1,59 @@
+package com.cong.entitydiff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 集合的比对结果
+ * <p>
+ * 每个元素用一个 FieldInfo 表示，字段名为 [元素标识]，标识为元素的键、下标或元素本身，取决于比对方式：
+ * <ul>
+ *     <li>added：只存在于集合2的元素，firstVal 为 null</li>
+ *     <li>removed：只存在于集合1的元素，secondVal 为 null</li>
+ *     <li>changed：两个集合中对应但不相等的元素</li>
+ * </ul>
+ */
+public class CollectionDiff {
+    private final List<FieldInfo> added = new ArrayList<>();
+    private final List<FieldInfo> removed = new ArrayList<>();
+    private final List<FieldInfo> changed = new ArrayList<>();
+
+    public List<FieldInfo> getAdded() {
+        return added;
+    }
+
+    public List<FieldInfo> getRemoved() {
+        return removed;
+    }
+
+    public List<FieldInfo> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return 两个集合是否没有差异
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    void addAdded(Object key, Object element) {
+        added.add(new FieldInfo(segment(key), null, typeOf(element), null, element));
+    }
+
+    void addRemoved(Object key, Object element) {
+        removed.add(new FieldInfo(segment(key), typeOf(element), null, element, null));
+    }
+
+    void addChanged(Object key, Object first, Object second) {
+        changed.add(new FieldInfo(segment(key), typeOf(first), typeOf(second), first, second));
+    }
+
+    private static String segment(Object key) {
+        return "[" + key + "]";
+    }
+
+    private static Class<?> typeOf(Object obj) {
+        return obj == null ? null : obj.getClass();
+    }
+}
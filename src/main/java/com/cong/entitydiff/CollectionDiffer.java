@@ -0,0 +1,294 @@
+package com.cong.entitydiff;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 集合比对器，报告两个集合之间新增、删除和变化的元素
+ * <p>
+ * 根据配置和集合类型选择比对方式：
+ * <ul>
+ *     <li>指定了元素的键：按键用哈希表匹配两个集合的元素，O(n)，与元素顺序无关</li>
+ *     <li>两个集合都是 Set：按 Set 的语义比对，只有新增和删除</li>
+ *     <li>其他情况：按顺序用 Myers 差分算法求最长公共子序列对齐两个集合，
+ *     同一位置上的一段删除和一段新增会配对为变化的元素</li>
+ * </ul>
+ * 元素是否相等由构造时传入的比对器判断
+ */
+public class CollectionDiffer {
+    private static final byte MATCH = 0;
+    private static final byte DELETE = 1;
+    private static final byte INSERT = 2;
+    /**
+     * 每次查找中间公共子序列时最多搜索的轮数，对应的编辑距离约为两倍
+     */
+    private static final int MAX_SEARCH_DEPTH = 1024;
+
+    private final Comparator comparator;
+    private final Function<Object, ?> keyExtractor;
+
+    /**
+     * @param comparator 用于判断元素是否相等的比对器
+     */
+    public CollectionDiffer(Comparator comparator) {
+        this(comparator, null);
+    }
+
+    /**
+     * @param comparator   用于判断元素是否相等的比对器
+     * @param keyExtractor 元素的键，若为 null 则不按键匹配
+     */
+    public CollectionDiffer(Comparator comparator, Function<Object, ?> keyExtractor) {
+        this.comparator = comparator;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * 比对两个集合，null 视为空集合
+     *
+     * @param first  集合1
+     * @param second 集合2
+     * @return 比对结果
+     */
+    public CollectionDiff diff(Collection<?> first, Collection<?> second) {
+        return diff(first, second, false);
+    }
+
+    /**
+     * @param keepMatched 按键匹配时是否保留相等的元素对，为 true 时 changed 中包含所有匹配上的元素对，由调用方自行比对
+     */
+    CollectionDiff diff(Collection<?> first, Collection<?> second, boolean keepMatched) {
+        first = first == null ? Collections.emptyList() : first;
+        second = second == null ? Collections.emptyList() : second;
+        CollectionDiff diff = new CollectionDiff();
+        if (keyExtractor != null) {
+            diffByKey(first, second, keepMatched, diff);
+        } else if (first instanceof Set && second instanceof Set) {
+            diffSet((Set<?>) first, (Set<?>) second, diff);
+        } else {
+            diffOrdered(first.toArray(), second.toArray(), diff);
+        }
+        return diff;
+    }
+
+    private void diffByKey(Collection<?> first, Collection<?> second, boolean keepMatched, CollectionDiff diff) {
+        Object[] firstElements = first.toArray();
+        // 键 -> 集合1中该键第一个未匹配元素的下标，重复的键通过 next 串起来
+        Map<Object, Integer> heads = new HashMap<>(firstElements.length * 4 / 3 + 1);
+        int[] next = new int[firstElements.length];
+        for (int i = firstElements.length - 1; i >= 0; i--) {
+            Integer head = heads.put(keyExtractor.apply(firstElements[i]), i);
+            next[i] = head == null ? -1 : head;
+        }
+        boolean[] matched = new boolean[firstElements.length];
+        for (Object element : second) {
+            Object key = keyExtractor.apply(element);
+            Integer head = heads.get(key);
+            if (head == null) {
+                diff.addAdded(key, element);
+                continue;
+            }
+            int index = head;
+            if (next[index] < 0) {
+                heads.remove(key);
+            } else {
+                heads.put(key, next[index]);
+            }
+            matched[index] = true;
+            if (keepMatched || !comparator.isEquals(firstElements[index], element)) {
+                diff.addChanged(key, firstElements[index], element);
+            }
+        }
+        for (int i = 0; i < firstElements.length; i++) {
+            if (!matched[i]) {
+                diff.addRemoved(keyExtractor.apply(firstElements[i]), firstElements[i]);
+            }
+        }
+    }
+
+    private void diffSet(Set<?> first, Set<?> second, CollectionDiff diff) {
+        for (Object element : first) {
+            if (!second.contains(element)) {
+                diff.addRemoved(element, element);
+            }
+        }
+        for (Object element : second) {
+            if (!first.contains(element)) {
+                diff.addAdded(element, element);
+            }
+        }
+    }
+
+    /**
+     * 先去掉相同的前缀和后缀，再对中间部分求最短编辑脚本
+     */
+    private void diffOrdered(Object[] first, Object[] second, CollectionDiff diff) {
+        int start = 0;
+        int firstEnd = first.length;
+        int secondEnd = second.length;
+        while (start < firstEnd && start < secondEnd && comparator.isEquals(first[start], second[start])) {
+            start++;
+        }
+        while (firstEnd > start && secondEnd > start && comparator.isEquals(first[firstEnd - 1], second[secondEnd - 1])) {
+            firstEnd--;
+            secondEnd--;
+        }
+        byte[] script = editScript(first, start, firstEnd, second, start, secondEnd);
+        int i = start;
+        int j = start;
+        int pos = 0;
+        while (pos < script.length) {
+            if (script[pos] == MATCH) {
+                i++;
+                j++;
+                pos++;
+                continue;
+            }
+            // 连续的一段删除和新增，按位置配对为变化的元素
+            int deleteFrom = i;
+            int insertFrom = j;
+            while (pos < script.length && script[pos] != MATCH) {
+                if (script[pos] == DELETE) {
+                    i++;
+                } else {
+                    j++;
+                }
+                pos++;
+            }
+            int paired = Math.min(i - deleteFrom, j - insertFrom);
+            for (int k = 0; k < paired; k++) {
+                diff.addChanged(deleteFrom + k, first[deleteFrom + k], second[insertFrom + k]);
+            }
+            for (int k = deleteFrom + paired; k < i; k++) {
+                diff.addRemoved(k, first[k]);
+            }
+            for (int k = insertFrom + paired; k < j; k++) {
+                diff.addAdded(k, second[k]);
+            }
+        }
+    }
+
+    /**
+     * 线性空间的 Myers 差分算法：找出编辑路径中间的一段公共子序列，以此把问题分成两半递归求解，
+     * 复杂度 O((N+M)D)，只使用 O(N+M) 的空间。
+     * 编辑距离过大的区间在搜索了 {@link #MAX_SEARCH_DEPTH} 轮后放弃对齐，整段按删除后新增处理，
+     * 此时编辑脚本不一定最短，但比对的耗时有上限
+     *
+     * @return 编辑脚本，按顺序由 MATCH、DELETE、INSERT 组成
+     */
+    private byte[] editScript(Object[] a, int aFrom, int aTo, Object[] b, int bFrom, int bTo) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        EditScript script = new EditScript(a, b, Math.min((n + m + 1) / 2, MAX_SEARCH_DEPTH));
+        script.compare(aFrom, aTo, bFrom, bTo);
+        return script.length == script.ops.length ? script.ops : Arrays.copyOf(script.ops, script.length);
+    }
+
+    /**
+     * 一次求编辑脚本的中间状态，两个方向的对角线数组在各层递归之间复用
+     */
+    private final class EditScript {
+        private final Object[] a;
+        private final Object[] b;
+        private final int maxDepth;
+        private final int offset;
+        private final int[] forward;
+        private final int[] backward;
+        private final byte[] ops;
+        private int length;
+
+        EditScript(Object[] a, Object[] b, int maxDepth) {
+            this.a = a;
+            this.b = b;
+            this.maxDepth = maxDepth;
+            this.offset = maxDepth + 1;
+            this.forward = new int[2 * maxDepth + 3];
+            this.backward = new int[2 * maxDepth + 3];
+            this.ops = new byte[a.length + b.length];
+        }
+
+        void compare(int aLo, int aHi, int bLo, int bHi) {
+            while (aLo < aHi && bLo < bHi && comparator.isEquals(a[aLo], b[bLo])) {
+                aLo++;
+                bLo++;
+                ops[length++] = MATCH;
+            }
+            int suffix = 0;
+            while (aHi > aLo && bHi > bLo && comparator.isEquals(a[aHi - 1], b[bHi - 1])) {
+                aHi--;
+                bHi--;
+                suffix++;
+            }
+            if (aLo == aHi || bLo == bHi) {
+                append(DELETE, aHi - aLo);
+                append(INSERT, bHi - bLo);
+            } else {
+                int[] snake = middleSnake(aLo, aHi, bLo, bHi);
+                if (snake == null) {
+                    append(DELETE, aHi - aLo);
+                    append(INSERT, bHi - bLo);
+                } else {
+                    compare(aLo, snake[0], bLo, snake[1]);
+                    append(MATCH, snake[2] - snake[0]);
+                    compare(snake[2], aHi, snake[3], bHi);
+                }
+            }
+            append(MATCH, suffix);
+        }
+
+        /**
+         * 从两端同时搜索，两个方向的路径在某条对角线上相遇时，相遇处的公共子序列即位于最短编辑路径的中间
+         *
+         * @return 中间一段公共子序列的起点和终点 {x, y, u, v}，搜索超过上限时返回 null
+         */
+        private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+            int n = aHi - aLo;
+            int m = bHi - bLo;
+            int delta = n - m;
+            boolean odd = (delta & 1) != 0;
+            int limit = Math.min((n + m + 1) / 2, maxDepth);
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+            for (int d = 0; d <= limit; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                            ? forward[offset + k + 1] : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    int startX = x;
+                    int startY = y;
+                    while (x < n && y < m && comparator.isEquals(a[aLo + x], b[bLo + y])) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    int c = delta - k;
+                    if (odd && c >= -(d - 1) && c <= d - 1 && x + backward[offset + c] >= n) {
+                        return new int[]{aLo + startX, bLo + startY, aLo + x, bLo + y};
+                    }
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])
+                            ? backward[offset + k + 1] : backward[offset + k - 1] + 1;
+                    int y = x - k;
+                    int startX = x;
+                    int startY = y;
+                    while (x < n && y < m && comparator.isEquals(a[aHi - 1 - x], b[bHi - 1 - y])) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    int c = delta - k;
+                    if (!odd && c >= -d && c <= d && x + forward[offset + c] >= n) {
+                        return new int[]{aHi - x, bHi - y, aHi - startX, bHi - startY};
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void append(byte op, int count) {
+            Arrays.fill(ops, length, length + count, op);
+            length += count;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.cong.entitydiff;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 同一个类的两批对象按列比对的结果，由 {@link AbstractComparator#diffColumnar(List, List)} 创建
+ * <p>
+ * 比对按属性逐列进行：先把一列属性从整批对象中读到数组里，基本类型读取为 long 不装箱，按误差比对的浮点数读取为 double，其他类型读取为引用，
+ * 再在一个紧凑的循环中比对两个数组，结果写入每行一个的位图，第 i 位表示比对计划中第 i 个属性不相等。
+ * 同一列的读取和比对都是单态调用，基本类型列的比对循环没有分支，适合 JIT 展开和向量化。
+ * <p>
+ * 每一行的结果可以通过 {@link #getDiffResult(int)} 转为 {@link DiffResult}，值在访问时才读取
+ */
+public final class ColumnarDiff {
+    private static final ColumnarDiff EMPTY = new ColumnarDiff(null, new Object[0], new Object[0]);
+
+    private final ComparePlan plan;
+    private final Object[] first;
+    private final Object[] second;
+    private final int words;
+    /**
+     * 按行排列的位图，第 row 行占用 [row * words, (row + 1) * words)
+     */
+    private final long[] masks;
+    private final int[] counts;
+
+    private ColumnarDiff(ComparePlan plan, Object[] first, Object[] second) {
+        this.plan = plan;
+        this.first = first;
+        this.second = second;
+        int rows = first.length;
+        this.words = plan == null ? 0 : (plan.size() + 63) >>> 6;
+        this.masks = new long[rows * words];
+        this.counts = new int[rows];
+        if (plan == null || rows == 0) {
+            return;
+        }
+        long[] firstBits = null;
+        long[] secondBits = null;
+        double[] firstDoubles = null;
+        double[] secondDoubles = null;
+        Object[] firstValues = null;
+        Object[] secondValues = null;
+        for (int i = 0, size = plan.size(); i < size; i++) {
+            PropertyAccessor firstAccessor = plan.getFirstAccessor(i);
+            PropertyAccessor secondAccessor = plan.getSecondAccessor(i);
+            PropertyPolicy policy = plan.getPolicy(i);
+            boolean tolerance = policy != null && policy.isPrimitiveTolerance(firstAccessor, secondAccessor);
+            boolean floating = firstAccessor.sort == PropertyAccessor.DOUBLE || firstAccessor.sort == PropertyAccessor.FLOAT;
+            if (policy == null && firstAccessor.sort != PropertyAccessor.NOT_PRIMITIVE || tolerance && !floating) {
+                if (firstBits == null) {
+                    firstBits = new long[rows];
+                    secondBits = new long[rows];
+                }
+                for (int row = 0; row < rows; row++) {
+                    firstBits[row] = firstAccessor.getBits(first[row]);
+                }
+                for (int row = 0; row < rows; row++) {
+                    secondBits[row] = secondAccessor.getBits(second[row]);
+                }
+                if (tolerance) {
+                    markTolerance(firstBits, secondBits, policy.getTolerance(), i);
+                } else {
+                    markPrimitive(firstBits, secondBits, i);
+                }
+            } else if (tolerance) {
+                if (firstDoubles == null) {
+                    firstDoubles = new double[rows];
+                    secondDoubles = new double[rows];
+                }
+                readDoubles(firstAccessor, first, firstDoubles);
+                readDoubles(secondAccessor, second, secondDoubles);
+                markTolerance(firstDoubles, secondDoubles, policy.getTolerance(), firstAccessor.sort == PropertyAccessor.FLOAT, i);
+            } else {
+                if (firstValues == null) {
+                    firstValues = new Object[rows];
+                    secondValues = new Object[rows];
+                }
+                for (int row = 0; row < rows; row++) {
+                    firstValues[row] = firstAccessor.get(first[row]);
+                }
+                for (int row = 0; row < rows; row++) {
+                    secondValues[row] = secondAccessor.get(second[row]);
+                }
+                if (policy != null) {
+                    markPolicy(firstValues, secondValues, policy, i);
+                } else {
+                    markObject(firstValues, secondValues, plan.getEquality(i), i);
+                }
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            int count = 0;
+            for (int w = row * words, end = w + words; w < end; w++) {
+                count += Long.bitCount(masks[w]);
+            }
+            counts[row] = count;
+        }
+    }
+
+    /**
+     * @param first  对象1，已经确认都是同一个类且不为 null
+     * @param second 对象2，与对象1同类、同样多
+     */
+    static ColumnarDiff of(ComparePlan plan, Object[] first, Object[] second) {
+        return first.length == 0 ? EMPTY : new ColumnarDiff(plan, first, second);
+    }
+
+    /**
+     * 两个值的 long 不相等时 x 不为 0，(x | -x) 的符号位为 1，算术右移后得到全 1 的掩码
+     */
+    private void markPrimitive(long[] firstBits, long[] secondBits, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        for (int row = 0, rows = firstBits.length; row < rows; row++) {
+            long x = firstBits[row] ^ secondBits[row];
+            masks[row * words + word] |= bit & ((x | -x) >> 63);
+        }
+    }
+
+    /**
+     * 按误差比对的浮点数列读取为 double，float 转换为 double 没有精度损失
+     */
+    private static void readDoubles(PropertyAccessor accessor, Object[] objects, double[] values) {
+        boolean isDouble = accessor.sort == PropertyAccessor.DOUBLE;
+        for (int row = 0, rows = objects.length; row < rows; row++) {
+            Object obj = objects[row];
+            values[row] = isDouble ? accessor.getDouble(obj) : accessor.getFloat(obj);
+        }
+    }
+
+    /**
+     * 整数列的 long 就是数值本身，按 long 精确比对
+     */
+    private void markTolerance(long[] firstValues, long[] secondValues, NumericTolerance tolerance, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        for (int row = 0, rows = firstValues.length; row < rows; row++) {
+            if (!tolerance.isEquals(firstValues[row], secondValues[row])) {
+                masks[row * words + word] |= bit;
+            }
+        }
+    }
+
+    /**
+     * @param isFloat float 列还原为 float 比对，ULP 距离按 float 的精度计算
+     */
+    private void markTolerance(double[] firstValues, double[] secondValues, NumericTolerance tolerance, boolean isFloat, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        for (int row = 0, rows = firstValues.length; row < rows; row++) {
+            boolean equals = isFloat ? tolerance.isEquals((float) firstValues[row], (float) secondValues[row])
+                    : tolerance.isEquals(firstValues[row], secondValues[row]);
+            if (!equals) {
+                masks[row * words + word] |= bit;
+            }
+        }
+    }
+
+    private void markObject(Object[] firstValues, Object[] secondValues, PropertyEquality equality, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        for (int row = 0, rows = firstValues.length; row < rows; row++) {
+            Object firstVal = firstValues[row];
+            Object secondVal = secondValues[row];
+            if (firstVal != secondVal && !equality.isEquals(firstVal, secondVal)) {
+                masks[row * words + word] |= bit;
+            }
+        }
+    }
+
+    private void markPolicy(Object[] firstValues, Object[] secondValues, PropertyPolicy policy, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        for (int row = 0, rows = firstValues.length; row < rows; row++) {
+            if (!policy.isEquals(firstValues[row], secondValues[row])) {
+                masks[row * words + word] |= bit;
+            }
+        }
+    }
+
+    /**
+     * @return 比对的行数
+     */
+    public int size() {
+        return first.length;
+    }
+
+    /**
+     * @return 第 row 行的两个对象是否全相等
+     */
+    public boolean isEquals(int row) {
+        return counts[row] == 0;
+    }
+
+    /**
+     * @return 第 row 行不相等的属性个数
+     */
+    public int getDiffCount(int row) {
+        return counts[row];
+    }
+
+    /**
+     * @return 有不相等属性的行数
+     */
+    public int getDiffRowCount() {
+        int result = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 第 row 行的位图的副本，第 i 位表示比对计划中第 i 个属性不相等
+     */
+    public long[] getMask(int row) {
+        return Arrays.copyOfRange(masks, row * words, (row + 1) * words);
+    }
+
+    /**
+     * @return 第 row 行的比对结果，与对这两个对象调用 {@link AbstractComparator#diff(Object, Object)} 的结果相同
+     */
+    public DiffResult getDiffResult(int row) {
+        if (counts[row] == 0) {
+            return DiffResult.of(null);
+        }
+        return new DiffResult(first[row], second[row], plan, getMask(row), counts[row]);
+    }
+
+    /**
+     * @return 第 row 行不相等的属性
+     */
+    public List<FieldInfo> getDiffFields(int row) {
+        return getDiffResult(row).toFieldInfos();
+    }
+}
@@ -0,0 +1,52 @@
+package com.cong.entitydiff;
+
+/**
+ * 比对器的监听器，用于采集指标或者接入链路追踪
+ * <p>
+ * 监听器在比对线程中同步调用，实现需要线程安全且足够轻量。没有注册监听器时比对器只多一次字段读取，
+ * 不计时也不创建任何对象。所有方法都有空的默认实现，只需覆盖关心的事件
+ *
+ * @see AbstractComparator#addListener(ComparatorListener)
+ * @see ComparatorMetrics
+ */
+public interface ComparatorListener {
+    /**
+     * 完成一次基于属性的比对，简单类型的比对不会触发
+     *
+     * @param firstType       对象1的类型，对象为 null 时为 null
+     * @param secondType      对象2的类型，对象为 null 时为 null
+     * @param nanos           耗时，单位纳秒
+     * @param fieldsScanned   比对的顶层属性数，isEquals 遇到第一个不相等的属性即停止
+     * @param fieldsDifferent 不相等的属性数，isEquals 最多为 1
+     */
+    default void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+    }
+
+    /**
+     * 比对或者加载类元数据时发生异常，通常是读取属性时反射调用失败，异常会在通知后继续抛出
+     *
+     * @param firstType  对象1的类型，加载类元数据时为加载的类型
+     * @param secondType 对象2的类型，加载类元数据时为 null
+     * @param e          异常
+     */
+    default void onError(Class<?> firstType, Class<?> secondType, RuntimeException e) {
+    }
+
+    /**
+     * 类元数据缓存命中
+     *
+     * @param type 类型
+     */
+    default void onMetadataHit(Class<?> type) {
+    }
+
+    /**
+     * 类元数据缓存未命中，已经扫描类并放入缓存
+     *
+     * @param type      类型
+     * @param loadNanos 扫描类的耗时，单位纳秒
+     * @param cacheSize 放入后缓存中的类数量
+     */
+    default void onMetadataMiss(Class<?> type, long loadNanos, int cacheSize) {
+    }
+}
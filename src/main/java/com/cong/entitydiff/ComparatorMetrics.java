@@ -0,0 +1,232 @@
+package com.cong.entitydiff;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 LongAdder 的指标采集监听器，记录每个类的比对次数、耗时分布、比对和不相等的属性数、异常数，
+ * 以及类元数据缓存的命中、未命中和大小
+ * <p>
+ * 计数器在多线程下不加锁，读取到的是近似的快照。耗时按 2 的幂分桶统计，分位数为所在桶的上界。
+ * 指标按类保存在 ClassValue 和弱引用的 Map 中，不会阻止重新部署或插件的类被卸载
+ *
+ * <pre>{@code
+ * ComparatorMetrics metrics = new ComparatorMetrics();
+ * comparator.addListener(metrics);
+ * metrics.getStats(Order.class).getPercentileNanos(0.99);
+ * }</pre>
+ */
+public class ComparatorMetrics implements ComparatorListener {
+    /**
+     * 比对时按类查找指标，重置时整体替换
+     */
+    private volatile ClassValue<Stats> stats = newStats();
+    /**
+     * 已经比对过的类，用于遍历，类被卸载后自动移除
+     */
+    private final Map<Class<?>, Stats> registered = Collections.synchronizedMap(new WeakHashMap<>());
+    private final LongAdder metadataHits = new LongAdder();
+    private final LongAdder metadataMisses = new LongAdder();
+    private final LongAdder metadataLoadNanos = new LongAdder();
+    private volatile int metadataCacheSize;
+
+    @Override
+    public void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+        Stats s = statsOf(firstType != null ? firstType : secondType);
+        if (s != null) {
+            s.record(nanos, fieldsScanned, fieldsDifferent);
+        }
+    }
+
+    @Override
+    public void onError(Class<?> firstType, Class<?> secondType, RuntimeException e) {
+        Stats s = statsOf(firstType != null ? firstType : secondType);
+        if (s != null) {
+            s.errors.increment();
+        }
+    }
+
+    @Override
+    public void onMetadataHit(Class<?> type) {
+        metadataHits.increment();
+    }
+
+    @Override
+    public void onMetadataMiss(Class<?> type, long loadNanos, int cacheSize) {
+        metadataMisses.increment();
+        metadataLoadNanos.add(loadNanos);
+        metadataCacheSize = cacheSize;
+    }
+
+    private Stats statsOf(Class<?> type) {
+        return type == null ? null : stats.get(type);
+    }
+
+    private ClassValue<Stats> newStats() {
+        return new ClassValue<Stats>() {
+            @Override
+            protected Stats computeValue(Class<?> type) {
+                Stats s = new Stats();
+                registered.put(type, s);
+                return s;
+            }
+        };
+    }
+
+    /**
+     * @param type 对象1的类型，对象1为 null 时为对象2的类型
+     * @return 该类型的指标，没有比对过时返回 null
+     */
+    public Stats getStats(Class<?> type) {
+        return registered.get(type);
+    }
+
+    /**
+     * @return 所有类型的指标的快照，持有类的强引用，用完不要长期保存
+     */
+    public Map<Class<?>, Stats> getAllStats() {
+        synchronized (registered) {
+            return Collections.unmodifiableMap(new HashMap<>(registered));
+        }
+    }
+
+    public long getMetadataHits() {
+        return metadataHits.sum();
+    }
+
+    public long getMetadataMisses() {
+        return metadataMisses.sum();
+    }
+
+    /**
+     * @return 扫描类生成元数据的总耗时，单位纳秒
+     */
+    public long getMetadataLoadNanos() {
+        return metadataLoadNanos.sum();
+    }
+
+    /**
+     * @return 最近一次未命中后元数据缓存中的类数量
+     */
+    public int getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
+    /**
+     * @return 所有类型的异常总数
+     */
+    public long getErrors() {
+        long errors = 0;
+        synchronized (registered) {
+            for (Stats s : registered.values()) {
+                errors += s.getErrors();
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        stats = newStats();
+        registered.clear();
+        metadataHits.reset();
+        metadataMisses.reset();
+        metadataLoadNanos.reset();
+        metadataCacheSize = 0;
+    }
+
+    /**
+     * 单个类型的指标
+     */
+    public static final class Stats {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder fieldsScanned = new LongAdder();
+        private final LongAdder fieldsDifferent = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        /**
+         * 耗时分桶，第 i 个桶统计耗时在 [2^(i-1), 2^i) 纳秒之间的比对次数
+         */
+        private final LongAdder[] latency = new LongAdder[BUCKETS];
+
+        Stats() {
+            for (int i = 0; i < BUCKETS; i++) {
+                latency[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, int scanned, int different) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            fieldsScanned.add(scanned);
+            fieldsDifferent.add(different);
+            latency[BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0))].increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMeanNanos() {
+            long c = getCount();
+            return c == 0 ? 0 : getTotalNanos() / c;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getFieldsScanned() {
+            return fieldsScanned.sum();
+        }
+
+        public long getFieldsDifferent() {
+            return fieldsDifferent.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * 耗时的近似分位数
+         *
+         * @param percentile 分位，取值范围为 (0, 1]
+         * @return 分位数所在桶的上界，单位纳秒，没有数据时返回 0
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile <= 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile 的取值范围为 (0, 1]: " + percentile);
+            }
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = latency[i].sum();
+                total += counts[i];
+            }
+            long threshold = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= threshold && seen > 0) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return 0;
+        }
+    }
+}
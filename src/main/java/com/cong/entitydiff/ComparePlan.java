@@ -0,0 +1,196 @@
+package com.cong.entitydiff;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 两个类之间的比对计划，由比对器按 (对象1的类, 对象2的类) 构建并缓存
+ * <p>
+ * 计划中已经根据 bothExistFieldOnly 确定了要比对的属性，并预先剔除了被排除或不在包含范围内的属性，
+ * 同类型的重复比对不再需要做任何集合运算。属性顺序为对象1的属性顺序，之后是只存在于对象2的属性。
+ * <p>
+ * 计划还维护一个求值顺序：按属性类型估算的开销从低到高，开销相同的属性按观察到的不相等比例从高到低，
+ * 只需要找到第一个或前几个差异时按这个顺序比对可以更早结束
+ */
+public final class ComparePlan {
+    /**
+     * 基本类型
+     */
+    static final int PRIMITIVE_COST = 1;
+    /**
+     * String、BigDecimal、时间等 JDK 的值类型，以及注解指定的比对方式，按误差比对的基本类型除外
+     */
+    static final int VALUE_COST = 2;
+    /**
+     * 实体以及无法确定的类型
+     */
+    static final int OBJECT_COST = 4;
+    /**
+     * 集合、Map、数组
+     */
+    static final int CONTAINER_COST = 8;
+    /**
+     * 比对多少次之后按统计结果重新排序
+     */
+    private static final int REORDER_INTERVAL = 1024;
+
+    private final String[] names;
+    private final PropertyAccessor[] firstAccessors;
+    private final PropertyAccessor[] secondAccessors;
+    /**
+     * 注解指定的比对策略，没有任何属性有注解时为 null
+     */
+    private final PropertyPolicy[] policies;
+    private final PropertyEquality[] equalities;
+    /**
+     * 每个属性的估算开销
+     */
+    private final int[] costs;
+    /**
+     * 求值顺序，定期按统计结果重新排序后整体替换
+     */
+    private volatile int[] order;
+    /**
+     * 每个属性被比对和不相等的次数。统计不加锁，多线程下会丢失少量计数，只影响求值顺序，不影响比对结果
+     */
+    private final int[] checks;
+    private final int[] differences;
+    private int observations;
+
+    ComparePlan(List<String> names, List<PropertyAccessor> firstAccessors, List<PropertyAccessor> secondAccessors,
+                List<PropertyPolicy> policies, List<PropertyEquality> equalities) {
+        this.names = names.toArray(new String[0]);
+        this.firstAccessors = firstAccessors.toArray(new PropertyAccessor[0]);
+        this.secondAccessors = secondAccessors.toArray(new PropertyAccessor[0]);
+        this.policies = policies.stream().allMatch(Objects::isNull) ? null : policies.toArray(new PropertyPolicy[0]);
+        this.equalities = equalities.toArray(new PropertyEquality[0]);
+        int size = this.names.length;
+        this.costs = new int[size];
+        for (int i = 0; i < size; i++) {
+            PropertyPolicy policy = getPolicy(i);
+            costs[i] = policy != null && !policy.isPrimitiveTolerance(this.firstAccessors[i], this.secondAccessors[i]) ? VALUE_COST
+                    : Math.max(costOf(this.firstAccessors[i]), costOf(this.secondAccessors[i]));
+        }
+        this.checks = new int[size];
+        this.differences = new int[size];
+        this.order = sortOrder();
+    }
+
+    private static int costOf(PropertyAccessor accessor) {
+        if (accessor == null) {
+            return PRIMITIVE_COST;
+        }
+        Class<?> type = accessor.getType();
+        if (type.isPrimitive()) {
+            return PRIMITIVE_COST;
+        }
+        if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            return CONTAINER_COST;
+        }
+        if (type == Object.class || type.isInterface() || !SimpleTypes.isSimple(type)) {
+            return OBJECT_COST;
+        }
+        return VALUE_COST;
+    }
+
+    /**
+     * @return 要比对的属性个数
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return 对象1的访问器，对象1不存在该属性时为 null
+     */
+    public PropertyAccessor getFirstAccessor(int index) {
+        return firstAccessors[index];
+    }
+
+    /**
+     * @return 对象2的访问器，对象2不存在该属性时为 null
+     */
+    public PropertyAccessor getSecondAccessor(int index) {
+        return secondAccessors[index];
+    }
+
+    /**
+     * @return 注解指定的比对策略，没有时返回 null
+     */
+    PropertyPolicy getPolicy(int index) {
+        return policies == null ? null : policies[index];
+    }
+
+    /**
+     * @return 按属性声明类型解析的相等判断
+     */
+    PropertyEquality getEquality(int index) {
+        return equalities[index];
+    }
+
+    /**
+     * @return 属性的估算开销
+     */
+    int getCost(int index) {
+        return costs[index];
+    }
+
+    /**
+     * @return 求值顺序，元素为属性下标，调用方不能修改
+     */
+    int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * 记录一次属性比对的结果
+     */
+    void record(int index, boolean different) {
+        checks[index]++;
+        if (different) {
+            differences[index]++;
+        }
+    }
+
+    /**
+     * 一次比对结束，每隔一段时间按统计结果重新排序
+     */
+    void observe() {
+        if (++observations % REORDER_INTERVAL == 0) {
+            order = sortOrder();
+        }
+    }
+
+    /**
+     * 开销从低到高，开销相同时不相等的比例从高到低，都相同时保持计划中的顺序
+     */
+    private int[] sortOrder() {
+        int size = names.length;
+        Integer[] indexes = new Integer[size];
+        double[] rates = new double[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+            int checked = checks[i];
+            rates[i] = checked == 0 ? 0 : (double) differences[i] / checked;
+        }
+        Arrays.sort(indexes, (a, b) -> {
+            int result = Integer.compare(costs[a], costs[b]);
+            if (result == 0) {
+                result = Double.compare(rates[b], rates[a]);
+            }
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = indexes[i];
+        }
+        return result;
+    }
+}
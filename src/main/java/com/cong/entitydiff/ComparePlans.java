@@ -0,0 +1,100 @@
+package com.cong.entitydiff;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 以某个类为对象1的比对计划，键为比对器的配置和对象2的类
+ * <p>
+ * 按对象2的类而不是类元数据区分，同时记录构建时对象2的类元数据，查找时不是同一个类元数据即视为未命中。
+ * 对象2的类元数据被缓存淘汰后重新加载时，新的比对计划覆盖旧的，比对计划的数量不会随淘汰和加载增长。
+ * <p>
+ * 比对计划通过 ClassValue 挂在对象2的类上，对象1的类不会强引用对象2的类，
+ * 对象2由其他类加载器加载时，类加载器可以正常卸载
+ */
+final class ComparePlans {
+    private final Map<Object, ByClass> plans = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param config 比对器的配置
+     * @param other  另一方的类元数据
+     * @return 比对计划，不存在或者是按另一方旧的类元数据构建的时返回 null
+     */
+    ComparePlan get(Object config, ClassPlan other) {
+        ByClass byClass = plans.get(config);
+        if (byClass == null) {
+            return null;
+        }
+        Entry entry = byClass.slot(other).entry;
+        return entry != null && entry.other == other ? entry.plan : null;
+    }
+
+    /**
+     * 缓存比对计划，并发构建时保留先放入的，按另一方旧的类元数据构建的被替换
+     *
+     * @return 缓存中的比对计划
+     */
+    ComparePlan put(Object config, ClassPlan other, ComparePlan plan) {
+        ByClass byClass = plans.get(config);
+        if (byClass == null) {
+            byClass = plans.computeIfAbsent(config, k -> new ByClass());
+        }
+        Slot slot = byClass.slot(other);
+        synchronized (slot) {
+            Entry existing = slot.entry;
+            if (existing != null && existing.other == other) {
+                return existing.plan;
+            }
+            if (existing == null) {
+                size.incrementAndGet();
+            }
+            slot.entry = new Entry(other, plan);
+            return plan;
+        }
+    }
+
+    /**
+     * @return 缓存过比对计划的配置和对象2的类的组合个数，对象2的类卸载后不扣减
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 同一配置下按对象2的类区分的比对计划，空对象的元数据没有对应的类，单独放一个位置
+     */
+    private static final class ByClass {
+        private final ClassValue<Slot> slots = new SlotValue();
+        private final Slot empty = new Slot();
+
+        Slot slot(ClassPlan other) {
+            return other == ClassPlan.EMPTY ? empty : slots.get(other.getType());
+        }
+    }
+
+    /**
+     * 使用静态内部类，避免挂在对象2的类上的值引用 ClassValue 本身
+     */
+    private static final class SlotValue extends ClassValue<Slot> {
+        @Override
+        protected Slot computeValue(Class<?> type) {
+            return new Slot();
+        }
+    }
+
+    private static final class Slot {
+        volatile Entry entry;
+    }
+
+    private static final class Entry {
+        private final ClassPlan other;
+        private final ComparePlan plan;
+
+        Entry(ClassPlan other, ComparePlan plan) {
+            this.other = other;
+            this.plan = plan;
+        }
+    }
+}
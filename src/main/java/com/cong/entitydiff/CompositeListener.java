@@ -0,0 +1,82 @@
+package com.cong.entitydiff;
+
+import java.util.Arrays;
+
+/**
+ * 把多个监听器合并为一个，按注册顺序依次通知
+ */
+class CompositeListener implements ComparatorListener {
+    private final ComparatorListener[] listeners;
+
+    CompositeListener(ComparatorListener[] listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * 在已有的监听器后追加一个
+     *
+     * @param current 当前的监听器，可以为 null
+     */
+    static ComparatorListener add(ComparatorListener current, ComparatorListener listener) {
+        if (current == null) {
+            return listener;
+        }
+        ComparatorListener[] existing = current instanceof CompositeListener
+                ? ((CompositeListener) current).listeners : new ComparatorListener[]{current};
+        ComparatorListener[] merged = Arrays.copyOf(existing, existing.length + 1);
+        merged[existing.length] = listener;
+        return new CompositeListener(merged);
+    }
+
+    /**
+     * 移除一个监听器，没有剩余的监听器时返回 null
+     */
+    static ComparatorListener remove(ComparatorListener current, ComparatorListener listener) {
+        if (current == listener) {
+            return null;
+        }
+        if (!(current instanceof CompositeListener)) {
+            return current;
+        }
+        ComparatorListener[] existing = ((CompositeListener) current).listeners;
+        ComparatorListener[] remaining = new ComparatorListener[existing.length];
+        int size = 0;
+        for (ComparatorListener l : existing) {
+            if (l != listener) {
+                remaining[size++] = l;
+            }
+        }
+        if (size == existing.length) {
+            return current;
+        }
+        return size == 1 ? remaining[0] : new CompositeListener(Arrays.copyOf(remaining, size));
+    }
+
+    @Override
+    public void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+        for (ComparatorListener listener : listeners) {
+            listener.onCompare(firstType, secondType, nanos, fieldsScanned, fieldsDifferent);
+        }
+    }
+
+    @Override
+    public void onError(Class<?> firstType, Class<?> secondType, RuntimeException e) {
+        for (ComparatorListener listener : listeners) {
+            listener.onError(firstType, secondType, e);
+        }
+    }
+
+    @Override
+    public void onMetadataHit(Class<?> type) {
+        for (ComparatorListener listener : listeners) {
+            listener.onMetadataHit(type);
+        }
+    }
+
+    @Override
+    public void onMetadataMiss(Class<?> type, long loadNanos, int cacheSize) {
+        for (ComparatorListener listener : listeners) {
+            listener.onMetadataMiss(type, loadNanos, cacheSize);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.cong.entitydiff;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 比对结果的二进制编码，以及把编码后的差异应用到另一个对象上的补丁
+ * <p>
+ * 编码只包含不相等的属性在类元数据中的下标和对象2的值，不包含属性名和类名：
+ * <pre>
+ * 版本(1 字节) 类元数据摘要(8 字节) 属性个数(varint) { 下标增量(varint) 值 }...
+ * </pre>
+ * 下标按升序排列，只记录与上一个下标的差值；值以 1 字节的标记开头，整数使用 zigzag varint，
+ * float、double 保存原始的位，字符串使用 UTF-8。枚举的类型与属性声明的类型相同时只保存序号，
+ * 否则（例如集合中的枚举）在第一次出现时写入类名，之后引用类型字典中的下标。
+ * <p>
+ * 支持基本类型及其包装类、String、BigDecimal、BigInteger、UUID、Date、Instant、LocalDate、LocalTime、LocalDateTime、
+ * 枚举、byte[]，以及元素为这些类型的 List、Set、Map，其他类型的值无法编码。解码时不使用 Java 序列化，
+ * 不会根据数据创建任意类的对象。
+ * <p>
+ * 应用补丁时通过同一份缓存的类元数据写入：基于字段的比对器写字段，基于 getter 的比对器调用同名的 setter。
+ * 编码端与应用端的类元数据摘要必须一致，即同一个类、同样的属性顺序。
+ * 解码得到的 List、Set、Map 分别为 ArrayList、LinkedHashSet、LinkedHashMap，只能写入声明为这些类型、
+ * 它们的父类或接口（如 List、Collection、Set、Map、HashSet、HashMap、Object）的属性，
+ * 声明为 TreeSet、SortedMap、LinkedList 等其他集合类型的属性无法应用补丁
+ */
+public class DiffCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte CHAR = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte STRING = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte BIG_INTEGER = 12;
+    private static final byte UUID_VALUE = 13;
+    private static final byte DATE = 14;
+    private static final byte INSTANT = 15;
+    private static final byte LOCAL_DATE = 16;
+    private static final byte LOCAL_TIME = 17;
+    private static final byte LOCAL_DATE_TIME = 18;
+    /**
+     * 枚举类型与属性声明的类型相同，只有序号
+     */
+    private static final byte ENUM = 19;
+    /**
+     * 枚举类型来自类型字典
+     */
+    private static final byte TYPED_ENUM = 20;
+    private static final byte BYTES = 21;
+    private static final byte LIST = 22;
+    private static final byte SET = 23;
+    private static final byte MAP = 24;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final AbstractComparator comparator;
+
+    /**
+     * @param comparator 用于比对和读取类元数据的比对器，不能开启递归比对
+     */
+    public DiffCodec(AbstractComparator comparator) {
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+    }
+
+    /**
+     * 比对两个同类对象，把不相等的属性和对象2的值编码
+     *
+     * @param first  对象1
+     * @param second 对象2
+     * @return 编码结果，position 为 0，limit 为编码长度
+     */
+    public ByteBuffer encode(Object first, Object second) {
+        if (first == null || second == null || first.getClass() != second.getClass()) {
+            throw new IllegalArgumentException("只能编码两个同类对象的差异: " + typeName(first) + " / " + typeName(second));
+        }
+        if (comparator.isRecursive()) {
+            throw new IllegalStateException("递归比对的结果无法编码");
+        }
+        ClassPlan classPlan = classPlanOf(first);
+        DiffResult result = comparator.diff(first, second);
+        int[] indexes = new int[result.size()];
+        Object[] values = new Object[indexes.length];
+        int count = 0;
+        for (int i = result.nextIndex(0); i >= 0; i = result.nextIndex(i + 1)) {
+            int index = classPlan.indexOf(result.getName(i));
+            if (index < 0) {
+                throw new IllegalStateException("属性不在类元数据中: " + result.getName(i));
+            }
+            indexes[count] = index;
+            values[count++] = result.getSecondValue(i);
+        }
+        sortByIndex(indexes, values, count);
+
+        Writer writer = new Writer();
+        writer.ensure(9);
+        writer.buf.put(VERSION);
+        writer.buf.putLong(classPlan.getSchemaHash());
+        writer.writeVarLong(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writer.writeVarLong(indexes[i] - previous);
+            previous = indexes[i];
+            writer.writeValue(values[i], classPlan.getAccessor(indexes[i]).getType());
+        }
+        ByteBuffer buf = writer.buf;
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * 把编码后的差异应用到目标对象上，读取从 diff 当前的 position 开始，结束后 position 位于编码末尾。
+     * 先解码全部的值并检查属性可写入、类型相符，再逐个写入，编码损坏或类型不符时目标对象保持不变
+     *
+     * @param diff   {@link #encode(Object, Object)} 的结果
+     * @param target 目标对象，类型必须与编码时一致
+     */
+    public void apply(ByteBuffer diff, Object target) {
+        Objects.requireNonNull(diff, "diff");
+        Objects.requireNonNull(target, "target");
+        ClassPlan classPlan = classPlanOf(target);
+        byte version = diff.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的编码版本: " + version);
+        }
+        if (diff.getLong() != classPlan.getSchemaHash()) {
+            throw new IllegalArgumentException("编码与目标对象的类元数据不一致: " + target.getClass().getName());
+        }
+        Reader reader = new Reader(diff, target.getClass().getClassLoader());
+        int count = reader.readLength();
+        int[] indexes = new int[Math.min(count, classPlan.size())];
+        Object[] values = new Object[indexes.length];
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = reader.readVarLong();
+            if (delta < 0 || delta >= classPlan.size() - index) {
+                throw new IllegalArgumentException("属性下标越界: " + (index + delta));
+            }
+            index += (int) delta;
+            if (i > 0 && delta == 0) {
+                throw new IllegalArgumentException("属性下标重复: " + index);
+            }
+            Object value = reader.readValue(classPlan.getAccessor(index).getType());
+            classPlan.getWriter(index).check(value);
+            indexes[i] = index;
+            values[i] = value;
+        }
+        for (int i = 0; i < count; i++) {
+            classPlan.getWriter(indexes[i]).set(target, values[i]);
+        }
+    }
+
+    private ClassPlan classPlanOf(Object obj) {
+        ClassPlan classPlan = comparator.getClassPlan(obj);
+        if (classPlan == null) {
+            throw new IllegalStateException("比对器不支持编码: " + comparator.getClass().getName());
+        }
+        return classPlan;
+    }
+
+    /**
+     * 比对器自定义了比对逻辑时结果不一定按下标排列，插入排序，通常已经有序
+     */
+    private static void sortByIndex(int[] indexes, Object[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            int index = indexes[i];
+            Object value = values[i];
+            int j = i - 1;
+            while (j >= 0 && indexes[j] > index) {
+                indexes[j + 1] = indexes[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+            values[j + 1] = value;
+        }
+    }
+
+    private static String typeName(Object obj) {
+        return obj == null ? "null" : obj.getClass().getName();
+    }
+
+    private static final class Writer {
+        private ByteBuffer buf = ByteBuffer.allocate(INITIAL_CAPACITY);
+        private Map<Class<?>, Integer> dictionary;
+
+        void ensure(int bytes) {
+            if (buf.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes));
+                buf.flip();
+                grown.put(buf);
+                buf = grown;
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buf.put((byte) value);
+        }
+
+        void writeSigned(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeTag(byte tag) {
+            ensure(1);
+            buf.put(tag);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param declaredType 属性声明的类型，集合元素为 null
+         */
+        void writeValue(Object value, Class<?> declaredType) {
+            if (value == null) {
+                writeTag(NULL);
+            } else if (value instanceof Boolean) {
+                writeTag((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                writeTag(INT);
+                writeSigned((Integer) value);
+            } else if (value instanceof Long) {
+                writeTag(LONG);
+                writeSigned((Long) value);
+            } else if (value instanceof Short) {
+                writeTag(SHORT);
+                writeSigned((Short) value);
+            } else if (value instanceof Byte) {
+                writeTag(BYTE);
+                ensure(1);
+                buf.put((Byte) value);
+            } else if (value instanceof Character) {
+                writeTag(CHAR);
+                writeVarLong((Character) value);
+            } else if (value instanceof Float) {
+                writeTag(FLOAT);
+                ensure(4);
+                buf.putInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Double) {
+                writeTag(DOUBLE);
+                ensure(8);
+                buf.putLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof String) {
+                writeTag(STRING);
+                writeString((String) value);
+            } else if (value instanceof BigDecimal) {
+                writeTag(BIG_DECIMAL);
+                writeSigned(((BigDecimal) value).scale());
+                writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+            } else if (value instanceof BigInteger) {
+                writeTag(BIG_INTEGER);
+                writeBytes(((BigInteger) value).toByteArray());
+            } else if (value instanceof UUID) {
+                writeTag(UUID_VALUE);
+                ensure(16);
+                buf.putLong(((UUID) value).getMostSignificantBits());
+                buf.putLong(((UUID) value).getLeastSignificantBits());
+            } else if (value.getClass() == Date.class) {
+                writeTag(DATE);
+                writeSigned(((Date) value).getTime());
+            } else if (value instanceof Instant) {
+                writeTag(INSTANT);
+                writeSigned(((Instant) value).getEpochSecond());
+                writeVarLong(((Instant) value).getNano());
+            } else if (value instanceof LocalDate) {
+                writeTag(LOCAL_DATE);
+                writeSigned(((LocalDate) value).toEpochDay());
+            } else if (value instanceof LocalTime) {
+                writeTag(LOCAL_TIME);
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (value instanceof LocalDateTime) {
+                writeTag(LOCAL_DATE_TIME);
+                writeSigned(((LocalDateTime) value).toLocalDate().toEpochDay());
+                writeVarLong(((LocalDateTime) value).toLocalTime().toNanoOfDay());
+            } else if (value instanceof Enum) {
+                Class<?> enumType = ((Enum<?>) value).getDeclaringClass();
+                if (enumType == declaredType) {
+                    writeTag(ENUM);
+                } else {
+                    writeTag(TYPED_ENUM);
+                    writeType(enumType);
+                }
+                writeVarLong(((Enum<?>) value).ordinal());
+            } else if (value instanceof byte[]) {
+                writeTag(BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof List) {
+                writeTag(LIST);
+                writeElements((List<?>) value);
+            } else if (value instanceof Set) {
+                writeTag(SET);
+                writeElements((Set<?>) value);
+            } else if (value instanceof Map) {
+                writeTag(MAP);
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey(), null);
+                    writeValue(entry.getValue(), null);
+                }
+            } else {
+                throw new IllegalArgumentException("不支持编码的类型: " + value.getClass().getName());
+            }
+        }
+
+        private void writeElements(Collection<?> values) {
+            writeVarLong(values.size());
+            for (Object element : values) {
+                writeValue(element, null);
+            }
+        }
+
+        /**
+         * 类型第一次出现时写入类名，之后写入字典中的下标，类名与下标都以 varint 开头：0 表示类名，否则为下标加 1
+         */
+        private void writeType(Class<?> type) {
+            if (dictionary == null) {
+                dictionary = new HashMap<>();
+            }
+            Integer index = dictionary.get(type);
+            if (index != null) {
+                writeVarLong(index + 1);
+            } else {
+                dictionary.put(type, dictionary.size());
+                writeVarLong(0);
+                writeString(type.getName());
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buf;
+        private final ClassLoader classLoader;
+        private List<Class<?>> dictionary;
+
+        Reader(ByteBuffer buf, ClassLoader classLoader) {
+            this.buf = buf;
+            this.classLoader = classLoader;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        long readSigned() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * 长度和个数不能超过剩余的字节数，避免损坏的数据申请过大的数组
+         */
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > buf.remaining()) {
+                throw new IllegalArgumentException("长度越界: " + length);
+            }
+            return (int) length;
+        }
+
+        byte[] readBytes() {
+            byte[] bytes = new byte[readLength()];
+            buf.get(bytes);
+            return bytes;
+        }
+
+        String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        Object readValue(Class<?> declaredType) {
+            byte tag = buf.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INT:
+                    return (int) readSigned();
+                case LONG:
+                    return readSigned();
+                case SHORT:
+                    return (short) readSigned();
+                case BYTE:
+                    return buf.get();
+                case CHAR:
+                    return (char) readVarLong();
+                case FLOAT:
+                    return Float.intBitsToFloat(buf.getInt());
+                case DOUBLE:
+                    return Double.longBitsToDouble(buf.getLong());
+                case STRING:
+                    return readString();
+                case BIG_DECIMAL:
+                    int scale = (int) readSigned();
+                    return new BigDecimal(new BigInteger(readBytes()), scale);
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case UUID_VALUE:
+                    return new UUID(buf.getLong(), buf.getLong());
+                case DATE:
+                    return new Date(readSigned());
+                case INSTANT:
+                    return Instant.ofEpochSecond(readSigned(), readVarLong());
+                case LOCAL_DATE:
+                    return LocalDate.ofEpochDay(readSigned());
+                case LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case LOCAL_DATE_TIME:
+                    LocalDate date = LocalDate.ofEpochDay(readSigned());
+                    return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+                case ENUM:
+                    if (declaredType == null || !declaredType.isEnum()) {
+                        throw new IllegalArgumentException("属性不是枚举类型: " + declaredType);
+                    }
+                    return enumConstant(declaredType, readVarLong());
+                case TYPED_ENUM:
+                    return enumConstant(readType(), readVarLong());
+                case BYTES:
+                    return readBytes();
+                case LIST:
+                    int listSize = readLength();
+                    List<Object> list = new ArrayList<>(listSize);
+                    for (int i = 0; i < listSize; i++) {
+                        list.add(readValue(null));
+                    }
+                    return list;
+                case SET:
+                    int setSize = readLength();
+                    Set<Object> set = new LinkedHashSet<>(setSize * 2);
+                    for (int i = 0; i < setSize; i++) {
+                        set.add(readValue(null));
+                    }
+                    return set;
+                case MAP:
+                    int mapSize = readLength();
+                    Map<Object, Object> map = new LinkedHashMap<>(mapSize * 2);
+                    for (int i = 0; i < mapSize; i++) {
+                        map.put(readValue(null), readValue(null));
+                    }
+                    return map;
+                default:
+                    throw new IllegalArgumentException("未知的值标记: " + tag);
+            }
+        }
+
+        private Class<?> readType() {
+            if (dictionary == null) {
+                dictionary = new ArrayList<>();
+            }
+            int ref = readLength();
+            if (ref > 0) {
+                if (ref > dictionary.size()) {
+                    throw new IllegalArgumentException("类型字典下标越界: " + ref);
+                }
+                return dictionary.get(ref - 1);
+            }
+            String name = readString();
+            Class<?> type;
+            try {
+                // 不初始化，确认是枚举之后才取常量
+                type = Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("找不到类型: " + name, e);
+            }
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException("类型字典中只能是枚举: " + name);
+            }
+            dictionary.add(type);
+            return type;
+        }
+
+        private static Object enumConstant(Class<?> type, long ordinal) {
+            Object[] constants = type.getEnumConstants();
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new IllegalArgumentException("枚举序号越界: " + type.getName() + "#" + ordinal);
+            }
+            return constants[(int) ordinal];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cong.entitydiff;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一次递归比对的上下文，记录当前深度和已经访问过的对象对
+ * <p>
+ * 只记录当前比对路径上的对象对，按引用判断。对象图中存在循环引用时，在自身内部再次遇到同一对对象直接视为相等，
+ * 保证比对能够结束；不同路径上共享的对象仍会分别比对，以便在各自的路径上报告差异
+ */
+final class DiffContext {
+    private final int maxDepth;
+    private final Set<IdentityPair> visited = new HashSet<>();
+    /**
+     * 跨多次比对复用不可变对象的比对结果，没有时为 null
+     */
+    private final DiffMemo memo;
+    private int depth;
+    /**
+     * 到达过的最大深度
+     */
+    private int deepest;
+    /**
+     * 因循环引用或深度上限没有完整比对的次数，这期间得到的结果与所在的路径有关，不能复用
+     */
+    private int truncations;
+
+    /**
+     * @param maxDepth 最大深度
+     * @param first    顶层对象1
+     * @param second   顶层对象2
+     */
+    DiffContext(int maxDepth, Object first, Object second) {
+        this(maxDepth, first, second, null);
+    }
+
+    DiffContext(int maxDepth, Object first, Object second, DiffMemo memo) {
+        this.maxDepth = maxDepth;
+        this.memo = memo;
+        visited.add(new IdentityPair(first, second));
+    }
+
+    /**
+     * 是否还能继续向下一层比对，不能时记录一次截断
+     */
+    boolean canDescend() {
+        if (depth < maxDepth) {
+            return true;
+        }
+        truncations++;
+        return false;
+    }
+
+    /**
+     * 进入一对嵌套对象
+     *
+     * @return false 表示这对对象已经在比对中，不需要再次进入
+     */
+    boolean enter(Object first, Object second) {
+        if (!visited.add(new IdentityPair(first, second))) {
+            truncations++;
+            return false;
+        }
+        depth++;
+        if (depth > deepest) {
+            deepest = depth;
+        }
+        return true;
+    }
+
+    void exit(Object first, Object second) {
+        visited.remove(new IdentityPair(first, second));
+        depth--;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * 从当前深度开始重新记录到达过的最大深度
+     *
+     * @return 之前记录的最大深度，交给 {@link #restoreDeepest(int)}
+     */
+    int markDeepest() {
+        int previous = deepest;
+        deepest = depth;
+        return previous;
+    }
+
+    /**
+     * @return 从 {@link #markDeepest()} 之后到达过的最大深度
+     */
+    int restoreDeepest(int previous) {
+        int reached = deepest;
+        deepest = Math.max(previous, reached);
+        return reached;
+    }
+
+    DiffMemo getMemo() {
+        return memo;
+    }
+
+    int getTruncations() {
+        return truncations;
+    }
+}
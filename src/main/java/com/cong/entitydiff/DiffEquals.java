@@ -0,0 +1,16 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 使用自定义的相等判断比对此属性，优先于比对器的 isFieldEquals
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface DiffEquals {
+    /**
+     * @return 相等判断的实现类，需要有无参构造方法
+     */
+    Class<? extends EqualityStrategy> value();
+}
@@ -0,0 +1,12 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 按引用比对此属性，只有两个值是同一个对象时才相等，适合比对代价很高或者没有实现 equals 的值
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface DiffIdentity {
+}
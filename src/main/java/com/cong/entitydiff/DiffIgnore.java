@@ -0,0 +1,12 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 比对时忽略此属性，不论对象之间的值是否相同都不报告差异
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface DiffIgnore {
+}
@@ -0,0 +1,13 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注类的对象创建后不会再被修改，递归比对时可以通过 {@link DiffMemo} 复用同一对对象的比对结果。
+ * 没有标注时，所有实例字段都是 final、字段类型也都不可变的类同样视为不可变
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DiffImmutable {
+}
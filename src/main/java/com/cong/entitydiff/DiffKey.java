@@ -0,0 +1,12 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记集合元素的键，递归比对时由该类型元素组成的集合按键匹配，效果与 {@link AbstractComparator#registerCollectionKey} 相同，注册的键优先
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface DiffKey {
+}
@@ -0,0 +1,183 @@
+package com.cong.entitydiff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次批量比对中共享的比对结果缓存，按对象对的引用记录不可变对象之间的递归比对结果
+ * <p>
+ * 大对象图中经常有被大量实体共享的不可变子对象，例如商品目录、配置，
+ * 递归比对时同一对子对象会被反复比对。传入 DiffMemo 后，同一对不可变对象只完整比对一次，
+ * 之后直接复用记录下的差异，并换成当前的路径。只有 {@link DiffImmutable} 标注的类，
+ * 或者所有实例字段都是 final 且字段类型不可变的类才会被记录，比对过程中遇到循环引用或深度上限的结果不会被记录。
+ * <p>
+ * 记录按比对器以及它的包含、排除、误差和比对方式配置区分，不同的比对器或者修改了这些配置后不会复用之前的结果；
+ * 递归、集合比对方式等其他配置不在区分范围内，使用同一个 DiffMemo 期间不应修改。
+ * <p>
+ * 缓存持有对象的强引用，应当只在一次批量比对中使用，用完丢弃。记录数达到上限后不再记录新的对象对。
+ * 可以在多个线程中共享
+ */
+public final class DiffMemo {
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DiffMemo() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize 最多记录的对象对数量
+     */
+    public DiffMemo(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return 记录的对象对数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return 复用记录结果的次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 没有记录、需要完整比对的次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @param owner  比对器
+     * @param config 比对器当前的配置，按引用区分
+     */
+    Entry get(Object owner, Object config, Object first, Object second) {
+        Entry entry = entries.get(new Key(owner, config, first, second));
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * @param path       这对对象在本次比对中的路径
+     * @param depth      比对这对对象向下用到的层数
+     * @param diffFields 这对对象内部的差异，路径都以 path 开头
+     */
+    void put(Object owner, Object config, Object first, Object second, String path, int depth, List<FieldInfo> diffFields) {
+        if (entries.size() < maxSize) {
+            entries.putIfAbsent(new Key(owner, config, first, second), new Entry(path, depth, diffFields));
+        }
+    }
+
+    /**
+     * 比对器、配置和一对对象，都按引用判断相等
+     */
+    private static final class Key {
+        private final Object owner;
+        private final Object config;
+        private final Object first;
+        private final Object second;
+
+        Key(Object owner, Object config, Object first, Object second) {
+            this.owner = owner;
+            this.config = config;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return first == other.first && second == other.second && owner == other.owner && config == other.config;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(first) + System.identityHashCode(second)) + System.identityHashCode(owner);
+        }
+    }
+
+    /**
+     * 记录下的差异，路径相对于记录时这对对象所在的路径
+     */
+    static final class Entry {
+        private final String path;
+        private final int depth;
+        private final List<FieldInfo> diffFields;
+
+        private Entry(String path, int depth, List<FieldInfo> diffFields) {
+            this.path = path;
+            this.depth = depth;
+            if (diffFields.isEmpty()) {
+                this.diffFields = Collections.emptyList();
+            } else {
+                // 复制一份，调用方修改返回的 FieldInfo 不影响记录
+                List<FieldInfo> copy = new ArrayList<>(diffFields.size());
+                for (FieldInfo fieldInfo : diffFields) {
+                    copy.add(copy(fieldInfo, fieldInfo.getPath()));
+                }
+                this.diffFields = copy;
+            }
+        }
+
+        /**
+         * @return 比对这对对象向下用到的层数，剩余的层数不够时结果不能复用
+         */
+        int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @param newPath 这对对象在当前比对中的路径
+         * @return 换成当前路径的差异
+         */
+        List<FieldInfo> getDiffFields(String newPath) {
+            if (diffFields.isEmpty()) {
+                return diffFields;
+            }
+            List<FieldInfo> result = new ArrayList<>(diffFields.size());
+            for (FieldInfo fieldInfo : diffFields) {
+                result.add(copy(fieldInfo, newPath + fieldInfo.getPath().substring(path.length())));
+            }
+            return result;
+        }
+
+        private static FieldInfo copy(FieldInfo fieldInfo, String path) {
+            FieldInfo copy = new FieldInfo(fieldInfo.getFieldName(), fieldInfo.getFirstFieldType(), fieldInfo.getSecondFieldType(),
+                    fieldInfo.getFirstVal(), fieldInfo.getSecondVal());
+            copy.setPath(path);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cong.entitydiff;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提前结束比对的条件，用于 {@link AbstractComparator#diff(Object, Object, DiffOptions)}
+ * <p>
+ * 找到指定个数的差异、估算开销用完或者超时后停止比对，结果的 {@link DiffResult#isTruncated()} 为 true。
+ * 开销按属性类型估算：基本类型为 1，String、BigDecimal 等值类型以及注解指定的比对方式为 2，实体为 4，集合、Map、数组为 8。
+ * 超时只在比对实体、集合等开销较大的属性之前检查，实际耗时可能略微超出
+ */
+public class DiffOptions {
+    private int maxDiffs = Integer.MAX_VALUE;
+    private long maxCost = Long.MAX_VALUE;
+    private long timeoutNanos;
+
+    public int getMaxDiffs() {
+        return maxDiffs;
+    }
+
+    /**
+     * @param maxDiffs 找到这么多个差异后停止，只需要判断差异是否超过 N 个时设置为 N + 1
+     */
+    public void setMaxDiffs(int maxDiffs) {
+        if (maxDiffs <= 0) {
+            throw new IllegalArgumentException("maxDiffs 必须大于 0: " + maxDiffs);
+        }
+        this.maxDiffs = maxDiffs;
+    }
+
+    public long getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * @param maxCost 估算开销的上限，下一个属性的开销会超出上限时停止
+     */
+    public void setMaxCost(long maxCost) {
+        if (maxCost <= 0) {
+            throw new IllegalArgumentException("maxCost 必须大于 0: " + maxCost);
+        }
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * @return 超时时间，0 表示不限制
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    /**
+     * @param timeout 超时时间，0 表示不限制
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout 不能小于 0: " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * @return 是否设置了任何提前结束的条件
+     */
+    public boolean isBounded() {
+        return maxDiffs != Integer.MAX_VALUE || maxCost != Long.MAX_VALUE || timeoutNanos != 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cong.entitydiff;
+
+/**
+ * 待比对的一对对象
+ *
+ * @param <F> 对象1的类型
+ * @param <S> 对象2的类型
+ */
+public class DiffPair<F, S> {
+    /**
+     * 这对对象的标识，可以为 null
+     */
+    private final Object key;
+    private final F first;
+    private final S second;
+
+    public DiffPair(F first, S second) {
+        this(null, first, second);
+    }
+
+    public DiffPair(Object key, F first, S second) {
+        this.key = key;
+        this.first = first;
+        this.second = second;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public F getFirst() {
+        return first;
+    }
+
+    public S getSecond() {
+        return second;
+    }
+}
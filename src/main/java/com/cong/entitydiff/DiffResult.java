@@ -0,0 +1,204 @@
+package com.cong.entitydiff;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 紧凑的比对结果，由 {@link AbstractComparator#diff(Object, Object)} 返回
+ * <p>
+ * 基于比对计划的结果只保存一个位图，第 i 位表示比对计划中第 i 个属性不相等，属性名、类型和值都在访问时才从比对计划和两个对象中读取，
+ * 只关心不同字段的个数或名称时不需要创建 FieldInfo，也不需要装箱。遍历使用与 {@link BitSet#nextSetBit(int)} 相同的方式：
+ * <pre>{@code
+ * for (int i = result.nextIndex(0); i >= 0; i = result.nextIndex(i + 1)) {
+ *     result.getName(i);
+ * }
+ * }</pre>
+ * 值是在访问时读取的，比对后修改了对象会读到修改后的值。递归比对、简单类型或者比对器自定义了比对逻辑时，
+ * 结果退化为 FieldInfo 列表的包装，下标即列表中的位置
+ */
+public final class DiffResult {
+    private static final DiffResult EMPTY = new DiffResult(Collections.<FieldInfo>emptyList(), false);
+
+    private final Object first;
+    private final Object second;
+    private final ComparePlan plan;
+    private final long[] bits;
+    private final int count;
+    /**
+     * 不基于比对计划时的比对结果，基于比对计划时为 null
+     */
+    private final List<FieldInfo> fieldInfos;
+    /**
+     * 是否提前结束，没有比对全部属性
+     */
+    private final boolean truncated;
+
+    DiffResult(Object first, Object second, ComparePlan plan, long[] bits, int count) {
+        this(first, second, plan, bits, count, false);
+    }
+
+    DiffResult(Object first, Object second, ComparePlan plan, long[] bits, int count, boolean truncated) {
+        this.first = first;
+        this.second = second;
+        this.plan = plan;
+        this.bits = bits;
+        this.count = count;
+        this.fieldInfos = null;
+        this.truncated = truncated;
+    }
+
+    private DiffResult(List<FieldInfo> fieldInfos, boolean truncated) {
+        this.first = null;
+        this.second = null;
+        this.plan = null;
+        this.bits = null;
+        this.count = fieldInfos.size();
+        this.fieldInfos = fieldInfos;
+        this.truncated = truncated;
+    }
+
+    /**
+     * @param fieldInfos 不相等的属性，通常是 LinkedList，不能随机访问时复制一份，按下标访问为 O(1)
+     */
+    static DiffResult of(List<FieldInfo> fieldInfos) {
+        if (fieldInfos == null || fieldInfos.isEmpty()) {
+            return EMPTY;
+        }
+        return new DiffResult(fieldInfos instanceof RandomAccess ? fieldInfos : new ArrayList<>(fieldInfos), false);
+    }
+
+    /**
+     * @param maxDiffs 最多保留的差异个数，超出的部分丢弃并标记为提前结束
+     */
+    static DiffResult of(List<FieldInfo> fieldInfos, int maxDiffs) {
+        if (fieldInfos == null || fieldInfos.size() <= maxDiffs) {
+            return of(fieldInfos);
+        }
+        return new DiffResult(new ArrayList<>(fieldInfos.subList(0, maxDiffs)), true);
+    }
+
+    /**
+     * @return 不相等的属性个数
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return 是否因为 {@link DiffOptions} 的条件提前结束，为 true 时没有报告的属性不一定相等
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @param fromIndex 起始下标，包含
+     * @return 从 fromIndex 开始的第一个不相等属性的下标，没有时返回 -1
+     */
+    public int nextIndex(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        if (fieldInfos != null) {
+            return fromIndex < count ? fromIndex : -1;
+        }
+        int word = fromIndex >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long remaining = bits[word] & (-1L << fromIndex);
+        while (true) {
+            if (remaining != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(remaining);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+    }
+
+    /**
+     * @param index 由 {@link #nextIndex(int)} 得到的下标
+     * @return 属性名
+     */
+    public String getName(int index) {
+        return fieldInfos != null ? fieldInfos.get(index).getFieldName() : plan.getName(index);
+    }
+
+    public Object getFirstValue(int index) {
+        return fieldInfos != null ? fieldInfos.get(index).getFirstVal() : valueOf(plan.getFirstAccessor(index), first);
+    }
+
+    public Object getSecondValue(int index) {
+        return fieldInfos != null ? fieldInfos.get(index).getSecondVal() : valueOf(plan.getSecondAccessor(index), second);
+    }
+
+    /**
+     * 属性是否不相等
+     *
+     * @param name 属性名
+     */
+    public boolean contains(String name) {
+        for (int i = nextIndex(0); i >= 0; i = nextIndex(i + 1)) {
+            if (getName(i).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 依次回调不相等的属性名
+     */
+    public void forEachName(Consumer<? super String> action) {
+        for (int i = nextIndex(0); i >= 0; i = nextIndex(i + 1)) {
+            action.accept(getName(i));
+        }
+    }
+
+    /**
+     * @return 不相等的属性名，按比对计划中的顺序
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(count);
+        forEachName(names::add);
+        return names;
+    }
+
+    /**
+     * @param index 由 {@link #nextIndex(int)} 得到的下标
+     * @return 属性的完整信息
+     */
+    public FieldInfo getFieldInfo(int index) {
+        if (fieldInfos != null) {
+            return fieldInfos.get(index);
+        }
+        PropertyAccessor firstAccessor = plan.getFirstAccessor(index);
+        PropertyAccessor secondAccessor = plan.getSecondAccessor(index);
+        return new FieldInfo(plan.getName(index), firstAccessor == null ? null : firstAccessor.getType(),
+                secondAccessor == null ? null : secondAccessor.getType(), valueOf(firstAccessor, first), valueOf(secondAccessor, second));
+    }
+
+    /**
+     * @return 与 {@link Comparator#getDiffFields(Object, Object)} 相同的结果
+     */
+    public List<FieldInfo> toFieldInfos() {
+        if (fieldInfos != null) {
+            return fieldInfos;
+        }
+        List<FieldInfo> result = new ArrayList<>(count);
+        for (int i = nextIndex(0); i >= 0; i = nextIndex(i + 1)) {
+            result.add(getFieldInfo(i));
+        }
+        return result;
+    }
+
+    private static Object valueOf(PropertyAccessor accessor, Object target) {
+        return accessor != null ? accessor.get(target) : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cong.entitydiff;
+
+import java.lang.annotation.*;
+
+/**
+ * 数值属性允许的误差，两个值之差的绝对值不超过误差时视为相等，两个 NaN 视为相等
+ * <p>
+ * 还可以指定相对误差和 ULP 距离，满足任意一个条件即相等，详见 {@link NumericTolerance}。
+ * 注解优先于比对器上设置的 {@link AbstractComparator#setNumericTolerance(NumericTolerance)}
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface DiffTolerance {
+    /**
+     * @return 允许的绝对误差，不能为负数
+     */
+    double value() default 0;
+
+    /**
+     * @return 允许的相对误差，不能为负数
+     */
+    double relative() default 0;
+
+    /**
+     * @return 允许的 ULP 距离，只对浮点数生效，不能为负数
+     */
+    long ulps() default 0;
+
+    /**
+     * @return 两个 NaN 是否相等
+     */
+    boolean nanEquals() default true;
+
+    /**
+     * @return BigDecimal 的精度不同时是否不相等
+     */
+    boolean scaleSensitive() default false;
+}
@@ -0,0 +1,84 @@
+package com.cong.entitydiff;
+
+/**
+ * 可变对象的基线快照，由 {@link AbstractComparator#snapshot(Object)} 创建
+ * <p>
+ * 快照按比对计划的顺序记录每个属性：基本类型记录原始值，不装箱；其余属性记录引用和 64 位的内容哈希。
+ * 内容哈希与指纹的计算方式相同，并且总是按结构深入嵌套的实体、数组和集合，不使用它们的 hashCode，
+ * 因此集合、数组以及 hashCode 只取决于标识的嵌套实体被原地修改后也能发现；
+ * 被原地修改后内容哈希恰好不变的概率约为 2<sup>-64</sup>，此时修改不会被发现。
+ * 与当前状态比对时，原始值、引用和内容哈希都没有变化的属性直接跳过。快照创建后不可变，可以在多个线程中使用
+ */
+public final class EntitySnapshot {
+    private final Class<?> type;
+    private final ComparePlan plan;
+    private final long[] bits;
+    private final Object[] values;
+    private final long[] hashes;
+
+    /**
+     * @param hasher 按结构计算内容哈希，比对时必须使用相同配置的比对器创建
+     */
+    EntitySnapshot(Object obj, ComparePlan plan, Fingerprinter hasher) {
+        this.type = obj.getClass();
+        this.plan = plan;
+        int size = plan.size();
+        this.bits = new long[size];
+        this.values = new Object[size];
+        this.hashes = new long[size];
+        for (int i = 0; i < size; i++) {
+            PropertyAccessor accessor = plan.getFirstAccessor(i);
+            if (isPrimitive(i)) {
+                bits[i] = accessor.getBits(obj);
+            } else {
+                Object value = accessor.get(obj);
+                values[i] = value;
+                hashes[i] = hasher.hash(value);
+            }
+        }
+    }
+
+    /**
+     * @return 快照对象的类型
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return 快照记录的属性个数
+     */
+    public int size() {
+        return plan.size();
+    }
+
+    ComparePlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * 属性相对快照是否可能变化，基本类型的原始值不同即一定变化，其余属性引用或内容哈希不同时需要再按比对方式确认
+     */
+    boolean isChanged(int index, Object current, Fingerprinter hasher) {
+        PropertyAccessor accessor = plan.getFirstAccessor(index);
+        if (isPrimitive(index)) {
+            return accessor.getBits(current) != bits[index];
+        }
+        Object value = accessor.get(current);
+        return value != values[index] || hasher.hash(value) != hashes[index];
+    }
+
+    /**
+     * @return 快照中的属性值，基本类型装箱后返回
+     */
+    Object getValue(int index) {
+        return isPrimitive(index) ? plan.getFirstAccessor(index).fromBits(bits[index]) : values[index];
+    }
+
+    /**
+     * 有注解策略的基本类型属性按装箱后的值交给策略比对
+     */
+    boolean isPrimitive(int index) {
+        return plan.getPolicy(index) == null && plan.getFirstAccessor(index).sort != PropertyAccessor.NOT_PRIMITIVE;
+    }
+}
@@ -0,0 +1,277 @@
+package com.cong.entitydiff;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+/**
+ * 按类型注册的相等判断，比对器用它比对非基本类型的属性值
+ * <p>
+ * 每个类型对应的判断方式只解析一次并缓存在 ClassValue 中，之后按值的实际类型直接分派，不需要逐个 instanceof。
+ * 解析顺序为：注册的类型本身、枚举、数组、注册的父类、注册的接口，都没有时使用默认的比较方式，
+ * 即两个 Set 按 Set 语义比对，其他集合逐个元素比对，其余按 {@link Objects#deepEquals} 比对。
+ * <p>
+ * 内置的判断方式：BigDecimal 按 compareTo 比对，忽略精度；Date、Calendar、ZonedDateTime、OffsetDateTime、OffsetTime
+ * 按时间点比对，忽略时区；枚举按引用比对；数组和 Map 逐个元素按本注册表比对。
+ * <p>
+ * 注册表是不可变的，{@link #with} 返回新的注册表
+ *
+ * @see AbstractComparator#registerEquality(Class, EqualityStrategy)
+ */
+public final class EqualityRegistry {
+    private static final EqualityRegistry DEFAULTS = new EqualityRegistry(builtins(), null, true);
+    /**
+     * 对象数组和 Map 逐个元素按调用时的注册表比对，解析结果中只保存这两个静态的标记，比对时再绑定注册表。
+     * 缓存在 ClassValue 中的值如果引用了注册表，就会通过注册表引用 ClassValue 自身，注册表永远不会被回收
+     */
+    private static final EqualityStrategy OBJECT_ARRAY = (first, second) -> DEFAULTS.isArrayEquals(first, second);
+    private static final EqualityStrategy MAP = (first, second) -> DEFAULTS.isMapEquals((Map<?, ?>) first, (Map<?, ?>) second);
+
+    private final Map<Class<?>, EqualityStrategy> strategies;
+    /**
+     * 是否为库内置、所有比对器共享的注册表，只有共享的注册表对应的比对计划才写入共享的类元数据
+     */
+    private final boolean shared;
+    /**
+     * 代理类型的判断方式，两个值中只要有一个解析到它就使用它，为 null 表示没有
+     */
+    private final EqualityStrategy proxyStrategy;
+    private final ClassValue<Resolved> resolved = new ClassValue<Resolved>() {
+        @Override
+        protected Resolved computeValue(Class<?> type) {
+            EqualityStrategy strategy = resolve(type);
+            return new Resolved(strategy, strategy != null && strategies.containsValue(strategy)
+                    && !DEFAULTS.strategies.containsValue(strategy));
+        }
+    };
+
+    private EqualityRegistry(Map<Class<?>, EqualityStrategy> strategies, EqualityStrategy proxyStrategy, boolean shared) {
+        this.strategies = strategies;
+        this.proxyStrategy = proxyStrategy;
+        this.shared = shared;
+    }
+
+    /**
+     * @return 只包含内置判断方式的注册表
+     */
+    public static EqualityRegistry defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * 注册一个类型的相等判断，对子类和实现类同样生效，子类自身注册的判断方式优先
+     *
+     * @return 新的注册表，当前注册表不变
+     */
+    public EqualityRegistry with(Class<?> type, EqualityStrategy strategy) {
+        Map<Class<?>, EqualityStrategy> copy = new HashMap<>(strategies);
+        copy.put(Objects.requireNonNull(type, "type"), Objects.requireNonNull(strategy, "strategy"));
+        return new EqualityRegistry(copy, proxyStrategy, false);
+    }
+
+    /**
+     * 注册代理类型的判断方式，代理与普通对象比对时同样使用它，不会调用代理的 equals。
+     * 只用于创建库内置的静态注册表，返回的注册表在所有比对器之间共享比对计划
+     */
+    EqualityRegistry withProxy(Class<?> type, EqualityStrategy strategy) {
+        Map<Class<?>, EqualityStrategy> copy = new HashMap<>(strategies);
+        copy.put(type, strategy);
+        return new EqualityRegistry(copy, strategy, true);
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * 比对两个值，两个值的类型不同时只有解析到同一个判断方式才使用它，否则使用默认的比较方式；
+     * 其中一个是注册的代理类型时使用代理的判断方式
+     */
+    public boolean isEquals(Object first, Object second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+        EqualityStrategy strategy = resolved.get(first.getClass()).strategy;
+        if (first.getClass() != second.getClass()) {
+            EqualityStrategy other = resolved.get(second.getClass()).strategy;
+            if (strategy != other) {
+                strategy = proxyStrategy == null ? null : strategy == proxyStrategy || other == proxyStrategy ? proxyStrategy : null;
+            }
+        }
+        if (strategy == OBJECT_ARRAY) {
+            return isArrayEquals(first, second);
+        } else if (strategy == MAP) {
+            return isMapEquals((Map<?, ?>) first, (Map<?, ?>) second);
+        }
+        return strategy != null ? strategy.isEquals(first, second) : defaultEquals(first, second);
+    }
+
+    /**
+     * @return 类型对应的判断方式，使用默认的比较方式时返回 null
+     */
+    public EqualityStrategy getStrategy(Class<?> type) {
+        EqualityStrategy strategy = resolved.get(type).strategy;
+        if (strategy == OBJECT_ARRAY) {
+            return this::isArrayEquals;
+        } else if (strategy == MAP) {
+            return (first, second) -> isMapEquals((Map<?, ?>) first, (Map<?, ?>) second);
+        }
+        return strategy;
+    }
+
+    /**
+     * @return 类型是否解析到了通过 {@link #with} 注册的判断方式，内置的判断方式和默认的比较方式都返回 false
+     */
+    boolean isCustom(Class<?> type) {
+        return resolved.get(type).custom;
+    }
+
+    private EqualityStrategy resolve(Class<?> type) {
+        EqualityStrategy strategy = strategies.get(type);
+        if (strategy != null) {
+            return strategy;
+        }
+        if (type.isEnum() || type.getSuperclass() != null && type.getSuperclass().isEnum()) {
+            return (first, second) -> first == second;
+        }
+        if (type.isArray()) {
+            return arrayStrategy(type.getComponentType());
+        }
+        for (Class<?> cls = type.getSuperclass(); cls != null; cls = cls.getSuperclass()) {
+            strategy = strategies.get(cls);
+            if (strategy != null) {
+                return strategy;
+            }
+        }
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            pending.addAll(Arrays.asList(cls.getInterfaces()));
+        }
+        Set<Class<?>> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            Class<?> iface = pending.poll();
+            if (visited.add(iface)) {
+                strategy = strategies.get(iface);
+                if (strategy != null) {
+                    return strategy;
+                }
+                pending.addAll(Arrays.asList(iface.getInterfaces()));
+            }
+        }
+        return Map.class.isAssignableFrom(type) ? MAP : null;
+    }
+
+    private static EqualityStrategy arrayStrategy(Class<?> componentType) {
+        if (componentType == int.class) {
+            return (first, second) -> Arrays.equals((int[]) first, (int[]) second);
+        } else if (componentType == long.class) {
+            return (first, second) -> Arrays.equals((long[]) first, (long[]) second);
+        } else if (componentType == byte.class) {
+            return (first, second) -> Arrays.equals((byte[]) first, (byte[]) second);
+        } else if (componentType == char.class) {
+            return (first, second) -> Arrays.equals((char[]) first, (char[]) second);
+        } else if (componentType == short.class) {
+            return (first, second) -> Arrays.equals((short[]) first, (short[]) second);
+        } else if (componentType == boolean.class) {
+            return (first, second) -> Arrays.equals((boolean[]) first, (boolean[]) second);
+        } else if (componentType == float.class) {
+            return (first, second) -> Arrays.equals((float[]) first, (float[]) second);
+        } else if (componentType == double.class) {
+            return (first, second) -> Arrays.equals((double[]) first, (double[]) second);
+        }
+        return OBJECT_ARRAY;
+    }
+
+    private boolean isArrayEquals(Object first, Object second) {
+        Object[] firstArray = (Object[]) first;
+        Object[] secondArray = (Object[]) second;
+        if (firstArray.length != secondArray.length) {
+            return false;
+        }
+        for (int i = 0; i < firstArray.length; i++) {
+            if (!isEquals(firstArray[i], secondArray[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isMapEquals(Map<?, ?> first, Map<?, ?> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (Map.Entry<?, ?> entry : first.entrySet()) {
+            Object secondValue = second.get(entry.getKey());
+            if (secondValue == null && !second.containsKey(entry.getKey()) || !isEquals(entry.getValue(), secondValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 没有注册判断方式的类型使用的比较方式
+     */
+    boolean defaultEquals(Object first, Object second) {
+        // 1. 两个 Set 按 Set 的语义比对，与元素顺序无关
+        if (first instanceof Set && second instanceof Set) {
+            return ((Set<?>) first).size() == ((Set<?>) second).size() && ((Set<?>) first).containsAll((Set<?>) second);
+        }
+        // 2. 其他集合类型逐个元素按顺序进行比较
+        if (first instanceof Collection && second instanceof Collection) {
+            Collection<?> firstCollection = (Collection<?>) first;
+            Collection<?> secondCollection = (Collection<?>) second;
+            if (firstCollection.size() != secondCollection.size()) {
+                return false;
+            }
+            Iterator<?> secondIt = secondCollection.iterator();
+            for (Object element : firstCollection) {
+                if (!isEquals(element, secondIt.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // 3. 如果不是集合类型，直接进行深度比较
+        return Objects.deepEquals(first, second);
+    }
+
+    private static Map<Class<?>, EqualityStrategy> builtins() {
+        Map<Class<?>, EqualityStrategy> builtins = new HashMap<>();
+        EqualityStrategy equals = Object::equals;
+        builtins.put(String.class, equals);
+        builtins.put(BigDecimal.class, (first, second) -> ((BigDecimal) first).compareTo((BigDecimal) second) == 0);
+        builtins.put(Date.class, (first, second) -> ((Date) first).getTime() == ((Date) second).getTime());
+        builtins.put(Timestamp.class, equals);
+        builtins.put(Calendar.class, (first, second) -> ((Calendar) first).getTimeInMillis() == ((Calendar) second).getTimeInMillis());
+        builtins.put(ZonedDateTime.class, (first, second) -> ((ZonedDateTime) first).isEqual((ZonedDateTime) second));
+        builtins.put(OffsetDateTime.class, (first, second) -> ((OffsetDateTime) first).isEqual((OffsetDateTime) second));
+        builtins.put(OffsetTime.class, (first, second) -> ((OffsetTime) first).isEqual((OffsetTime) second));
+        builtins.put(Instant.class, equals);
+        builtins.put(LocalDate.class, equals);
+        builtins.put(LocalDateTime.class, equals);
+        builtins.put(LocalTime.class, equals);
+        builtins.put(UUID.class, equals);
+        return builtins;
+    }
+
+    /**
+     * ClassValue 不能保存 null，解析结果需要包装一层
+     */
+    private static final class Resolved {
+        private final EqualityStrategy strategy;
+        /**
+         * 是否为注册的判断方式，而不是内置的
+         */
+        private final boolean custom;
+
+        Resolved(EqualityStrategy strategy, boolean custom) {
+            this.strategy = strategy;
+            this.custom = custom;
+        }
+    }
+}
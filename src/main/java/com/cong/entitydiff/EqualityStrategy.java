@@ -0,0 +1,16 @@
+package com.cong.entitydiff;
+
+/**
+ * 自定义的相等判断，用于 {@link DiffEquals} 指定某个属性的比对方式
+ * <p>
+ * 实现需要线程安全，并提供无参构造方法，同一个实现类在所有属性之间共享一个实例
+ */
+@FunctionalInterface
+public interface EqualityStrategy {
+    /**
+     * @param first  对象1的属性值，可能为 null
+     * @param second 对象2的属性值，可能为 null
+     * @return 两个值是否相等
+     */
+    boolean isEquals(Object first, Object second);
+}
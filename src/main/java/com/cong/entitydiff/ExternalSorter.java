@@ -0,0 +1,181 @@
+package com.cong.entitydiff;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 外部排序，用于比对未排序的大数据集
+ * <p>
+ * 输入每 chunkSize 个元素在内存中排序一次，超过一个批次时将排好序的批次通过 Java 序列化写入临时文件，
+ * 最后对所有批次做多路归并。内存中最多同时保留一个批次和每个临时文件的一个元素，元素必须实现 Serializable
+ *
+ * @param <T> 元素类型
+ */
+class ExternalSorter<T> {
+    /**
+     * 写入临时文件时每隔多少个元素重置一次对象流，避免读写两端的对象句柄表持有整个批次
+     */
+    private static final int RESET_INTERVAL = 256;
+
+    private final java.util.Comparator<? super T> order;
+    private final int chunkSize;
+    private final File tempDir;
+
+    ExternalSorter(java.util.Comparator<? super T> order, int chunkSize, File tempDir) {
+        this.order = order;
+        this.chunkSize = chunkSize;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 排序，返回的迭代器使用完后必须关闭以删除临时文件
+     */
+    SortedIterator<T> sort(Iterator<? extends T> input) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        try {
+            while (input.hasNext()) {
+                chunk.add(input.next());
+                if (chunk.size() >= chunkSize && input.hasNext()) {
+                    runs.add(spill(chunk));
+                    chunk.clear();
+                }
+            }
+            chunk.sort(order);
+            if (runs.isEmpty()) {
+                return new SortedIterator<>(chunk.iterator(), Collections.<RunReader<T>>emptyList(), order);
+            }
+            if (!chunk.isEmpty()) {
+                runs.add(spill(chunk));
+            }
+            List<RunReader<T>> readers = new ArrayList<>(runs.size());
+            for (Path run : runs) {
+                readers.add(new RunReader<T>(run));
+            }
+            return new SortedIterator<>(null, readers, order);
+        } catch (IOException | RuntimeException e) {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            throw e;
+        }
+    }
+
+    private Path spill(List<T> chunk) throws IOException {
+        chunk.sort(order);
+        Path run = tempDir == null ? Files.createTempFile("entitydiff-", ".run") : Files.createTempFile(tempDir.toPath(), "entitydiff-", ".run");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            out.writeInt(chunk.size());
+            int count = 0;
+            for (T element : chunk) {
+                out.writeObject(element);
+                if (++count % RESET_INTERVAL == 0) {
+                    out.reset();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(run);
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * 排好序的元素迭代器，超过一个批次时对所有临时文件做多路归并
+     */
+    static class SortedIterator<T> implements Iterator<T>, Closeable {
+        private final Iterator<T> memory;
+        private final List<RunReader<T>> readers;
+        private final PriorityQueue<RunReader<T>> heads;
+
+        SortedIterator(Iterator<T> memory, List<RunReader<T>> readers, java.util.Comparator<? super T> order) throws IOException {
+            this.memory = memory;
+            this.readers = readers;
+            this.heads = new PriorityQueue<>(Math.max(1, readers.size()), (a, b) -> order.compare(a.head, b.head));
+            for (RunReader<T> reader : readers) {
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return memory != null ? memory.hasNext() : !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (memory != null) {
+                return memory.next();
+            }
+            RunReader<T> reader = heads.poll();
+            if (reader == null) {
+                throw new NoSuchElementException();
+            }
+            T element = reader.head;
+            try {
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return element;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (RunReader<T> reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static class RunReader<T> implements Closeable {
+        private final Path run;
+        private final ObjectInputStream in;
+        private int remaining;
+        private T head;
+
+        RunReader(Path run) throws IOException {
+            this.run = run;
+            this.in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(run)));
+            this.remaining = in.readInt();
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            try {
+                head = (T) in.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("无法读取临时文件: " + run, e);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                in.close();
+            } finally {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+}
@@ -2,10 +2,9 @@ package com.cong.entitydiff;
 
 import java.lang.reflect.Field;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class FieldBaseComparator extends AbstractComparator {
-    private static final Map<Class<?>, Map<String, Field>> CACHE = new ConcurrentHashMap<>();
+    private static final MetadataCache CACHE = new ClassValueMetadataCache();
 
     public FieldBaseComparator() {
     }
@@ -44,69 +43,85 @@ public class FieldBaseComparator extends AbstractComparator {
         if (isSimpleField(first, second)) {
             return compareSimpleField(first, second);
         }
-        Set<String> allFieldNames;
         // 获取所有字段
-        Map<String, Field> firstFields = getAllFields(first);
-        Map<String, Field> secondFields = getAllFields(second);
-        // 根据 first 和 second 是否为 null，决定如何获取字段名集合
-        if (first == null) {
-            allFieldNames = secondFields.keySet();
-        } else if (second == null) {
-            allFieldNames = firstFields.keySet();
-        } else {
-            allFieldNames = getAllFieldNames(firstFields.keySet(), secondFields.keySet());
-        }
-        List<FieldInfo> diffFields = new LinkedList<>();
-
-        for (String fieldName : allFieldNames) {
-            try {
-                Field firstField = firstFields.getOrDefault(fieldName, null);
-                Field secondField = secondFields.getOrDefault(fieldName, null);
-                Object firstVal = null;
-                Class<?> firstType = null;
-                Class<?> secondType = null;
-                Object secondVal = null;
-                if (firstField != null) {
-                    firstField.setAccessible(true);
-                    firstVal = firstField.get(first);
-                    firstType = firstField.getType();
-                }
-                if (secondField != null) {
-                    secondField.setAccessible(true);
-                    secondVal = secondField.get(second);
-                    secondType = secondField.getType();
-                }
-                FieldInfo fieldInfo = new FieldInfo(fieldName, firstType, secondType, firstVal, secondVal);
-                if (!isFieldEquals(fieldInfo)) {
-                    diffFields.add(fieldInfo);
-                }
-            } catch (IllegalAccessException e) {
-                throw new IllegalStateException("获取属性进行比对发生异常: " + fieldName, e);
-            }
-        }
+        ClassPlan firstPlan = getAllFields(first);
+        ClassPlan secondPlan = getAllFields(second);
+        return compareProperties(first, firstPlan, second, secondPlan);
+    }
+
+    /**
+     * @return 所有 FieldBaseComparator 默认共享的类元数据缓存，可以用于手动失效
+     */
+    public static MetadataCache getDefaultMetadataCache() {
+        return CACHE;
+    }
 
-        return diffFields;
+    @Override
+    protected ClassPlan getClassPlan(Object obj) {
+        return getAllFields(obj);
     }
 
-    private Map<String, Field> getAllFields(Object obj) {
+    private ClassPlan getAllFields(Object obj) {
         if (obj == null) {
-            return Collections.emptyMap();
+            return ClassPlan.EMPTY;
+        }
+        return loadClassPlan(obj.getClass());
+    }
+
+    @Override
+    ClassPlan loadClassPlan(Class<?> type) {
+        return getCachedClassPlan(CACHE, type, FieldBaseComparator::scanFields);
+    }
+
+    @Override
+    void preloadClassPlan(Class<?> type, ClassPlan plan) {
+        getCachedClassPlan(CACHE, type, k -> plan);
+    }
+
+    @Override
+    String getMetadataKind() {
+        return "field";
+    }
+
+    @Override
+    int countMembers(Class<?> type) {
+        return declaredFields(type).size();
+    }
+
+    private static ClassPlan scanFields(Class<?> type) {
+        return new ClassPlan(type, fieldAccessors(type));
+    }
+
+    /**
+     * 扫描类及其父类中的所有字段，子类的字段在前
+     */
+    static List<PropertyAccessor> fieldAccessors(Class<?> type) {
+        Map<String, Field> fieldMap = declaredFields(type);
+        AccessorFactory factory = AccessorFactories.getDefault();
+        List<PropertyAccessor> accessors = new ArrayList<>(fieldMap.size());
+        for (Field field : fieldMap.values()) {
+            accessors.add(factory.forField(field));
         }
-        return CACHE.computeIfAbsent(obj.getClass(), k -> {
-            Map<String, Field> fieldMap = new HashMap<>(8);
-            Class<?> cls = k;
-            while (cls != Object.class) {
-                Field[] fields = cls.getDeclaredFields();
-                for (Field field : fields) {
-                    // 一些通过字节码注入改写类的框架会合成一些字段，如 jacoco 的 $jacocoData 字段
-                    // 正常情况下这些字段都需要被排除掉
-                    if (!field.isSynthetic()) {
-                        fieldMap.put(field.getName(), field);
-                    }
+        return accessors;
+    }
+
+    /**
+     * @return 字段名 -> 字段，同名时保留子类的
+     */
+    static Map<String, Field> declaredFields(Class<?> type) {
+        Map<String, Field> fieldMap = new LinkedHashMap<>(8);
+        Class<?> cls = type;
+        while (cls != Object.class) {
+            Field[] fields = cls.getDeclaredFields();
+            for (Field field : fields) {
+                // 一些通过字节码注入改写类的框架会合成一些字段，如 jacoco 的 $jacocoData 字段
+                // 正常情况下这些字段都需要被排除掉
+                if (!field.isSynthetic()) {
+                    fieldMap.put(field.getName(), field);
                 }
-                cls = cls.getSuperclass();
             }
-            return fieldMap;
-        });
+            cls = cls.getSuperclass();
+        }
+        return fieldMap;
     }
 }
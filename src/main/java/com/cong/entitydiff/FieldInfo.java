@@ -27,6 +27,10 @@ public class FieldInfo {
      * 第二个对象的值
      */
     private Object secondVal;
+    /**
+     * 字段在对象图中的完整路径，如 customer.address.zip，只在递归比对时设置
+     */
+    private String path;
 
     public FieldInfo() {
     }
@@ -92,4 +96,15 @@ public class FieldInfo {
     public void setSecondVal(Object secondVal) {
         this.secondVal = secondVal;
     }
+
+    /**
+     * @return 字段的完整路径，未设置时为字段名称
+     */
+    public String getPath() {
+        return path != null ? path : fieldName;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
 }
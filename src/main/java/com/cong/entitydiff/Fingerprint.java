@@ -0,0 +1,84 @@
+package com.cong.entitydiff;
+
+/**
+ * 对象的 128 位结构指纹，由 {@link AbstractComparator#fingerprint(Object)} 计算
+ * <p>
+ * 两个同类对象的指纹相同时，除哈希碰撞和按误差比对且 NaN 与 NaN 不相等的属性外，同一个比对器的 getDiffFields 一定为空，可以跳过完整比对；
+ * 指纹不同时通常有差异，但按容差、自定义方式比对的属性即使相等指纹也可能不同，需要再做一次完整比对确认。
+ * 指纹与属性的声明顺序无关。属性值由基本类型、String、枚举、数值、时间以及它们组成的数组、集合和嵌套实体构成时，
+ * 指纹跨 JVM 稳定，可以与记录一起保存；有 {@link DiffIdentity} 标注的属性，或者属性值的类型没有覆盖 hashCode、
+ * hashCode 依赖运行时状态时，指纹只在同一个 JVM 中有效，不能持久化。
+ * 数值、BigDecimal、UUID、日期时间等常用值类型按完整内容计算哈希；其他类型只有 32 位的 hashCode，
+ * 这类属性的值不同但 hashCode 相同时指纹也相同。
+ * 只需要 64 位时可以使用 {@link #toLong()}，碰撞的概率相应增大
+ */
+public final class Fingerprint {
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * 从 {@link #toString()} 的结果解析
+     *
+     * @param hex 32 位十六进制字符串
+     */
+    public static Fingerprint parse(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("指纹必须是 32 位十六进制字符串: " + hex);
+        }
+        try {
+            return new Fingerprint(Long.parseUnsignedLong(hex.substring(0, 16), 16), Long.parseUnsignedLong(hex.substring(16), 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("指纹必须是 32 位十六进制字符串: " + hex, e);
+        }
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * @return 64 位指纹
+     */
+    public long toLong() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint other = (Fingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    @Override
+    public String toString() {
+        return pad(Long.toHexString(high)) + pad(Long.toHexString(low));
+    }
+
+    private static String pad(String hex) {
+        StringBuilder sb = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        return sb.append(hex).toString();
+    }
+}
@@ -0,0 +1,412 @@
+package com.cong.entitydiff;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+/**
+ * 按比对器的比对计划计算结构指纹，每次计算创建一个实例
+ * <p>
+ * 每个属性的名称和值的哈希混合后累加到两个 64 位通道，累加与顺序无关，因此指纹不依赖字段或 getter 的扫描顺序。
+ * 值的哈希与比对方式保持一致：比对方式认为不同的两个值哈希值不同（除碰撞外），例如 BigDecimal 去掉末尾的 0、
+ * 带时区的时间取时间点；比对方式比 equals 宽松的（容差、注册的判断方式）退回到 hashCode，只会让指纹变得保守。
+ * 递归比对时嵌套的实体、数组、集合按结构计算，深度和循环引用的处理与 {@link DiffContext} 一致。
+ * String、枚举、数值、BigInteger、BigDecimal、UUID、日期时间等常用的值类型按完整内容计算 64 位哈希，跨 JVM 稳定，
+ * 不会退化为只有 32 位的 hashCode；按引用比对的属性使用 identityHashCode，其他类型使用 hashCode，
+ * 没有覆盖 hashCode 的类型的哈希值只在同一个 JVM 中有效
+ */
+final class Fingerprinter {
+    private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+    private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+    private static final long MULTIPLIER = 0xFF51AFD7ED558CCDL;
+    private static final long NULL_HASH = 0x5A5A5A5A5A5A5A5AL;
+    private static final long TRUE_HASH = 0x2545F4914F6CDD1DL;
+    private static final long FALSE_HASH = 0x1B873593CC9E2D51L;
+    /**
+     * 循环引用回到正在计算的对象时使用的哈希值
+     */
+    private static final long CYCLE_HASH = 0x3C6EF372FE94F82BL;
+
+    private final AbstractComparator comparator;
+    private final EqualityRegistry registry;
+    /**
+     * 是否按结构计算嵌套的实体、数组和集合
+     */
+    private final boolean recursive;
+    private final int maxDepth;
+    /**
+     * 当前路径上正在计算的对象，只在按结构计算时使用
+     */
+    private final Map<Object, Boolean> visiting;
+    private int depth;
+
+    Fingerprinter(AbstractComparator comparator) {
+        this(comparator, comparator.isRecursive());
+    }
+
+    /**
+     * @param structural 是否不论比对器是否递归，都按结构计算嵌套的值，用于发现原地修改
+     */
+    Fingerprinter(AbstractComparator comparator, boolean structural) {
+        this.comparator = comparator;
+        this.registry = comparator.getEqualityRegistry();
+        this.recursive = structural;
+        this.maxDepth = comparator.getMaxDepth();
+        this.visiting = recursive ? new IdentityHashMap<>() : null;
+    }
+
+    Fingerprint fingerprint(Object obj) {
+        if (obj == null) {
+            return new Fingerprint(SEED_HIGH, SEED_LOW);
+        }
+        if (comparator.isSimpleField(obj, null)) {
+            long hash = valueHash(obj);
+            return new Fingerprint(mix(hash ^ SEED_HIGH), mix(hash + SEED_LOW));
+        }
+        ClassPlan classPlan = comparator.getClassPlan(obj);
+        if (classPlan == null) {
+            throw new IllegalStateException("比对器不支持指纹: " + comparator.getClass().getName());
+        }
+        if (visiting != null) {
+            visiting.put(obj, Boolean.TRUE);
+        }
+        long[] lanes = entityHash(obj, classPlan);
+        return new Fingerprint(lanes[0], lanes[1]);
+    }
+
+    /**
+     * @return 一个属性值的 64 位哈希，按结构计算时包含嵌套的实体、数组和集合的内容
+     */
+    long hash(Object value) {
+        return valueHash(value);
+    }
+
+    /**
+     * @return 两个通道的哈希值
+     */
+    private long[] entityHash(Object obj, ClassPlan classPlan) {
+        ComparePlan plan = comparator.getComparePlan(classPlan, classPlan);
+        long high = 0;
+        long low = 0;
+        for (int i = 0, size = plan.size(); i < size; i++) {
+            PropertyAccessor accessor = plan.getFirstAccessor(i);
+            PropertyPolicy policy = plan.getPolicy(i);
+            long hash;
+            if (policy == null && accessor.sort != PropertyAccessor.NOT_PRIMITIVE) {
+                hash = accessor.getBits(obj);
+            } else if (policy == null) {
+                hash = valueHash(accessor.get(obj));
+            } else {
+                hash = policyHash(policy, accessor.get(obj));
+            }
+            long name = stringHash(plan.getName(i));
+            high += mix(name ^ mix(hash ^ SEED_HIGH));
+            low += mix(name * MULTIPLIER + mix(hash + SEED_LOW));
+        }
+        long type = stringHash(obj.getClass().getName());
+        return new long[]{mix(high ^ type), mix(low + type * MULTIPLIER)};
+    }
+
+    private long policyHash(PropertyPolicy policy, Object value) {
+        switch (policy.getMode()) {
+            case IDENTITY:
+                return value == null ? NULL_HASH : System.identityHashCode(value);
+            case CUSTOM:
+                // 自定义的判断方式不一定与内置的一致，只能使用 equals 对应的 hashCode
+                return equalsHash(value);
+            case TOLERANCE:
+                return toleranceHash(policy.getTolerance(), value);
+            default:
+                return valueHash(value);
+        }
+    }
+
+    /**
+     * 误差比对通常比数值相等宽松，精度敏感的 BigDecimal 按未缩放的值和精度计算。
+     * NaN 与 NaN 不相等时 NaN 仍使用固定的哈希值，保证同一个对象的指纹稳定，两个都是 NaN 的对象指纹相同但比对结果不相等
+     */
+    private long toleranceHash(NumericTolerance tolerance, Object value) {
+        if (tolerance.isScaleSensitive() && value instanceof BigDecimal) {
+            return decimalHash((BigDecimal) value);
+        }
+        return valueHash(value);
+    }
+
+    /**
+     * 与比对器对这个值的比对方式一致的哈希值
+     */
+    private long valueHash(Object value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        if (recursive && depth < maxDepth) {
+            if (value instanceof Object[] || value instanceof Collection || value instanceof Map) {
+                return nested(value, null);
+            }
+            if (!comparator.isSimpleField(value, null)) {
+                ClassPlan classPlan = comparator.getClassPlan(value);
+                if (classPlan != null) {
+                    return nested(value, classPlan);
+                }
+            }
+        }
+        Class<?> type = value.getClass();
+        if (registry.isCustom(type)) {
+            return equalsHash(value);
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? 0 : decimalHash(decimal.stripTrailingZeros());
+        } else if (value instanceof Object[]) {
+            long hash = 1;
+            for (Object element : (Object[]) value) {
+                hash = sequence(hash, valueHash(element));
+            }
+            return hash;
+        } else if (type.isArray()) {
+            return primitiveArrayHash(value);
+        } else if (value instanceof Set) {
+            // 两个 Set 按 equals 判断是否包含，与顺序无关
+            long hash = 0;
+            for (Object element : (Set<?>) value) {
+                hash += mix(equalsHash(element));
+            }
+            return hash;
+        } else if (value instanceof Collection) {
+            long hash = 1;
+            for (Object element : (Collection<?>) value) {
+                hash = sequence(hash, valueHash(element));
+            }
+            return hash;
+        } else if (value instanceof Map) {
+            return mapHash((Map<?, ?>) value);
+        }
+        return contentHash(value);
+    }
+
+    /**
+     * 递归计算嵌套的值
+     *
+     * @param classPlan 嵌套实体的类元数据，数组和集合为 null
+     */
+    private long nested(Object value, ClassPlan classPlan) {
+        if (visiting.put(value, Boolean.TRUE) != null) {
+            return CYCLE_HASH;
+        }
+        depth++;
+        try {
+            if (classPlan != null) {
+                long[] lanes = entityHash(value, classPlan);
+                return lanes[0] ^ lanes[1];
+            }
+            if (value instanceof Map) {
+                return mapHash((Map<?, ?>) value);
+            }
+            Iterable<?> elements = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Collection<?>) value;
+            if (value instanceof Set) {
+                long hash = 0;
+                for (Object element : elements) {
+                    hash += mix(valueHash(element));
+                }
+                return hash;
+            }
+            long hash = 1;
+            for (Object element : elements) {
+                hash = sequence(hash, valueHash(element));
+            }
+            return hash;
+        } finally {
+            depth--;
+            visiting.remove(value);
+        }
+    }
+
+    /**
+     * Map 按键查找，键使用 equals 对应的哈希值，与顺序无关
+     */
+    private long mapHash(Map<?, ?> map) {
+        long hash = map.size();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            hash += mix(equalsHash(entry.getKey()) ^ mix(valueHash(entry.getValue())));
+        }
+        return hash;
+    }
+
+    /**
+     * Set 元素和 Map 的键使用的哈希值，与 equals 一致，BigDecimal 区分精度
+     */
+    private static long equalsHash(Object value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        return value instanceof BigDecimal ? decimalHash((BigDecimal) value) : contentHash(value);
+    }
+
+    /**
+     * 常用值类型的完整内容的 64 位哈希，相等的值哈希相同；其他类型使用 hashCode
+     */
+    private static long contentHash(Object value) {
+        if (value instanceof String) {
+            return stringHash((String) value);
+        } else if (value instanceof Enum) {
+            return enumHash((Enum<?>) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Double) {
+            return Double.doubleToLongBits((Double) value);
+        } else if (value instanceof Float) {
+            return Float.floatToIntBits((Float) value);
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE_HASH : FALSE_HASH;
+        } else if (value instanceof Character) {
+            return (Character) value;
+        } else if (value instanceof BigDecimal) {
+            return decimalHash((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            return integerHash((BigInteger) value);
+        } else if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            return pair(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } else if (value instanceof Timestamp) {
+            return pair(((Timestamp) value).getTime(), ((Timestamp) value).getNanos());
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value instanceof Instant) {
+            return instantHash((Instant) value);
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            return pair(dateTime.toLocalDate().toEpochDay(), dateTime.toLocalTime().toNanoOfDay());
+        } else if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay();
+        } else if (value instanceof LocalTime) {
+            return ((LocalTime) value).toNanoOfDay();
+        } else if (value instanceof ZonedDateTime) {
+            return instantHash(((ZonedDateTime) value).toInstant());
+        } else if (value instanceof OffsetDateTime) {
+            return instantHash(((OffsetDateTime) value).toInstant());
+        } else if (value instanceof OffsetTime) {
+            OffsetTime time = (OffsetTime) value;
+            return time.toLocalTime().toNanoOfDay() - time.getOffset().getTotalSeconds() * 1_000_000_000L;
+        } else if (value instanceof Duration) {
+            return pair(((Duration) value).getSeconds(), ((Duration) value).getNano());
+        }
+        return value.hashCode();
+    }
+
+    private static long instantHash(Instant instant) {
+        return pair(instant.getEpochSecond(), instant.getNano());
+    }
+
+    /**
+     * 按未缩放的值和精度计算，与 equals 一致
+     */
+    private static long decimalHash(BigDecimal decimal) {
+        return pair(integerHash(decimal.unscaledValue()), decimal.scale());
+    }
+
+    /**
+     * 能放入 long 的值直接使用，否则对补码的全部字节计算 64 位 FNV-1a
+     */
+    private static long integerHash(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return value.longValue();
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.toByteArray()) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 合并两个 64 位的值，第一个值相同时不同的第二个值哈希一定不同
+     */
+    private static long pair(long first, long second) {
+        return mix(mix(first) ^ second);
+    }
+
+    /**
+     * 枚举的 hashCode 基于引用，每次启动都不同，按类名和名称计算
+     */
+    private static long enumHash(Enum<?> value) {
+        return stringHash(value.getDeclaringClass().getName()) * 31 + stringHash(value.name());
+    }
+
+    /**
+     * 按元素的原始位计算 64 位哈希，Arrays.hashCode 只有 32 位
+     */
+    private static long primitiveArrayHash(Object array) {
+        long hash = 1;
+        if (array instanceof int[]) {
+            for (int element : (int[]) array) {
+                hash = sequence(hash, element);
+            }
+        } else if (array instanceof long[]) {
+            for (long element : (long[]) array) {
+                hash = sequence(hash, element);
+            }
+        } else if (array instanceof byte[]) {
+            for (byte element : (byte[]) array) {
+                hash = sequence(hash, element);
+            }
+        } else if (array instanceof char[]) {
+            for (char element : (char[]) array) {
+                hash = sequence(hash, element);
+            }
+        } else if (array instanceof short[]) {
+            for (short element : (short[]) array) {
+                hash = sequence(hash, element);
+            }
+        } else if (array instanceof boolean[]) {
+            for (boolean element : (boolean[]) array) {
+                hash = sequence(hash, element ? TRUE_HASH : FALSE_HASH);
+            }
+        } else if (array instanceof float[]) {
+            for (float element : (float[]) array) {
+                hash = sequence(hash, Float.floatToIntBits(element));
+            }
+        } else {
+            for (double element : (double[]) array) {
+                hash = sequence(hash, Double.doubleToLongBits(element));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 按顺序合并元素的哈希，元素先经过 mix，避免 hash * 31 + element 对小整数的确定性碰撞，
+     * 例如 [1, 32] 与 [2, 1]
+     */
+    private static long sequence(long hash, long element) {
+        return hash * MULTIPLIER + mix(element);
+    }
+
+    /**
+     * 64 位 FNV-1a，String 的 hashCode 只有 32 位
+     */
+    private static long stringHash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * MurmurHash3 的 fmix64
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= MULTIPLIER;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
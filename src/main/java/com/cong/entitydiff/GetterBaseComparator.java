@@ -1,10 +1,8 @@
 package com.cong.entitydiff;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 基于 getter 方法比对两个对象
@@ -15,9 +13,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class GetterBaseComparator extends AbstractComparator {
     private static final String GET = "get";
     private static final String IS = "is";
-    private static final String GET_IS = "get|is";
     private static final String GET_CLASS = "getClass";
-    private static final Map<Class<?>, Map<String, Method>> CACHE = new ConcurrentHashMap<>();
+    private static final MetadataCache CACHE = new ClassValueMetadataCache();
 
 
     public GetterBaseComparator() {
@@ -68,77 +65,101 @@ public class GetterBaseComparator extends AbstractComparator {
         if (isSimpleField(first, second)) {
             return compareSimpleField(first, second);
         }
-        Set<String> allFieldNames;
         // 获取所有字段
-        Map<String, Method> firstGetters = getAllGetters(first);
-        Map<String, Method> secondGetters = getAllGetters(second);
-        if (first == null) {
-            allFieldNames = secondGetters.keySet();
-        } else if (second == null) {
-            allFieldNames = firstGetters.keySet();
-        } else {
-            allFieldNames = getAllFieldNames(firstGetters.keySet(), secondGetters.keySet());
-        }
-        List<FieldInfo> diffFields = new LinkedList<>();
-        for (String fieldName : allFieldNames) {
-            try {
-                Method firstGetterMethod = firstGetters.getOrDefault(fieldName, null);
-                Method secondGetterMethod = secondGetters.getOrDefault(fieldName, null);
-                Object firstVal = firstGetterMethod != null ? firstGetterMethod.invoke(first) : null;
-                Object secondVal = secondGetterMethod != null ? secondGetterMethod.invoke(second) : null;
-                FieldInfo fieldInfo = new FieldInfo(fieldName, getReturnType(firstGetterMethod), getReturnType(secondGetterMethod));
-                fieldInfo.setFirstVal(firstVal);
-                fieldInfo.setSecondVal(secondVal);
-                if (!isFieldEquals(fieldInfo)) {
-                    diffFields.add(fieldInfo);
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new IllegalStateException("获取属性进行比对发生异常: " + fieldName, e);
-            }
-        }
-        return diffFields;
+        ClassPlan firstPlan = getAllGetters(first);
+        ClassPlan secondPlan = getAllGetters(second);
+        return compareProperties(first, firstPlan, second, secondPlan);
     }
 
-    private Class<?> getReturnType(Method method) {
-        return method == null ? null : method.getReturnType();
+    /**
+     * @return 所有 GetterBaseComparator 默认共享的类元数据缓存，可以用于手动失效
+     */
+    public static MetadataCache getDefaultMetadataCache() {
+        return CACHE;
     }
 
-
     /**
      * 获取类中的所有 getter 方法
      *
-     * @return key -> fieldName, value -> getter
+     * @return 由 getter 访问器构成的类元数据
      */
-    private Map<String, Method> getAllGetters(Object obj) {
+    @Override
+    protected ClassPlan getClassPlan(Object obj) {
+        return getAllGetters(obj);
+    }
+
+    private ClassPlan getAllGetters(Object obj) {
         if (obj == null) {
-            return Collections.emptyMap();
+            return ClassPlan.EMPTY;
+        }
+        return loadClassPlan(obj.getClass());
+    }
+
+    @Override
+    ClassPlan loadClassPlan(Class<?> type) {
+        return getCachedClassPlan(CACHE, type, GetterBaseComparator::scanGetters);
+    }
+
+    @Override
+    void preloadClassPlan(Class<?> type, ClassPlan plan) {
+        getCachedClassPlan(CACHE, type, k -> plan);
+    }
+
+    @Override
+    String getMetadataKind() {
+        return "getter";
+    }
+
+    @Override
+    int countMembers(Class<?> type) {
+        return getterMethods(type).size();
+    }
+
+    private static ClassPlan scanGetters(Class<?> type) {
+        return new ClassPlan(type, getterAccessors(type));
+    }
+
+    /**
+     * 扫描类及其父类中所有 public 的无参 get 和 is 方法
+     */
+    static List<PropertyAccessor> getterAccessors(Class<?> type) {
+        Map<String, Method> getters = getterMethods(type);
+        AccessorFactory factory = AccessorFactories.getDefault();
+        List<PropertyAccessor> accessors = new ArrayList<>(getters.size());
+        for (Map.Entry<String, Method> entry : getters.entrySet()) {
+            accessors.add(factory.forGetter(entry.getKey(), entry.getValue()));
         }
-        return CACHE.computeIfAbsent(obj.getClass(), k -> {
-            Class<?> clazz = obj.getClass();
-            Map<String, Method> getters = new LinkedHashMap<>(8);
-            while (clazz != Object.class) {
-                Method[] methods = clazz.getDeclaredMethods();
-                for (Method method : methods) {
-                    // getter 方法必须是 public 且没有参数的
-                    if (!Modifier.isPublic(method.getModifiers()) || method.getParameterTypes().length > 0) {
-                        continue;
-                    }
-                    if ((method.getReturnType() == Boolean.class || method.getReturnType() == boolean.class) && method.getName().startsWith(IS)) {
-                        //返回值是 boolean 的 getter 方法为 isXxx 的写法兼容
-                        String fieldName = uncapitalize(method.getName().substring(2));
-                        getters.put(fieldName, method);
-                        continue;
-                    }
-                    //以 get 开头但排除 getClass 方法
-                    if (method.getName().startsWith(GET) && !GET_CLASS.equals(method.getName())) {
-                        String fieldName = uncapitalize(method.getName().replaceFirst(GET_IS, ""));
-                        getters.put(fieldName, method);
-                    }
+        return accessors;
+    }
+
+    /**
+     * @return 属性名 -> getter，同名时保留子类的
+     */
+    static Map<String, Method> getterMethods(Class<?> type) {
+        Class<?> clazz = type;
+        Map<String, Method> getters = new LinkedHashMap<>(8);
+        while (clazz != Object.class) {
+            Method[] methods = clazz.getDeclaredMethods();
+            for (Method method : methods) {
+                // getter 方法必须是 public 且没有参数的
+                if (!Modifier.isPublic(method.getModifiers()) || method.getParameterTypes().length > 0) {
+                    continue;
+                }
+                if ((method.getReturnType() == Boolean.class || method.getReturnType() == boolean.class) && method.getName().startsWith(IS)) {
+                    //返回值是 boolean 的 getter 方法为 isXxx 的写法兼容
+                    String fieldName = uncapitalize(method.getName().substring(2));
+                    getters.put(fieldName, method);
+                    continue;
+                }
+                //以 get 开头但排除 getClass 方法
+                if (method.getName().startsWith(GET) && !GET_CLASS.equals(method.getName())) {
+                    String fieldName = uncapitalize(method.getName().substring(GET.length()));
+                    getters.put(fieldName, method);
                 }
-                clazz = clazz.getSuperclass(); //得到父类,然后赋给自己
             }
-            return getters;
-        });
+            clazz = clazz.getSuperclass(); //得到父类,然后赋给自己
+        }
+        return getters;
     }
 
     /**
@@ -146,7 +167,7 @@ public class GetterBaseComparator extends AbstractComparator {
      * <p>
      * 用于使首字母小写
      */
-    private String uncapitalize(final String str) {
+    private static String uncapitalize(final String str) {
         int strLen;
         if (str == null || (strLen = str.length()) == 0) {
             return str;
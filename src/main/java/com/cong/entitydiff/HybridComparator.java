@@ -0,0 +1,189 @@
+package com.cong.entitydiff;
+
+import java.util.*;
+
+/**
+ * 混合比对器，每个属性选择开销最小又安全的访问方式：有字段时直接读字段，只有 getter 的属性才调用 getter
+ * <p>
+ * 读字段不会经过 getter 中的懒加载或计算逻辑，只有 getter 的计算属性仍然参与比对。
+ * CGLIB、Javassist、ByteBuddy 等框架生成的代理类自身的字段是空的，只能通过 getter 读取；
+ * Hibernate 的代理已经初始化时换成被代理的对象比对，没有初始化时按实体类和标识比对，不会触发加载。
+ * 作为属性值时，代理与代理、代理与实体都按实体类和标识比对，不会调用代理的 equals，也不会沿着代理继续比对属性，
+ * 代理的标识由 Hibernate 提供，实体的标识取 {@link DiffKey} 标注的属性或名为 id 的属性，没有标识的实体只与自身相等。
+ * 所有 HybridComparator 共享一份类元数据缓存和比对计划
+ */
+public class HybridComparator extends AbstractComparator {
+    private static final MetadataCache CACHE = new ClassValueMetadataCache();
+    /**
+     * 注册了 Hibernate 代理判断方式的注册表，所有实例共享，没有使用 Hibernate 时为 null
+     */
+    private static final EqualityRegistry PROXY_REGISTRY = ProxySupport.HIBERNATE_PROXY == null ? null
+            : EqualityRegistry.defaults().withProxy(ProxySupport.HIBERNATE_PROXY, HybridComparator::isProxyEquals);
+    /**
+     * 只用于读取实体的类元数据以获取标识，必须在 PROXY_REGISTRY 之后初始化
+     */
+    private static final HybridComparator PLANS = new HybridComparator();
+
+    public HybridComparator() {
+        useProxyRegistry();
+    }
+
+    /**
+     * @param bothExistFieldOnly 是否只对比两个类都包含的字段
+     */
+    public HybridComparator(boolean bothExistFieldOnly) {
+        super(bothExistFieldOnly);
+        useProxyRegistry();
+    }
+
+    /**
+     * 指定包含或排除某些字段
+     *
+     * @param includeFields 包含字段，若为 null 或空集，则不指定
+     * @param excludeFields 排除字段，若为 null 或空集，则不指定
+     */
+    public HybridComparator(List<String> includeFields, List<String> excludeFields) {
+        super(includeFields, excludeFields);
+        useProxyRegistry();
+    }
+
+    /**
+     * 指定包含或排除某些字段
+     *
+     * @param includeFields      包含字段，若为 null 或空集，则不指定
+     * @param excludeFields      排除字段，若为 null 或空集，则不指定
+     * @param bothExistFieldOnly 是否只对比两个类都包含的字段，默认为 true
+     */
+    public HybridComparator(List<String> includeFields, List<String> excludeFields, boolean bothExistFieldOnly) {
+        super(includeFields, excludeFields, bothExistFieldOnly);
+        useProxyRegistry();
+    }
+
+    @Override
+    public boolean isEquals(Object first, Object second) {
+        return super.isEquals(ProxySupport.unwrapInitialized(first), ProxySupport.unwrapInitialized(second));
+    }
+
+    /**
+     * 获取不相等的属性
+     *
+     * @param first  对象1
+     * @param second 对象2
+     * @return 不相等的属性
+     */
+    @Override
+    public List<FieldInfo> getDiffFields(Object first, Object second) {
+        first = ProxySupport.unwrapInitialized(first);
+        second = ProxySupport.unwrapInitialized(second);
+        if (first == second) {
+            return Collections.emptyList();
+        }
+        if (isSimpleField(first, second)) {
+            return compareSimpleField(first, second);
+        }
+        return compareProperties(first, getClassPlan(first), second, getClassPlan(second));
+    }
+
+    @Override
+    public List<FieldInfo> getDiffFields(Object first, Object second, DiffMemo memo) {
+        return super.getDiffFields(ProxySupport.unwrapInitialized(first), ProxySupport.unwrapInitialized(second), memo);
+    }
+
+    /**
+     * @return 所有 HybridComparator 默认共享的类元数据缓存，可以用于手动失效
+     */
+    public static MetadataCache getDefaultMetadataCache() {
+        return CACHE;
+    }
+
+    @Override
+    protected ClassPlan getClassPlan(Object obj) {
+        if (obj == null) {
+            return ClassPlan.EMPTY;
+        }
+        return loadClassPlan(obj.getClass());
+    }
+
+    @Override
+    ClassPlan loadClassPlan(Class<?> type) {
+        return getCachedClassPlan(CACHE, type, HybridComparator::scanProperties);
+    }
+
+    @Override
+    void preloadClassPlan(Class<?> type, ClassPlan plan) {
+        getCachedClassPlan(CACHE, type, k -> plan);
+    }
+
+    @Override
+    String getMetadataKind() {
+        return "hybrid";
+    }
+
+    /**
+     * 字段和 getter 分别计数，新增与已有 getter 同名的字段时属性改为读字段，数量同样会变化
+     */
+    @Override
+    int countMembers(Class<?> type) {
+        if (ProxySupport.isProxyClass(type)) {
+            return GetterBaseComparator.getterMethods(ProxySupport.getUserClass(type)).size();
+        }
+        return FieldBaseComparator.declaredFields(type).size() + GetterBaseComparator.getterMethods(type).size();
+    }
+
+    private static ClassPlan scanProperties(Class<?> type) {
+        if (ProxySupport.isProxyClass(type)) {
+            // 代理对象的字段没有被赋值，按实体类的 getter 读取
+            return new ClassPlan(type, GetterBaseComparator.getterAccessors(ProxySupport.getUserClass(type)));
+        }
+        List<PropertyAccessor> accessors = FieldBaseComparator.fieldAccessors(type);
+        Set<String> names = new HashSet<>();
+        for (PropertyAccessor accessor : accessors) {
+            names.add(accessor.getName());
+        }
+        for (PropertyAccessor getter : GetterBaseComparator.getterAccessors(type)) {
+            if (names.add(getter.getName())) {
+                accessors.add(getter);
+            }
+        }
+        return new ClassPlan(type, accessors);
+    }
+
+    /**
+     * Hibernate 的代理作为整体比对，避免读取属性时触发加载。共享同一个注册表，比对计划也在实例之间共享
+     */
+    private void useProxyRegistry() {
+        if (PROXY_REGISTRY != null) {
+            setEqualityRegistry(PROXY_REGISTRY);
+        }
+    }
+
+    /**
+     * 两个值中至少有一个是 Hibernate 代理，按实体类和标识比对。
+     * 不比对被代理对象的属性，代理之间互相引用时不会无限递归，也不会触发加载
+     */
+    private static boolean isProxyEquals(Object first, Object second) {
+        if (ProxySupport.unwrapInitialized(first) == ProxySupport.unwrapInitialized(second)) {
+            return true;
+        }
+        if (ProxySupport.getUserClass(first.getClass()) != ProxySupport.getUserClass(second.getClass())) {
+            return false;
+        }
+        Object identifier = identifierOf(first);
+        return identifier != null && identifier.equals(identifierOf(second));
+    }
+
+    /**
+     * @return 代理或实体的标识，实体没有 {@link DiffKey} 标注的属性和 id 属性时返回 null
+     */
+    private static Object identifierOf(Object obj) {
+        if (ProxySupport.isHibernateProxyClass(obj.getClass())) {
+            return ProxySupport.getIdentifier(obj);
+        }
+        ClassPlan plan = PLANS.getClassPlan(obj);
+        if (plan.getKeyExtractor() != null) {
+            return plan.getKeyExtractor().apply(obj);
+        }
+        PropertyAccessor id = plan.getAccessor("id");
+        return id == null ? null : id.get(obj);
+    }
+}
@@ -0,0 +1,28 @@
+package com.cong.entitydiff;
+
+/**
+ * 按引用判断相等的一对对象
+ */
+final class IdentityPair {
+    private final Object first;
+    private final Object second;
+
+    IdentityPair(Object first, Object second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IdentityPair)) {
+            return false;
+        }
+        IdentityPair other = (IdentityPair) o;
+        return first == other.first && second == other.second;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(first) + System.identityHashCode(second);
+    }
+}
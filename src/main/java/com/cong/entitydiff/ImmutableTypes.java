@@ -0,0 +1,78 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 不可变类型的判断，不可变对象之间的递归比对结果可以由 {@link DiffMemo} 复用
+ * <p>
+ * 标注了 {@link DiffImmutable} 的类直接视为不可变；否则要求类及其父类的所有实例字段都是 final，
+ * 并且字段的声明类型是基本类型、枚举、String 等 JDK 中已知不可变的类型，或者按同样的规则不可变的类。
+ * 集合、数组、接口和 JDK 中其他的类型无法确认，视为可变。判断结果按类缓存在 ClassValue 中
+ */
+final class ImmutableTypes {
+    private static final Set<Class<?>> JDK_IMMUTABLE = new HashSet<>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class, Class.class, Locale.class, Currency.class));
+
+    /**
+     * 正在判断中的类。字段类型引用回这些类时结果还不确定，按可变处理，
+     * 否则循环中先算完的类会基于一个可能不成立的假设被缓存；这样的类需要标注 {@link DiffImmutable}
+     */
+    private static final ThreadLocal<Set<Class<?>>> IN_PROGRESS = ThreadLocal.withInitial(HashSet::new);
+
+    private static final ClassValue<Boolean> IMMUTABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            Set<Class<?>> inProgress = IN_PROGRESS.get();
+            inProgress.add(type);
+            try {
+                return classify(type);
+            } finally {
+                inProgress.remove(type);
+            }
+        }
+    };
+
+    private ImmutableTypes() {
+    }
+
+    /**
+     * @param type 对象的实际类型
+     * @return 是否不可变
+     */
+    static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE.get(type);
+    }
+
+    private static boolean classify(Class<?> type) {
+        if (type.isAnnotationPresent(DiffImmutable.class)) {
+            return true;
+        }
+        if (type.isPrimitive() || type.isEnum() || JDK_IMMUTABLE.contains(type) || type.getName().startsWith("java.time.")) {
+            return true;
+        }
+        if (type.isArray() || type.isInterface() || SimpleTypes.isSimple(type)) {
+            return false;
+        }
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                if (!Modifier.isFinal(modifiers)) {
+                    return false;
+                }
+                Class<?> fieldType = field.getType();
+                if (IN_PROGRESS.get().contains(fieldType) || !isImmutable(fieldType)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
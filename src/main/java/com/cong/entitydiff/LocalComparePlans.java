@@ -0,0 +1,74 @@
+package com.cong.entitydiff;
+
+/**
+ * 比对器实例自己的比对计划缓存，用于不能在比对器之间共享的配置
+ * <p>
+ * 注册表按引用区分，每次 registerEquality 都会产生新的注册表。这样的比对计划如果写入共享的类元数据，
+ * 每创建一个比对器都会在类元数据上留下一组再也用不到的比对计划。这里的比对计划通过 ClassValue 挂在类上，
+ * 比对器被回收后随之回收；对象1的类元数据被淘汰后重新加载时整体丢弃
+ */
+final class LocalComparePlans {
+    private final EqualityRegistry registry;
+    private final ClassValue<Slot> slots = new SlotValue();
+
+    LocalComparePlans(EqualityRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return 是否为这个注册表缓存的比对计划，包含和排除等其他配置已经在比对计划的键中
+     */
+    boolean isFor(EqualityRegistry registry) {
+        return this.registry == registry;
+    }
+
+    /**
+     * @param host 对象1的类元数据，对象1为 null 时为对象2的类元数据
+     */
+    ComparePlan get(ClassPlan host, Object config, ClassPlan other) {
+        Bound bound = slots.get(host.getType()).bound;
+        return bound != null && bound.host == host ? bound.plans.get(config, other) : null;
+    }
+
+    /**
+     * @return 缓存中的比对计划
+     */
+    ComparePlan put(ClassPlan host, Object config, ClassPlan other, ComparePlan plan) {
+        Slot slot = slots.get(host.getType());
+        Bound bound;
+        synchronized (slot) {
+            bound = slot.bound;
+            if (bound == null || bound.host != host) {
+                bound = new Bound(host);
+                slot.bound = bound;
+            }
+        }
+        return bound.plans.put(config, other, plan);
+    }
+
+    /**
+     * 使用静态内部类，避免挂在各个类上的值引用比对器
+     */
+    private static final class SlotValue extends ClassValue<Slot> {
+        @Override
+        protected Slot computeValue(Class<?> type) {
+            return new Slot();
+        }
+    }
+
+    private static final class Slot {
+        volatile Bound bound;
+    }
+
+    /**
+     * 按某个类元数据构建的比对计划
+     */
+    private static final class Bound {
+        private final ClassPlan host;
+        private final ComparePlans plans = new ComparePlans();
+
+        Bound(ClassPlan host) {
+            this.host = host;
+        }
+    }
+}
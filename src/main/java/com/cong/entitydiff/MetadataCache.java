@@ -0,0 +1,45 @@
+package com.cong.entitydiff;
+
+import java.util.function.Function;
+
+/**
+ * 类元数据缓存，保存比对器扫描类得到的 {@link ClassPlan}
+ * <p>
+ * 缓存命中是比对的热点路径，实现应保证命中时不加锁。默认实现为 {@link ClassValueMetadataCache}，
+ * 不持有类的强引用，类加载器被卸载后对应的元数据随之回收
+ *
+ * @see AbstractComparator#setMetadataCache(MetadataCache)
+ */
+public interface MetadataCache {
+    /**
+     * @param type 类型
+     * @return 缓存的元数据，不存在时返回 null
+     */
+    ClassPlan get(Class<?> type);
+
+    /**
+     * 获取元数据，不存在时通过 loader 扫描类并放入缓存，同一个类并发加载时只扫描一次
+     *
+     * @param type   类型
+     * @param loader 扫描类生成元数据
+     * @return 元数据
+     */
+    ClassPlan computeIfAbsent(Class<?> type, Function<Class<?>, ClassPlan> loader);
+
+    /**
+     * 移除一个类的元数据，下次比对时重新扫描
+     *
+     * @param type 类型
+     */
+    void invalidate(Class<?> type);
+
+    /**
+     * 移除所有元数据
+     */
+    void invalidateAll();
+
+    /**
+     * @return 缓存中的类数量
+     */
+    int size();
+}
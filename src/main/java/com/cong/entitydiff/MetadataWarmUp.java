@@ -0,0 +1,383 @@
+package com.cong.entitydiff;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * 类元数据预热，用于消除每个类第一次比对时扫描字段或 getter 带来的延迟毛刺
+ * <p>
+ * 可以在启动时扫描一个包或指定的类并行构建元数据；也可以把解析好的属性列表保存为快照文件，
+ * 之后启动时直接按快照中记录的字段名或方法名定位属性，不再扫描类的全部成员。
+ * 快照记录属性对应的成员以及扫描时找到的候选成员数量，加载时找不到成员或者数量不一致的类会被跳过，第一次比对时再扫描，
+ * 这样类在保存快照之后新增、删除或重命名了属性都不会使用过期的属性列表；属性的类型和注解在加载时从成员上重新读取
+ *
+ * <pre>{@code
+ * List<Class<?>> types = MetadataWarmUp.scanPackage("com.example.model");
+ * MetadataWarmUp.warmUp(types, fieldComparator, getterComparator);
+ * }</pre>
+ */
+public final class MetadataWarmUp {
+    private static final int MAGIC = 0x45445053;
+    private static final int VERSION = 2;
+    private static final int FIELD = 0;
+    private static final int GETTER = 1;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private MetadataWarmUp() {
+    }
+
+    /**
+     * 使用当前线程的上下文类加载器扫描包及其子包中的类
+     *
+     * @see #scanPackage(String, ClassLoader)
+     */
+    public static List<Class<?>> scanPackage(String packageName) throws IOException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return scanPackage(packageName, loader != null ? loader : MetadataWarmUp.class.getClassLoader());
+    }
+
+    /**
+     * 扫描包及其子包中的类，支持目录和 jar 包，类不会被初始化。
+     * 接口、注解、枚举、匿名类和局部类不参与比对，会被跳过，无法加载的类也会被跳过
+     *
+     * @param packageName 包名
+     * @param loader      类加载器
+     * @return 扫描到的类，按类名排序
+     */
+    public static List<Class<?>> scanPackage(String packageName, ClassLoader loader) throws IOException {
+        String path = packageName.replace('.', '/');
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> resources = loader.getResources(path);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if ("file".equals(url.getProtocol())) {
+                scanDirectory(url, packageName, classNames);
+            } else if ("jar".equals(url.getProtocol())) {
+                scanJar(url, path, classNames);
+            }
+        }
+        List<Class<?>> types = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            Class<?> type = loadClass(className, loader);
+            if (type != null && isComparable(type)) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private static void scanDirectory(URL url, String packageName, Set<String> classNames) throws IOException {
+        Path root;
+        try {
+            root = Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("无法解析类路径: " + url, e);
+        }
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(file -> file.toString().endsWith(CLASS_SUFFIX)).forEach(file -> {
+                String relative = root.relativize(file).toString().replace(File.separatorChar, '.');
+                classNames.add(prefix + relative.substring(0, relative.length() - CLASS_SUFFIX.length()));
+            });
+        }
+    }
+
+    private static void scanJar(URL url, String path, Set<String> classNames) throws IOException {
+        JarURLConnection connection = (JarURLConnection) url.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+            String prefix = path.isEmpty() ? "" : path + "/";
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && name.endsWith(CLASS_SUFFIX)) {
+                    classNames.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+                }
+            }
+        }
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader loader) {
+        if (className.endsWith("module-info") || className.endsWith("package-info")) {
+            return null;
+        }
+        try {
+            return Class.forName(className, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            // 缺少可选依赖的类无法加载，跳过
+            return null;
+        }
+    }
+
+    private static boolean isComparable(Class<?> type) {
+        return !type.isInterface() && !type.isAnnotation() && !type.isEnum() && !type.isAnonymousClass()
+                && !type.isLocalClass() && !type.isSynthetic();
+    }
+
+    /**
+     * 使用 ForkJoinPool.commonPool() 并行构建类元数据，以及同类型对象之间的比对计划
+     *
+     * @param types       需要预热的类
+     * @param comparators 需要预热的比对器，字段比对器和 getter 比对器的元数据是分开缓存的
+     * @return 构建成功的 (类, 比对器) 数量，无法扫描的类会被跳过
+     */
+    public static int warmUp(Collection<? extends Class<?>> types, AbstractComparator... comparators) {
+        AtomicInteger warmed = new AtomicInteger();
+        types.parallelStream().forEach(type -> {
+            for (AbstractComparator comparator : comparators) {
+                try {
+                    ClassPlan plan = comparator.loadClassPlan(type);
+                    if (plan != null) {
+                        comparator.getComparePlan(plan, plan);
+                        warmed.incrementAndGet();
+                    }
+                } catch (LinkageError e) {
+                    // 字段或方法签名引用了缺失的类，第一次比对时同样会失败，这里跳过
+                }
+            }
+        });
+        return warmed.get();
+    }
+
+    /**
+     * 构建类元数据并保存为快照文件
+     *
+     * @param file       快照文件
+     * @param types      需要保存的类
+     * @param comparator 比对器，快照只能加载到同一种比对器中
+     */
+    public static void save(Path file, Collection<? extends Class<?>> types, AbstractComparator comparator) throws IOException {
+        String kind = requireKind(comparator);
+        warmUp(types, comparator);
+        List<ClassPlan> plans = new ArrayList<>(types.size());
+        List<Integer> memberCounts = new ArrayList<>(types.size());
+        for (Class<?> type : types) {
+            try {
+                // 已经预热过，这里从缓存中取出
+                ClassPlan plan = comparator.loadClassPlan(type);
+                if (plan != null && hasMembers(plan)) {
+                    memberCounts.add(comparator.countMembers(type));
+                    plans.add(plan);
+                }
+            } catch (LinkageError e) {
+                // 与预热一样跳过引用了缺失的类的类
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(kind);
+            Map<String, Integer> strings = new HashMap<>();
+            writeVarInt(out, plans.size());
+            for (int c = 0; c < plans.size(); c++) {
+                ClassPlan plan = plans.get(c);
+                writeString(out, plan.getType().getName(), strings);
+                writeVarInt(out, memberCounts.get(c));
+                writeVarInt(out, plan.size());
+                for (int i = 0; i < plan.size(); i++) {
+                    PropertyAccessor accessor = plan.getAccessor(i);
+                    Member member = accessor.getMember();
+                    writeString(out, member.getDeclaringClass().getName(), strings);
+                    if (member instanceof Field) {
+                        out.writeByte(FIELD);
+                        writeString(out, member.getName(), strings);
+                    } else {
+                        out.writeByte(GETTER);
+                        writeString(out, member.getName(), strings);
+                        writeString(out, accessor.getName(), strings);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 从快照文件恢复类元数据并放入比对器的缓存，已经在缓存中的类保持不变
+     *
+     * @param file       快照文件
+     * @param comparator 比对器
+     * @param loader     加载快照中的类使用的类加载器
+     * @return 恢复成功的类数量，找不到的类或保存快照之后成员发生变化的类会被跳过
+     */
+    public static int load(Path file, AbstractComparator comparator, ClassLoader loader) throws IOException {
+        String kind = requireKind(comparator);
+        List<SnapshotEntry> entries;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("不是有效的元数据快照文件: " + file);
+            }
+            String fileKind = in.readUTF();
+            if (!kind.equals(fileKind)) {
+                throw new IllegalArgumentException("快照的类型为 " + fileKind + "，与比对器的类型 " + kind + " 不匹配");
+            }
+            List<String> strings = new ArrayList<>();
+            int classCount = readVarInt(in);
+            entries = new ArrayList<>(classCount);
+            for (int c = 0; c < classCount; c++) {
+                String className = readString(in, strings);
+                int memberCount = readVarInt(in);
+                SnapshotEntry entry = new SnapshotEntry(className, memberCount, readVarInt(in));
+                for (int i = 0; i < entry.declaringClasses.length; i++) {
+                    entry.declaringClasses[i] = readString(in, strings);
+                    entry.getters[i] = in.readByte() == GETTER;
+                    entry.memberNames[i] = readString(in, strings);
+                    entry.propertyNames[i] = entry.getters[i] ? readString(in, strings) : entry.memberNames[i];
+                }
+                entries.add(entry);
+            }
+        }
+        AtomicInteger loaded = new AtomicInteger();
+        entries.parallelStream().forEach(entry -> {
+            ClassPlan plan = entry.resolve(loader, comparator);
+            if (plan != null) {
+                comparator.preloadClassPlan(plan.getType(), plan);
+                comparator.getComparePlan(plan, plan);
+                loaded.incrementAndGet();
+            }
+        });
+        return loaded.get();
+    }
+
+    private static String requireKind(AbstractComparator comparator) {
+        String kind = comparator.getMetadataKind();
+        if (kind == null) {
+            throw new IllegalArgumentException("比对器不支持元数据快照: " + comparator.getClass().getName());
+        }
+        return kind;
+    }
+
+    /**
+     * 自定义访问器工厂创建的访问器可能没有记录成员，这样的类不写入快照
+     */
+    private static boolean hasMembers(ClassPlan plan) {
+        for (int i = 0; i < plan.size(); i++) {
+            Member member = plan.getAccessor(i).getMember();
+            if (!(member instanceof Field) && !(member instanceof Method)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字符串池，第一次出现时写入 0 和字符串本身，之后只写入序号
+     */
+    private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarInt(out, index);
+        } else {
+            strings.put(value, strings.size() + 1);
+            writeVarInt(out, 0);
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        int index = readVarInt(in);
+        if (index == 0) {
+            String value = in.readUTF();
+            strings.add(value);
+            return value;
+        }
+        if (index > strings.size()) {
+            throw new IOException("元数据快照文件已损坏");
+        }
+        return strings.get(index - 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("元数据快照文件已损坏");
+    }
+
+    /**
+     * 快照中的一个类
+     */
+    private static final class SnapshotEntry {
+        private final String className;
+        private final int memberCount;
+        private final String[] declaringClasses;
+        private final boolean[] getters;
+        private final String[] memberNames;
+        private final String[] propertyNames;
+
+        SnapshotEntry(String className, int memberCount, int size) {
+            this.className = className;
+            this.memberCount = memberCount;
+            this.declaringClasses = new String[size];
+            this.getters = new boolean[size];
+            this.memberNames = new String[size];
+            this.propertyNames = new String[size];
+        }
+
+        /**
+         * 按记录的成员名直接定位属性
+         *
+         * @return 类元数据，类已经不存在或者属性发生了变化时返回 null
+         */
+        ClassPlan resolve(ClassLoader loader, AbstractComparator comparator) {
+            try {
+                Class<?> type = Class.forName(className, false, loader);
+                if (comparator.countMembers(type) != memberCount) {
+                    return null;
+                }
+                AccessorFactory factory = AccessorFactories.getDefault();
+                List<PropertyAccessor> accessors = new ArrayList<>(declaringClasses.length);
+                Class<?> declaring = null;
+                for (int i = 0; i < declaringClasses.length; i++) {
+                    if (declaring == null || !declaring.getName().equals(declaringClasses[i])) {
+                        declaring = findDeclaringClass(type, declaringClasses[i]);
+                    }
+                    if (getters[i]) {
+                        Method getter = declaring.getDeclaredMethod(memberNames[i]);
+                        if (!Modifier.isPublic(getter.getModifiers())) {
+                            return null;
+                        }
+                        accessors.add(factory.forGetter(propertyNames[i], getter));
+                    } else {
+                        accessors.add(factory.forField(declaring.getDeclaredField(memberNames[i])));
+                    }
+                }
+                return new ClassPlan(type, accessors);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // 类已经变化，第一次比对时重新扫描
+                return null;
+            }
+        }
+
+        private static Class<?> findDeclaringClass(Class<?> type, String name) throws ClassNotFoundException {
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                if (cls.getName().equals(name)) {
+                    return cls;
+                }
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.cong.entitydiff;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于 MethodHandle 的访问器工厂，默认实现
+ * <p>
+ * 每个属性只在第一次创建访问器时做一次访问检查，之后的读取都是直接调用，
+ * 基本类型属性额外生成一个不装箱的 MethodHandle。
+ * 如果因为访问权限等原因无法创建 MethodHandle，则退回 {@link ReflectionAccessorFactory}
+ */
+public class MethodHandleAccessorFactory implements AccessorFactory {
+    public static final MethodHandleAccessorFactory INSTANCE = new MethodHandleAccessorFactory();
+    private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class);
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    @Override
+    public PropertyAccessor forField(Field field) {
+        MethodHandle handle;
+        try {
+            field.setAccessible(true);
+            handle = lookup.unreflectGetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return ReflectionAccessorFactory.INSTANCE.forField(field);
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            // 静态字段的 MethodHandle 没有参数，补一个忽略的目标对象参数
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return new HandleAccessor(field.getName(), field.getType(), field, handle);
+    }
+
+    @Override
+    public PropertyAccessor forGetter(String propertyName, Method getter) {
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflect(getter);
+        } catch (IllegalAccessException e) {
+            try {
+                // public 方法声明在非 public 类中时需要打开访问权限
+                getter.setAccessible(true);
+                handle = lookup.unreflect(getter);
+            } catch (IllegalAccessException | RuntimeException ex) {
+                return ReflectionAccessorFactory.INSTANCE.forGetter(propertyName, getter);
+            }
+        }
+        return new HandleAccessor(propertyName, getter.getReturnType(), getter, handle);
+    }
+
+    private static class HandleAccessor extends PropertyAccessor {
+        /**
+         * 类型为 (Object)Object
+         */
+        private final MethodHandle generic;
+        /**
+         * 类型为 (Object)基本类型，非基本类型属性为 null
+         */
+        private final MethodHandle primitive;
+
+        HandleAccessor(String name, Class<?> type, Member member, MethodHandle handle) {
+            super(name, type, member);
+            this.generic = handle.asType(GENERIC);
+            this.primitive = type.isPrimitive() ? handle.asType(MethodType.methodType(type, Object.class)) : null;
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return generic.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            try {
+                return (boolean) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public byte getByte(Object target) {
+            try {
+                return (byte) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public char getChar(Object target) {
+            try {
+                return (char) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public short getShort(Object target) {
+            try {
+                return (short) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object target) {
+            try {
+                return (int) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object target) {
+            try {
+                return (long) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object target) {
+            try {
+                return (float) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return (double) primitive.invokeExact(target);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.cong.entitydiff;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * 数值比对的误差策略，可以通过 {@link AbstractComparator#setNumericTolerance(NumericTolerance)} 对比对器的所有浮点数和 BigDecimal 属性生效，
+ * 也可以通过 {@link DiffTolerance} 注解对单个属性生效
+ * <p>
+ * 两个数值相等，或者满足绝对误差、相对误差、ULP 距离中任意一个条件时视为相等：
+ * <ul>
+ * <li>绝对误差：|a - b| &lt;= absolute</li>
+ * <li>相对误差：|a - b| &lt;= relative * max(|a|, |b|)</li>
+ * <li>ULP 距离：两个值之间可以表示的浮点数个数不超过 ulps，float 按 float 的精度计算</li>
+ * </ul>
+ * 按数值比对，0.0 与 -0.0 相等；两个 NaN 默认相等，可以改为不相等。BigDecimal 默认忽略精度，1.0 与 1.00 相等，
+ * 可以改为精度不同即不相等；ULP 距离对 BigDecimal 和整数不生效，整数按 long 精确比对，不转换为 double。
+ * 基本类型的属性直接读取原始值比对，不装箱。对象不可变，可以在多个比对器之间共享
+ */
+public final class NumericTolerance {
+    /**
+     * 不允许误差，只改变 NaN、0.0 与 -0.0 和 BigDecimal 精度的处理方式时可以从这里开始
+     */
+    public static final NumericTolerance EXACT = new NumericTolerance(0, 0, 0, true, false);
+
+    private final double absolute;
+    private final double relative;
+    private final long ulps;
+    private final boolean nanEquals;
+    private final boolean scaleSensitive;
+    private final BigDecimal absoluteDecimal;
+    private final BigDecimal relativeDecimal;
+
+    private NumericTolerance(double absolute, double relative, long ulps, boolean nanEquals, boolean scaleSensitive) {
+        if (!(absolute >= 0) || !(relative >= 0) || ulps < 0) {
+            throw new IllegalArgumentException("误差不能为负数: absolute=" + absolute + ", relative=" + relative + ", ulps=" + ulps);
+        }
+        this.absolute = absolute;
+        this.relative = relative;
+        this.ulps = ulps;
+        this.nanEquals = nanEquals;
+        this.scaleSensitive = scaleSensitive;
+        this.absoluteDecimal = absolute > 0 && !Double.isInfinite(absolute) ? BigDecimal.valueOf(absolute) : null;
+        this.relativeDecimal = relative > 0 && !Double.isInfinite(relative) ? BigDecimal.valueOf(relative) : null;
+    }
+
+    /**
+     * @param absolute 允许的绝对误差
+     */
+    public static NumericTolerance absolute(double absolute) {
+        return EXACT.withAbsolute(absolute);
+    }
+
+    /**
+     * @param relative 允许的相对误差，如 1e-9
+     */
+    public static NumericTolerance relative(double relative) {
+        return EXACT.withRelative(relative);
+    }
+
+    /**
+     * @param ulps 允许的 ULP 距离
+     */
+    public static NumericTolerance ulps(long ulps) {
+        return EXACT.withUlps(ulps);
+    }
+
+    public NumericTolerance withAbsolute(double absolute) {
+        return new NumericTolerance(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    public NumericTolerance withRelative(double relative) {
+        return new NumericTolerance(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    public NumericTolerance withUlps(long ulps) {
+        return new NumericTolerance(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    /**
+     * @param nanEquals 两个 NaN 是否相等
+     */
+    public NumericTolerance withNanEquals(boolean nanEquals) {
+        return new NumericTolerance(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    /**
+     * @param scaleSensitive BigDecimal 的精度不同时是否不相等
+     */
+    public NumericTolerance withScaleSensitive(boolean scaleSensitive) {
+        return new NumericTolerance(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    public double getAbsolute() {
+        return absolute;
+    }
+
+    public double getRelative() {
+        return relative;
+    }
+
+    public long getUlps() {
+        return ulps;
+    }
+
+    public boolean isNanEquals() {
+        return nanEquals;
+    }
+
+    public boolean isScaleSensitive() {
+        return scaleSensitive;
+    }
+
+    public boolean isEquals(double first, double second) {
+        if (first == second) {
+            return true;
+        }
+        if (first != first || second != second) {
+            // 至少一个是 NaN
+            return nanEquals && first != first && second != second;
+        }
+        double diff = Math.abs(first - second);
+        return diff <= absolute
+                || relative > 0 && diff <= relative * Math.max(Math.abs(first), Math.abs(second))
+                || ulps > 0 && ulpDistance(first, second) <= ulps;
+    }
+
+    public boolean isEquals(float first, float second) {
+        if (first == second) {
+            return true;
+        }
+        if (first != first || second != second) {
+            return nanEquals && first != first && second != second;
+        }
+        double diff = Math.abs((double) first - second);
+        return diff <= absolute
+                || relative > 0 && diff <= relative * Math.max(Math.abs(first), Math.abs(second))
+                || ulps > 0 && ulpDistance(first, second) <= ulps;
+    }
+
+    public boolean isEquals(long first, long second) {
+        if (first == second) {
+            return true;
+        }
+        long diff = first - second;
+        if (((first ^ second) & (first ^ diff)) < 0) {
+            // 差值超出 long 的范围，很少出现，按 BigDecimal 精确计算
+            return isEquals(BigDecimal.valueOf(first), BigDecimal.valueOf(second));
+        }
+        diff = Math.abs(diff);
+        // 整数之差不超过误差等价于不超过误差向下取整，2^63 以上的误差大于任何不溢出的差值
+        return isWithin(diff, absolute)
+                || relative > 0 && isWithin(diff, relative * Math.max(Math.abs((double) first), Math.abs((double) second)));
+    }
+
+    private static boolean isWithin(long diff, double bound) {
+        return bound >= 0x1p63 || diff <= (long) bound;
+    }
+
+    public boolean isEquals(BigDecimal first, BigDecimal second) {
+        if (scaleSensitive && first.scale() != second.scale()) {
+            return false;
+        }
+        if (first.compareTo(second) == 0) {
+            return true;
+        }
+        if (Double.isInfinite(absolute) || Double.isInfinite(relative)) {
+            return true;
+        }
+        BigDecimal diff = first.subtract(second).abs();
+        return absoluteDecimal != null && diff.compareTo(absoluteDecimal) <= 0
+                || relativeDecimal != null && diff.compareTo(first.abs().max(second.abs()).multiply(relativeDecimal)) <= 0;
+    }
+
+    /**
+     * 按实际类型比对两个值，float 按 float 比对，Long、Integer、Short、Byte 按 long 比对，
+     * 其他数值转换为 double 比对，不是数值时按 equals 比对
+     */
+    public boolean isEquals(Object first, Object second) {
+        if (first == second) {
+            return true;
+        }
+        if (first instanceof BigDecimal && second instanceof BigDecimal) {
+            return isEquals((BigDecimal) first, (BigDecimal) second);
+        }
+        if (first instanceof Float && second instanceof Float) {
+            return isEquals((float) (Float) first, (float) (Float) second);
+        }
+        if (isIntegral(first) && isIntegral(second)) {
+            return isEquals(((Number) first).longValue(), ((Number) second).longValue());
+        }
+        if (first instanceof Number && second instanceof Number) {
+            return isEquals(((Number) first).doubleValue(), ((Number) second).doubleValue());
+        }
+        return Objects.equals(first, second);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * 符号相同时两个值的位表示之差就是中间可以表示的浮点数个数，符号不同时是两个值到 0 的距离之和
+     */
+    private static long ulpDistance(double first, double second) {
+        long a = Double.doubleToRawLongBits(first);
+        long b = Double.doubleToRawLongBits(second);
+        if ((a ^ b) >= 0) {
+            return Math.abs(a - b);
+        }
+        long distance = (a & Long.MAX_VALUE) + (b & Long.MAX_VALUE);
+        return distance < 0 ? Long.MAX_VALUE : distance;
+    }
+
+    private static long ulpDistance(float first, float second) {
+        int a = Float.floatToRawIntBits(first);
+        int b = Float.floatToRawIntBits(second);
+        if ((a ^ b) >= 0) {
+            return Math.abs((long) a - b);
+        }
+        return (long) (a & Integer.MAX_VALUE) + (b & Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NumericTolerance)) {
+            return false;
+        }
+        NumericTolerance other = (NumericTolerance) o;
+        return Double.compare(absolute, other.absolute) == 0 && Double.compare(relative, other.relative) == 0
+                && ulps == other.ulps && nanEquals == other.nanEquals && scaleSensitive == other.scaleSensitive;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(absolute, relative, ulps, nanEquals, scaleSensitive);
+    }
+
+    @Override
+    public String toString() {
+        return "NumericTolerance{absolute=" + absolute + ", relative=" + relative + ", ulps=" + ulps
+                + ", nanEquals=" + nanEquals + ", scaleSensitive=" + scaleSensitive + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.cong.entitydiff;
+
+import java.util.List;
+
+/**
+ * 一对对象的比对结果
+ *
+ * @param <F> 对象1的类型
+ * @param <S> 对象2的类型
+ */
+public class PairDiff<F, S> {
+    private final DiffPair<F, S> pair;
+    private final List<FieldInfo> diffFields;
+
+    public PairDiff(DiffPair<F, S> pair, List<FieldInfo> diffFields) {
+        this.pair = pair;
+        this.diffFields = diffFields;
+    }
+
+    public DiffPair<F, S> getPair() {
+        return pair;
+    }
+
+    public Object getKey() {
+        return pair.getKey();
+    }
+
+    public F getFirst() {
+        return pair.getFirst();
+    }
+
+    public S getSecond() {
+        return pair.getSecond();
+    }
+
+    /**
+     * @return 不相等的属性
+     */
+    public List<FieldInfo> getDiffFields() {
+        return diffFields;
+    }
+
+    /**
+     * @return 两个对象是否全相等
+     */
+    public boolean isEquals() {
+        return diffFields == null || diffFields.isEmpty();
+    }
+}
@@ -0,0 +1,225 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.Member;
+
+/**
+ * 属性访问器，封装对某个类的一个属性（field 或 getter）的读取
+ * <p>
+ * 访问器在类第一次被比对时创建并缓存在 {@link ClassPlan} 中，之后的比对不再需要反射查找。
+ * 对于基本类型的属性，可以通过 getInt/getLong 等方法直接读取，避免装箱。
+ */
+public abstract class PropertyAccessor {
+    static final int NOT_PRIMITIVE = 0;
+    static final int BOOLEAN = 1;
+    static final int BYTE = 2;
+    static final int CHAR = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+
+    /**
+     * 属性名称
+     */
+    private final String name;
+    /**
+     * 属性类型，field 的类型或 getter 的返回值类型
+     */
+    private final Class<?> type;
+    /**
+     * 基本类型的编号，用于比对时快速分派，非基本类型为 {@link #NOT_PRIMITIVE}
+     */
+    final int sort;
+    /**
+     * 读取的 field 或 getter，用于生成元数据快照，可以为 null
+     */
+    private final Member member;
+
+    protected PropertyAccessor(String name, Class<?> type) {
+        this(name, type, null);
+    }
+
+    /**
+     * @param member 读取的 field 或 getter 方法
+     */
+    protected PropertyAccessor(String name, Class<?> type, Member member) {
+        this.name = name;
+        this.type = type;
+        this.sort = sortOf(type);
+        this.member = member;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return 读取的 field 或 getter 方法，自定义的访问器可能为 null
+     */
+    public Member getMember() {
+        return member;
+    }
+
+    /**
+     * 读取属性值，基本类型会被装箱
+     *
+     * @param target 目标对象
+     * @return 属性值
+     */
+    public abstract Object get(Object target);
+
+    /**
+     * 以下基本类型读取方法只在 {@link #getType()} 为对应的基本类型时可用，
+     * 默认实现为拆箱 {@link #get(Object)} 的结果，子类应覆盖以避免装箱
+     */
+    public boolean getBoolean(Object target) {
+        return (Boolean) get(target);
+    }
+
+    public byte getByte(Object target) {
+        return (Byte) get(target);
+    }
+
+    public char getChar(Object target) {
+        return (Character) get(target);
+    }
+
+    public short getShort(Object target) {
+        return (Short) get(target);
+    }
+
+    public int getInt(Object target) {
+        return (Integer) get(target);
+    }
+
+    public long getLong(Object target) {
+        return (Long) get(target);
+    }
+
+    public float getFloat(Object target) {
+        return (Float) get(target);
+    }
+
+    public double getDouble(Object target) {
+        return (Double) get(target);
+    }
+
+    /**
+     * 比对两个对象上同一基本类型属性的值，不装箱
+     * <p>
+     * 调用方需保证 {@code this.sort == other.sort} 且不为 {@link #NOT_PRIMITIVE}，
+     * 浮点数的比较方式与 {@link Double#equals(Object)} 一致，即 NaN 与 NaN 相等，0.0 与 -0.0 不等
+     */
+    boolean isPrimitiveEquals(Object first, PropertyAccessor other, Object second) {
+        switch (sort) {
+            case BOOLEAN:
+                return getBoolean(first) == other.getBoolean(second);
+            case BYTE:
+                return getByte(first) == other.getByte(second);
+            case CHAR:
+                return getChar(first) == other.getChar(second);
+            case SHORT:
+                return getShort(first) == other.getShort(second);
+            case INT:
+                return getInt(first) == other.getInt(second);
+            case LONG:
+                return getLong(first) == other.getLong(second);
+            case FLOAT:
+                return Float.floatToIntBits(getFloat(first)) == Float.floatToIntBits(other.getFloat(second));
+            case DOUBLE:
+                return Double.doubleToLongBits(getDouble(first)) == Double.doubleToLongBits(other.getDouble(second));
+            default:
+                throw new IllegalArgumentException("非基本类型属性: " + name);
+        }
+    }
+
+    /**
+     * 把基本类型属性的值读取为 long，不装箱，两个值的 long 相等当且仅当 {@link #isPrimitiveEquals} 认为相等
+     */
+    long getBits(Object target) {
+        switch (sort) {
+            case BOOLEAN:
+                return getBoolean(target) ? 1 : 0;
+            case BYTE:
+                return getByte(target);
+            case CHAR:
+                return getChar(target);
+            case SHORT:
+                return getShort(target);
+            case INT:
+                return getInt(target);
+            case LONG:
+                return getLong(target);
+            case FLOAT:
+                return Float.floatToIntBits(getFloat(target));
+            case DOUBLE:
+                return Double.doubleToLongBits(getDouble(target));
+            default:
+                throw new IllegalArgumentException("非基本类型属性: " + name);
+        }
+    }
+
+    /**
+     * 把 {@link #getBits(Object)} 的结果还原为装箱后的值
+     */
+    Object fromBits(long bits) {
+        switch (sort) {
+            case BOOLEAN:
+                return bits != 0;
+            case BYTE:
+                return (byte) bits;
+            case CHAR:
+                return (char) bits;
+            case SHORT:
+                return (short) bits;
+            case INT:
+                return (int) bits;
+            case LONG:
+                return bits;
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                throw new IllegalArgumentException("非基本类型属性: " + name);
+        }
+    }
+
+    private static int sortOf(Class<?> type) {
+        if (type == null || !type.isPrimitive()) {
+            return NOT_PRIMITIVE;
+        } else if (type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == byte.class) {
+            return BYTE;
+        } else if (type == char.class) {
+            return CHAR;
+        } else if (type == short.class) {
+            return SHORT;
+        } else if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == float.class) {
+            return FLOAT;
+        } else if (type == double.class) {
+            return DOUBLE;
+        }
+        return NOT_PRIMITIVE;
+    }
+
+    /**
+     * 读取属性时发生的异常统一包装为 IllegalStateException
+     */
+    IllegalStateException wrap(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException("获取属性进行比对发生异常: " + name, e);
+    }
+}
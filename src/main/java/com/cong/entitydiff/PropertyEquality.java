@@ -0,0 +1,35 @@
+package com.cong.entitydiff;
+
+/**
+ * 比对计划中一个属性的相等判断，构建比对计划时按属性的声明类型从 {@link EqualityRegistry} 解析
+ * <p>
+ * 两个值的实际类型都等于声明类型时直接使用解析好的判断方式，否则按实际类型到注册表中分派
+ */
+final class PropertyEquality {
+    /**
+     * 两个对象上属性的声明类型，声明类型不同时为 null
+     */
+    private final Class<?> type;
+    private final EqualityStrategy strategy;
+    private final EqualityRegistry registry;
+
+    PropertyEquality(EqualityRegistry registry, Class<?> firstType, Class<?> secondType) {
+        Class<?> declared = firstType == null ? secondType : secondType == null || secondType == firstType ? firstType : null;
+        this.type = declared == null || declared.isPrimitive() ? null : declared;
+        this.strategy = type == null ? null : registry.getStrategy(type);
+        this.registry = registry;
+    }
+
+    boolean isEquals(Object first, Object second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null) {
+            return false;
+        }
+        if (type != null && first.getClass() == type && second.getClass() == type) {
+            return strategy != null ? strategy.isEquals(first, second) : registry.defaultEquals(first, second);
+        }
+        return registry.isEquals(first, second);
+    }
+}
@@ -0,0 +1,179 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+/**
+ * 属性上的注解编译成的比对策略，在构建类元数据时生成，比对时不再读取注解
+ *
+ * @see DiffIgnore
+ * @see DiffIdentity
+ * @see DiffEquals
+ * @see DiffTolerance
+ */
+final class PropertyPolicy {
+    static final PropertyPolicy IGNORE = new PropertyPolicy(Mode.IGNORE, null, null);
+
+    /**
+     * 自定义相等判断的实例，每个实现类只创建一次
+     */
+    private static final ClassValue<EqualityStrategy> STRATEGIES = new ClassValue<EqualityStrategy>() {
+        @Override
+        protected EqualityStrategy computeValue(Class<?> type) {
+            try {
+                return (EqualityStrategy) type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("无法创建相等判断: " + type.getName(), e);
+            }
+        }
+    };
+
+    enum Mode {
+        IGNORE, IDENTITY, CUSTOM, TOLERANCE
+    }
+
+    private final Mode mode;
+    private final EqualityStrategy strategy;
+    private final NumericTolerance tolerance;
+
+    private PropertyPolicy(Mode mode, EqualityStrategy strategy, NumericTolerance tolerance) {
+        this.mode = mode;
+        this.strategy = strategy;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * 读取属性上的注解，getter 上没有注解时读取同名字段上的注解
+     *
+     * @param type     属性所在的类
+     * @param accessor 属性访问器
+     * @return 比对策略，没有注解时返回 null
+     */
+    static PropertyPolicy of(Class<?> type, PropertyAccessor accessor) {
+        Member member = accessor.getMember();
+        if (!(member instanceof AnnotatedElement)) {
+            return null;
+        }
+        PropertyPolicy policy = of((AnnotatedElement) member);
+        if (policy == null && member instanceof Method) {
+            Field field = findField(type, accessor.getName());
+            policy = field == null ? null : of(field);
+        }
+        return policy;
+    }
+
+    private static PropertyPolicy of(AnnotatedElement element) {
+        if (element.getAnnotations().length == 0) {
+            return null;
+        }
+        if (element.isAnnotationPresent(DiffIgnore.class)) {
+            return IGNORE;
+        }
+        if (element.isAnnotationPresent(DiffIdentity.class)) {
+            return new PropertyPolicy(Mode.IDENTITY, null, null);
+        }
+        DiffEquals equals = element.getAnnotation(DiffEquals.class);
+        if (equals != null) {
+            return new PropertyPolicy(Mode.CUSTOM, STRATEGIES.get(equals.value()), null);
+        }
+        DiffTolerance tolerance = element.getAnnotation(DiffTolerance.class);
+        if (tolerance != null) {
+            try {
+                return tolerance(NumericTolerance.absolute(tolerance.value()).withRelative(tolerance.relative()).withUlps(tolerance.ulps())
+                        .withNanEquals(tolerance.nanEquals()).withScaleSensitive(tolerance.scaleSensitive()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("误差不能为负数: " + element, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 比对器上设置的数值误差编译成的策略
+     */
+    static PropertyPolicy tolerance(NumericTolerance tolerance) {
+        return new PropertyPolicy(Mode.TOLERANCE, null, tolerance);
+    }
+
+    static boolean isKey(Class<?> type, PropertyAccessor accessor) {
+        Member member = accessor.getMember();
+        if (!(member instanceof AnnotatedElement)) {
+            return false;
+        }
+        if (((AnnotatedElement) member).isAnnotationPresent(DiffKey.class)) {
+            return true;
+        }
+        Field field = member instanceof Method ? findField(type, accessor.getName()) : null;
+        return field != null && field.isAnnotationPresent(DiffKey.class);
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            try {
+                return cls.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // 继续向父类查找
+            }
+        }
+        return null;
+    }
+
+    boolean isIgnore() {
+        return mode == Mode.IGNORE;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    NumericTolerance getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * 两个属性是否可以不装箱按误差比对，即都是同一种数值基本类型
+     */
+    boolean isPrimitiveTolerance(PropertyAccessor first, PropertyAccessor second) {
+        return mode == Mode.TOLERANCE && first != null && second != null && first.sort == second.sort && isNumericSort(first.sort);
+    }
+
+    private static boolean isNumericSort(int sort) {
+        return sort != PropertyAccessor.NOT_PRIMITIVE && sort != PropertyAccessor.BOOLEAN && sort != PropertyAccessor.CHAR;
+    }
+
+    /**
+     * 不装箱按误差比对两个基本类型属性，调用方需保证 {@link #isPrimitiveTolerance} 为 true
+     */
+    boolean isPrimitiveEquals(Object first, PropertyAccessor firstAccessor, Object second, PropertyAccessor secondAccessor) {
+        switch (firstAccessor.sort) {
+            case PropertyAccessor.DOUBLE:
+                return tolerance.isEquals(firstAccessor.getDouble(first), secondAccessor.getDouble(second));
+            case PropertyAccessor.FLOAT:
+                return tolerance.isEquals(firstAccessor.getFloat(first), secondAccessor.getFloat(second));
+            default:
+                // 整数的 getBits 就是数值本身，按 long 精确比对
+                return tolerance.isEquals(firstAccessor.getBits(first), secondAccessor.getBits(second));
+        }
+    }
+
+    /**
+     * 按策略比对两个属性值
+     */
+    boolean isEquals(Object first, Object second) {
+        if (first == second) {
+            return true;
+        }
+        switch (mode) {
+            case IGNORE:
+                return true;
+            case IDENTITY:
+                return false;
+            case CUSTOM:
+                return strategy.isEquals(first, second);
+            default:
+                return tolerance.isEquals(first, second);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cong.entitydiff;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 属性写入器，与 {@link PropertyAccessor} 对应，用于把补丁应用到对象上
+ * <p>
+ * 字段访问器直接写字段，getter 访问器写同名的 public setter，参数类型与 getter 的返回值类型相同
+ */
+final class PropertyWriter {
+    private final String name;
+    private final Field field;
+    private final Method setter;
+    /**
+     * 可以写入的值的类型，基本类型为对应的包装类
+     */
+    private final Class<?> valueType;
+    private final boolean primitive;
+
+    private PropertyWriter(String name, Field field, Method setter) {
+        this.name = name;
+        this.field = field;
+        this.setter = setter;
+        Class<?> type = field != null ? field.getType() : setter != null ? setter.getParameterTypes()[0] : Object.class;
+        this.valueType = MethodType.methodType(type).wrap().returnType();
+        this.primitive = type.isPrimitive();
+    }
+
+    static PropertyWriter of(Class<?> type, PropertyAccessor accessor) {
+        Member member = accessor.getMember();
+        if (member instanceof Field && !Modifier.isStatic(member.getModifiers())) {
+            Field field = (Field) member;
+            try {
+                field.setAccessible(true);
+                return new PropertyWriter(accessor.getName(), field, null);
+            } catch (RuntimeException e) {
+                // 模块不开放时无法写入，应用补丁时再报告
+                return new PropertyWriter(accessor.getName(), null, null);
+            }
+        }
+        Method setter = null;
+        if (member instanceof Method) {
+            String getterName = member.getName();
+            String suffix = getterName.startsWith("is") ? getterName.substring(2) : getterName.substring(3);
+            try {
+                setter = type.getMethod("set" + suffix, ((Method) member).getReturnType());
+            } catch (NoSuchMethodException e) {
+                // 只读属性
+            }
+        }
+        return new PropertyWriter(accessor.getName(), null, setter);
+    }
+
+    /**
+     * 检查属性可以写入，并且值的类型与字段或 setter 参数的类型相符，用于在写入任何属性之前发现不能应用的补丁
+     */
+    void check(Object value) {
+        if (field == null && setter == null) {
+            throw new IllegalStateException("属性不可写入: " + name);
+        }
+        if (value == null ? primitive : !valueType.isInstance(value)) {
+            throw new IllegalArgumentException("属性 " + name + " 的类型为 " + valueType.getName() + "，不能写入 "
+                    + (value == null ? "null" : value.getClass().getName()));
+        }
+    }
+
+    void set(Object target, Object value) {
+        try {
+            if (field != null) {
+                field.set(target, value);
+            } else if (setter != null) {
+                setter.invoke(target, value);
+            } else {
+                throw new IllegalStateException("属性不可写入: " + name);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("写入属性失败: " + name, e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("写入属性失败: " + name, cause);
+        }
+    }
+}
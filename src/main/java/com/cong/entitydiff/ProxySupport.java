@@ -0,0 +1,132 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 识别 Hibernate、CGLIB、Javassist、ByteBuddy 等框架生成的代理类
+ * <p>
+ * 代理类是实体类的子类，自身的字段没有意义，真实的状态在被代理的对象中。
+ * Hibernate 的代理通过反射访问 LazyInitializer，不依赖 Hibernate，判断是否已经初始化、读取标识时不会触发加载
+ */
+final class ProxySupport {
+    private static final String HIBERNATE_PROXY_CLASS = "org.hibernate.proxy.HibernateProxy";
+    /**
+     * 代理类名称中的特征字符串
+     */
+    private static final String[] PROXY_MARKERS = {"$$EnhancerBy", "$$SpringCGLIB$$", "$HibernateProxy$", "$$_jvst", "_$$_javassist", "$ByteBuddy$"};
+
+    /**
+     * Hibernate 的代理接口，不在 classpath 中时为 null
+     */
+    static final Class<?> HIBERNATE_PROXY;
+    private static final Method GET_LAZY_INITIALIZER;
+    private static final Method IS_UNINITIALIZED;
+    private static final Method GET_IMPLEMENTATION;
+    private static final Method GET_IDENTIFIER;
+
+    static {
+        Class<?> proxy = null;
+        Method lazyInitializer = null;
+        Method uninitialized = null;
+        Method implementation = null;
+        Method identifier = null;
+        try {
+            proxy = Class.forName(HIBERNATE_PROXY_CLASS, false, ProxySupport.class.getClassLoader());
+            lazyInitializer = proxy.getMethod("getHibernateLazyInitializer");
+            Class<?> initializer = lazyInitializer.getReturnType();
+            uninitialized = initializer.getMethod("isUninitialized");
+            implementation = initializer.getMethod("getImplementation");
+            identifier = initializer.getMethod("getIdentifier");
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            // 没有使用 Hibernate
+            proxy = null;
+        }
+        HIBERNATE_PROXY = proxy;
+        GET_LAZY_INITIALIZER = lazyInitializer;
+        IS_UNINITIALIZED = uninitialized;
+        GET_IMPLEMENTATION = implementation;
+        GET_IDENTIFIER = identifier;
+    }
+
+    private static final ClassValue<Boolean> PROXY = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (isHibernateProxyClass(type)) {
+                return true;
+            }
+            String name = type.getName();
+            for (String marker : PROXY_MARKERS) {
+                if (name.contains(marker)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    private ProxySupport() {
+    }
+
+    static boolean isProxyClass(Class<?> type) {
+        return PROXY.get(type);
+    }
+
+    static boolean isHibernateProxyClass(Class<?> type) {
+        return HIBERNATE_PROXY != null && HIBERNATE_PROXY.isAssignableFrom(type);
+    }
+
+    /**
+     * @return 代理类对应的实体类，不是代理类时返回自身
+     */
+    static Class<?> getUserClass(Class<?> type) {
+        Class<?> cls = type;
+        while (isProxyClass(cls) && cls.getSuperclass() != null && cls.getSuperclass() != Object.class) {
+            cls = cls.getSuperclass();
+        }
+        return cls;
+    }
+
+    /**
+     * @return Hibernate 代理是否还没有初始化，不是 Hibernate 代理时返回 false
+     */
+    static boolean isUninitialized(Object obj) {
+        return obj != null && isHibernateProxyClass(obj.getClass()) && (Boolean) invoke(IS_UNINITIALIZED, lazyInitializer(obj));
+    }
+
+    /**
+     * 已经初始化的 Hibernate 代理换成被代理的对象，其他对象原样返回
+     */
+    static Object unwrapInitialized(Object obj) {
+        if (obj == null || !isHibernateProxyClass(obj.getClass())) {
+            return obj;
+        }
+        Object initializer = lazyInitializer(obj);
+        return (Boolean) invoke(IS_UNINITIALIZED, initializer) ? obj : invoke(GET_IMPLEMENTATION, initializer);
+    }
+
+    /**
+     * 读取 Hibernate 代理的标识，不会触发加载
+     */
+    static Object getIdentifier(Object proxy) {
+        return invoke(GET_IDENTIFIER, lazyInitializer(proxy));
+    }
+
+    private static Object lazyInitializer(Object proxy) {
+        return invoke(GET_LAZY_INITIALIZER, proxy);
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("读取 Hibernate 代理失败: " + method.getName(), cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("读取 Hibernate 代理失败: " + method.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.cong.entitydiff;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 基于 Field.get / Method.invoke 的访问器工厂
+ * <p>
+ * 性能不如 {@link MethodHandleAccessorFactory}，但兼容性最好，作为兜底实现
+ */
+public class ReflectionAccessorFactory implements AccessorFactory {
+    public static final ReflectionAccessorFactory INSTANCE = new ReflectionAccessorFactory();
+
+    @Override
+    public PropertyAccessor forField(Field field) {
+        field.setAccessible(true);
+        return new FieldAccessor(field);
+    }
+
+    @Override
+    public PropertyAccessor forGetter(String propertyName, Method getter) {
+        return new GetterAccessor(propertyName, getter);
+    }
+
+    private static class FieldAccessor extends PropertyAccessor {
+        private final Field field;
+
+        FieldAccessor(Field field) {
+            super(field.getName(), field.getType(), field);
+            this.field = field;
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            try {
+                return field.getBoolean(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public byte getByte(Object target) {
+            try {
+                return field.getByte(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public char getChar(Object target) {
+            try {
+                return field.getChar(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public short getShort(Object target) {
+            try {
+                return field.getShort(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object target) {
+            try {
+                return field.getInt(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object target) {
+            try {
+                return field.getLong(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object target) {
+            try {
+                return field.getFloat(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return field.getDouble(target);
+            } catch (IllegalAccessException e) {
+                throw wrap(e);
+            }
+        }
+    }
+
+    private static class GetterAccessor extends PropertyAccessor {
+        private final Method getter;
+
+        GetterAccessor(String propertyName, Method getter) {
+            super(propertyName, getter.getReturnType(), getter);
+            this.getter = getter;
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return getter.invoke(target);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw wrap(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.cong.entitydiff;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 简单类型的判断，简单类型的对象作为一个整体直接比对，不扫描它的字段或 getter
+ * <p>
+ * 基本类型、数组、枚举，以及 JDK 自带的类型（String、BigDecimal、java.time 下的时间类型、UUID、集合等）都是简单类型，
+ * 它们的内部字段没有比对的意义，JDK 9 之后也大多不能通过反射访问。集合和 Map 的实现类即使是自定义的也按整体比对。
+ * 判断结果按类缓存在 ClassValue 中，两种比对器共享
+ */
+final class SimpleTypes {
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private static final ClassValue<Boolean> SIMPLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return classify(type);
+        }
+    };
+
+    private SimpleTypes() {
+    }
+
+    /**
+     * @param type 对象的实际类型
+     * @return 是否为简单类型
+     */
+    static boolean isSimple(Class<?> type) {
+        return SIMPLE.get(type);
+    }
+
+    private static boolean classify(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum()) {
+            return true;
+        }
+        // 带有方法体的枚举常量是枚举的匿名子类
+        Class<?> superclass = type.getSuperclass();
+        if (superclass != null && superclass.isEnum()) {
+            return true;
+        }
+        if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            return true;
+        }
+        // Object 本身没有属性，仍按属性比对，保持两个 Object 相等的语义
+        return type != Object.class && isJdkType(type);
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        for (String prefix : JDK_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
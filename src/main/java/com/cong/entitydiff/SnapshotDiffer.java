@@ -0,0 +1,196 @@
+package com.cong.entitydiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式快照比对器，用于比对无法一次放进内存的两个数据集
+ * <p>
+ * 两个输入需要按键升序排列，比对器同时向前读取两个输入做归并连接，每次只持有两边各一条记录，
+ * 只存在于旧快照的记录报告为 REMOVED，只存在于新快照的报告为 ADDED，键相同但属性不同的报告为 MODIFIED。
+ * 输入未排序时可以使用 {@link #diffUnsorted}，先通过外部排序把输入分批排序后写入临时文件再归并。输入中的记录不能为 null
+ *
+ * @param <T> 记录类型
+ * @param <K> 键类型
+ */
+public class SnapshotDiffer<T, K> {
+    public static final int DEFAULT_SPILL_THRESHOLD = 100_000;
+
+    private final Comparator comparator;
+    private final Function<? super T, ? extends K> keyExtractor;
+    private final java.util.Comparator<? super K> keyOrder;
+    /**
+     * 外部排序时每个批次的记录数
+     */
+    private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+    /**
+     * 外部排序的临时文件目录，为 null 时使用系统临时目录
+     */
+    private File tempDir;
+
+    /**
+     * @param comparator   比对器
+     * @param keyExtractor 记录的键
+     * @param keyOrder     键的顺序，输入需要按此顺序升序排列
+     */
+    public SnapshotDiffer(Comparator comparator, Function<? super T, ? extends K> keyExtractor, java.util.Comparator<? super K> keyOrder) {
+        this.comparator = comparator;
+        this.keyExtractor = keyExtractor;
+        this.keyOrder = keyOrder;
+    }
+
+    /**
+     * 比对两个按键升序排列的输入
+     *
+     * @param first    旧快照
+     * @param second   新快照
+     * @param consumer 差异记录回调
+     */
+    public void diff(Iterator<? extends T> first, Iterator<? extends T> second, Consumer<? super SnapshotRecord<T>> consumer) {
+        new MergeIterator(first, second).forEachRemaining(consumer);
+    }
+
+    /**
+     * 比对两个按键升序排列的输入，差异记录在消费 Stream 时才计算
+     *
+     * @param first  旧快照
+     * @param second 新快照
+     * @return 差异记录
+     */
+    public Stream<SnapshotRecord<T>> diff(Iterator<? extends T> first, Iterator<? extends T> second) {
+        Spliterator<SnapshotRecord<T>> spliterator = Spliterators.spliteratorUnknownSize(new MergeIterator(first, second),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * 比对两个未排序的输入，先分别做外部排序，记录必须实现 Serializable
+     *
+     * @param first    旧快照
+     * @param second   新快照
+     * @param consumer 差异记录回调
+     * @throws IOException 读写临时文件失败
+     */
+    public void diffUnsorted(Iterator<? extends T> first, Iterator<? extends T> second,
+                             Consumer<? super SnapshotRecord<T>> consumer) throws IOException {
+        ExternalSorter<T> sorter = new ExternalSorter<>((a, b) -> keyOrder.compare(keyExtractor.apply(a), keyExtractor.apply(b)),
+                spillThreshold, tempDir);
+        try (ExternalSorter.SortedIterator<T> sortedFirst = sorter.sort(first);
+             ExternalSorter.SortedIterator<T> sortedSecond = sorter.sort(second)) {
+            diff(sortedFirst, sortedSecond, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public void setSpillThreshold(int spillThreshold) {
+        if (spillThreshold <= 0) {
+            throw new IllegalArgumentException("spillThreshold 必须大于 0: " + spillThreshold);
+        }
+        this.spillThreshold = spillThreshold;
+    }
+
+    public File getTempDir() {
+        return tempDir;
+    }
+
+    public void setTempDir(File tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 归并连接两个有序输入，每次 next 推进到下一条差异记录
+     */
+    private class MergeIterator implements Iterator<SnapshotRecord<T>> {
+        private final Iterator<? extends T> first;
+        private final Iterator<? extends T> second;
+        private T firstHead;
+        private K firstKey;
+        private T secondHead;
+        private K secondKey;
+        private SnapshotRecord<T> next;
+
+        MergeIterator(Iterator<? extends T> first, Iterator<? extends T> second) {
+            this.first = first;
+            this.second = second;
+            advanceFirst();
+            advanceSecond();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && (firstHead != null || secondHead != null)) {
+                next = step();
+            }
+            return next != null;
+        }
+
+        @Override
+        public SnapshotRecord<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SnapshotRecord<T> record = next;
+            next = null;
+            return record;
+        }
+
+        /**
+         * 推进一步，两边键相同且属性相等时返回 null
+         */
+        private SnapshotRecord<T> step() {
+            int cmp;
+            if (firstHead == null) {
+                cmp = 1;
+            } else if (secondHead == null) {
+                cmp = -1;
+            } else {
+                cmp = keyOrder.compare(firstKey, secondKey);
+            }
+            SnapshotRecord<T> record;
+            if (cmp < 0) {
+                record = new SnapshotRecord<>(SnapshotRecord.Type.REMOVED, firstKey, firstHead, null, null);
+                advanceFirst();
+            } else if (cmp > 0) {
+                record = new SnapshotRecord<>(SnapshotRecord.Type.ADDED, secondKey, null, secondHead, null);
+                advanceSecond();
+            } else {
+                List<FieldInfo> diffFields = comparator.getDiffFields(firstHead, secondHead);
+                record = diffFields == null || diffFields.isEmpty() ? null
+                        : new SnapshotRecord<>(SnapshotRecord.Type.MODIFIED, firstKey, firstHead, secondHead, diffFields);
+                advanceFirst();
+                advanceSecond();
+            }
+            return record;
+        }
+
+        private void advanceFirst() {
+            K previous = firstKey;
+            firstHead = first.hasNext() ? first.next() : null;
+            firstKey = firstHead == null ? null : checkOrder(previous, keyExtractor.apply(firstHead));
+        }
+
+        private void advanceSecond() {
+            K previous = secondKey;
+            secondHead = second.hasNext() ? second.next() : null;
+            secondKey = secondHead == null ? null : checkOrder(previous, keyExtractor.apply(secondHead));
+        }
+
+        private K checkOrder(K previous, K current) {
+            if (previous != null && keyOrder.compare(previous, current) > 0) {
+                throw new IllegalStateException("输入没有按键升序排列: " + previous + " 之后为 " + current);
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cong.entitydiff;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 快照比对中的一条差异记录
+ *
+ * @param <T> 记录的类型
+ */
+public class SnapshotRecord<T> {
+    public enum Type {
+        /**
+         * 只存在于新快照
+         */
+        ADDED,
+        /**
+         * 只存在于旧快照
+         */
+        REMOVED,
+        /**
+         * 两个快照中都存在但属性不同
+         */
+        MODIFIED
+    }
+
+    private final Type type;
+    private final Object key;
+    private final T first;
+    private final T second;
+    private final List<FieldInfo> diffFields;
+
+    public SnapshotRecord(Type type, Object key, T first, T second, List<FieldInfo> diffFields) {
+        this.type = type;
+        this.key = key;
+        this.first = first;
+        this.second = second;
+        this.diffFields = diffFields == null ? Collections.<FieldInfo>emptyList() : diffFields;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return 旧快照中的记录，新增时为 null
+     */
+    public T getFirst() {
+        return first;
+    }
+
+    /**
+     * @return 新快照中的记录，删除时为 null
+     */
+    public T getSecond() {
+        return second;
+    }
+
+    /**
+     * @return 不相等的属性，只在 MODIFIED 时不为空
+     */
+    public List<FieldInfo> getDiffFields() {
+        return diffFields;
+    }
+}
@@ -0,0 +1,84 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * 访问器工厂参数化测试，不同实现读取的属性值应该一致
+ */
+@RunWith(Parameterized.class)
+public class AccessorFactoryTest {
+    private final AccessorFactory factory;
+
+    public AccessorFactoryTest(AccessorFactory factory) {
+        this.factory = factory;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{MethodHandleAccessorFactory.INSTANCE}, new Object[]{ReflectionAccessorFactory.INSTANCE});
+    }
+
+    @Test
+    public void testField() throws Exception {
+        Sample sample = new Sample(7, 3L, 1.5D, "name");
+        Assert.assertEquals(7, factory.forField(field("id")).getInt(sample));
+        Assert.assertEquals(3L, factory.forField(field("version")).getLong(sample));
+        Assert.assertEquals(1.5D, factory.forField(field("price")).getDouble(sample), 0D);
+        Assert.assertEquals(7, factory.forField(field("id")).get(sample));
+        Assert.assertEquals("name", factory.forField(field("name")).get(sample));
+        Assert.assertEquals("static", factory.forField(field("TAG")).get(sample));
+    }
+
+    @Test
+    public void testGetter() throws Exception {
+        Sample sample = new Sample(7, 3L, 1.5D, "name");
+        Method getId = Sample.class.getMethod("getId");
+        Method getName = Sample.class.getMethod("getName");
+        Assert.assertEquals(7, factory.forGetter("id", getId).getInt(sample));
+        Assert.assertEquals("name", factory.forGetter("name", getName).get(sample));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetterException() throws Exception {
+        Method getBroken = Sample.class.getMethod("getBroken");
+        factory.forGetter("broken", getBroken).get(new Sample(1, 1L, 1D, null));
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        return Sample.class.getDeclaredField(name);
+    }
+
+    public static class Sample {
+        private static final String TAG = "static";
+        private final int id;
+        private final long version;
+        private final double price;
+        private final String name;
+
+        Sample(int id, long version, double price, String name) {
+            this.id = id;
+            this.version = version;
+            this.price = price;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getBroken() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 注解配置参数化测试，注解都标注在字段上，基于 getter 比对时读取同名字段上的注解
+ */
+@RunWith(Parameterized.class)
+public class AnnotationConfigTest {
+    private final AbstractComparator comparator;
+
+    public AnnotationConfigTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testIgnore() {
+        Product first = new Product("a", "x", 1.0, null, null);
+        Product second = new Product("a", "y", 1.0, null, null);
+        Assert.assertTrue(comparator.isEquals(first, second));
+        Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+    }
+
+    @Test
+    public void testCustomEquality() {
+        Product first = new Product("abc", null, 1.0, null, null);
+        Assert.assertTrue(comparator.isEquals(first, new Product("ABC", null, 1.0, null, null)));
+        List<FieldInfo> diff = comparator.getDiffFields(first, new Product("abd", null, 1.0, null, null));
+        Assert.assertEquals(Collections.singletonList("code"), names(diff));
+    }
+
+    @Test
+    public void testTolerance() {
+        Product first = new Product("a", null, 1.0, new BigDecimal("10.00"), null);
+        Assert.assertTrue(comparator.isEquals(first, new Product("a", null, 1.005, new BigDecimal("10.01"), null)));
+        List<FieldInfo> diff = comparator.getDiffFields(first, new Product("a", null, 1.02, new BigDecimal("10.05"), null));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("price", "amount")), new HashSet<>(names(diff)));
+        Assert.assertTrue(comparator.isEquals(new Product("a", null, Double.NaN, null, null), new Product("a", null, Double.NaN, null, null)));
+    }
+
+    @Test
+    public void testIdentity() {
+        Object payload = new StringBuilder("p");
+        Product first = new Product("a", null, 1.0, null, payload);
+        Assert.assertTrue(comparator.isEquals(first, new Product("a", null, 1.0, null, payload)));
+        Assert.assertFalse(comparator.isEquals(first, new Product("a", null, 1.0, null, new StringBuilder("p"))));
+    }
+
+    @Test
+    public void testCollectionKey() {
+        comparator.setRecursive(true);
+        try {
+            Order first = new Order(Arrays.asList(new Item(1, 10), new Item(2, 20)));
+            Order second = new Order(Arrays.asList(new Item(2, 21), new Item(3, 30)));
+            Set<String> paths = new HashSet<>();
+            for (FieldInfo fieldInfo : comparator.getDiffFields(first, second)) {
+                paths.add(fieldInfo.getPath());
+            }
+            Assert.assertEquals(new HashSet<>(Arrays.asList("items[2].quantity", "items[1]", "items[3]")), paths);
+        } finally {
+            comparator.setRecursive(false);
+        }
+    }
+
+    private static List<String> names(List<FieldInfo> diff) {
+        List<String> names = new ArrayList<>();
+        for (FieldInfo fieldInfo : diff) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class IgnoreCase implements EqualityStrategy {
+        @Override
+        public boolean isEquals(Object first, Object second) {
+            return first instanceof String && ((String) first).equalsIgnoreCase((String) second);
+        }
+    }
+
+    public static class Product {
+        @DiffEquals(IgnoreCase.class)
+        private final String code;
+        @DiffIgnore
+        private final String remark;
+        @DiffTolerance(0.01)
+        private final double price;
+        @DiffTolerance(0.01)
+        private final BigDecimal amount;
+        @DiffIdentity
+        private final Object payload;
+
+        public Product(String code, String remark, double price, BigDecimal amount, Object payload) {
+            this.code = code;
+            this.remark = remark;
+            this.price = price;
+            this.amount = amount;
+            this.payload = payload;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public Object getPayload() {
+            return payload;
+        }
+    }
+
+    public static class Order {
+        private final List<Item> items;
+
+        public Order(List<Item> items) {
+            this.items = items;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+
+    public static class Item {
+        @DiffKey
+        private final int id;
+        private final int quantity;
+
+        public Item(int id, int quantity) {
+            this.id = id;
+            this.quantity = quantity;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步比对测试
+ */
+public class AsyncComparatorTest {
+
+    @Test
+    public void testDiff() throws Exception {
+        try (AsyncComparator async = new AsyncComparator(new FieldBaseComparator())) {
+            Assert.assertEquals(1, async.getDiffFields(new Point(1, 2), new Point(1, 3)).get().size());
+            Assert.assertTrue(async.isEquals(new Point(1, 2), new Point(1, 2)).get());
+            List<FieldInfo> diff = async.loadAndGetDiffFields(() -> new Point(1, 2), () -> new Point(2, 2)).get();
+            Assert.assertEquals("x", diff.get(0).getFieldName());
+        }
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        List<Point> first = new ArrayList<>();
+        List<Point> second = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            first.add(new Point(i, i));
+            second.add(new Point(i, i % 3 == 0 ? -1 : i));
+        }
+        try (AsyncComparator async = new AsyncComparator(new FieldBaseComparator(), 2)) {
+            async.setBatchSize(7);
+            List<Boolean> equals = async.isEqualsInBatch(first, second).get();
+            List<List<FieldInfo>> diff = async.getDiffFieldsInBatch(first, second).get();
+            Assert.assertEquals(100, equals.size());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(i % 3 != 0, equals.get(i));
+                Assert.assertEquals(i % 3 == 0 ? 1 : 0, diff.get(i).size());
+            }
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (AsyncComparator async = new AsyncComparator(new FieldBaseComparator(), 2, executor)) {
+            List<CompletableFuture<List<FieldInfo>>> futures = new CopyOnWriteArrayList<>();
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 5; i++) {
+                    futures.add(async.loadAndGetDiffFields(() -> {
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                        return new Point(1, 1);
+                    }, () -> new Point(1, 2)));
+                }
+            });
+            producer.start();
+            // 上限为 2，第三次提交会阻塞
+            long deadline = System.currentTimeMillis() + 5000;
+            while (futures.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            Assert.assertEquals(2, futures.size());
+            Assert.assertEquals(2, async.getInFlight());
+            release.countDown();
+            producer.join(5000);
+            for (CompletableFuture<List<FieldInfo>> future : futures) {
+                Assert.assertEquals(Arrays.asList("y"), names(future.get(5, TimeUnit.SECONDS)));
+            }
+            Assert.assertEquals(5, futures.size());
+            Assert.assertTrue(peak.get() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> names(List<FieldInfo> diff) {
+        List<String> names = new ArrayList<>();
+        for (FieldInfo fieldInfo : diff) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class Point {
+        private final int x;
+        private final int y;
+
+        public Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * 批量比对测试
+ */
+public class BulkComparatorTest {
+
+    @Test
+    public void testOrdered() {
+        List<DiffPair<Point, Point>> pairs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pairs.add(new DiffPair<>(i, new Point(i, i), new Point(i, i % 3 == 0 ? -i : i)));
+        }
+        List<PairDiff<Point, Point>> result = new BulkComparator(new FieldBaseComparator()).diffAll(pairs);
+        Assert.assertEquals(pairs.size(), result.size());
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertEquals(i, result.get(i).getKey());
+            Assert.assertEquals(i % 3 != 0 || i == 0, result.get(i).isEquals());
+        }
+    }
+
+    @Test
+    public void testUnorderedStream() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BulkComparator bulkComparator = new BulkComparator(new GetterBaseComparator(), executor, 10, 4);
+            Set<Object> keys = new HashSet<>();
+            int[] diffCount = new int[1];
+            bulkComparator.diffAll(IntStream.range(0, 1000).mapToObj(i -> new DiffPair<>(i, new Point(i, 0), new Point(i, i % 2))),
+                    false, diff -> {
+                        keys.add(diff.getKey());
+                        diffCount[0] += diff.getDiffFields().size();
+                    });
+            Assert.assertEquals(1000, keys.size());
+            Assert.assertEquals(500, diffCount[0]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiffByKey() {
+        List<Point> first = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 3));
+        List<Point> second = Arrays.asList(new Point(2, 0), new Point(3, 3), new Point(4, 4));
+        List<PairDiff<Point, Point>> result = new BulkComparator(new FieldBaseComparator()).diffByKey(first, second, Point::getX);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals(Collections.singletonList("y"), Collections.singletonList(result.get(0).getDiffFields().get(0).getFieldName()));
+        Assert.assertTrue(result.get(1).isEquals());
+        Assert.assertNull(result.get(2).getFirst());
+        Assert.assertEquals(1, result.get(3).getKey());
+        Assert.assertNull(result.get(3).getSecond());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailure() {
+        List<DiffPair<Object, Object>> pairs = new ArrayList<>();
+        pairs.add(new DiffPair<>(new Broken(), new Broken()));
+        new BulkComparator(new GetterBaseComparator()).diffAll(pairs);
+    }
+
+    public static class Point {
+        private final int x;
+        private final int y;
+
+        public Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+    }
+
+    public static class Broken {
+        public String getValue() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 集合比对测试
+ */
+public class CollectionDiffTest {
+    private final FieldBaseComparator comparator = new FieldBaseComparator();
+
+    @Test
+    public void testByKey() {
+        List<Item> first = Arrays.asList(new Item(1, "a"), new Item(2, "b"), new Item(3, "c"));
+        List<Item> second = Arrays.asList(new Item(3, "c"), new Item(2, "x"), new Item(4, "d"));
+        CollectionDiff diff = new CollectionDiffer(comparator, item -> ((Item) item).id).diff(first, second);
+        Assert.assertEquals(Collections.singletonList("[4]"), names(diff.getAdded()));
+        Assert.assertEquals(Collections.singletonList("[1]"), names(diff.getRemoved()));
+        Assert.assertEquals(Collections.singletonList("[2]"), names(diff.getChanged()));
+    }
+
+    @Test
+    public void testOrdered() {
+        List<Integer> first = Arrays.asList(1, 2, 3, 4, 5);
+        List<Integer> second = Arrays.asList(1, 9, 2, 3, 8, 5);
+        CollectionDiff diff = new CollectionDiffer(comparator).diff(first, second);
+        Assert.assertEquals(Collections.singletonList("[1]"), names(diff.getAdded()));
+        Assert.assertTrue(diff.getRemoved().isEmpty());
+        Assert.assertEquals(Collections.singletonList("[3]"), names(diff.getChanged()));
+        Assert.assertEquals(4, diff.getChanged().get(0).getFirstVal());
+        Assert.assertEquals(8, diff.getChanged().get(0).getSecondVal());
+
+        Assert.assertTrue(new CollectionDiffer(comparator).diff(first, new ArrayList<>(first)).isEmpty());
+        Assert.assertEquals(5, new CollectionDiffer(comparator).diff(first, null).getRemoved().size());
+    }
+
+    @Test
+    public void testOrderedShortest() {
+        // 与动态规划求出的最长公共子序列长度一致
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<Integer> first = randomList(random, random.nextInt(30));
+            List<Integer> second = randomList(random, random.nextInt(30));
+            CollectionDiff diff = new CollectionDiffer(comparator).diff(first, second);
+            int lcs = lcs(first, second);
+            Assert.assertEquals(first.size() - lcs, diff.getRemoved().size() + diff.getChanged().size());
+            Assert.assertEquals(second.size() - lcs, diff.getAdded().size() + diff.getChanged().size());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testOrderedLarge() {
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            first.add(i);
+            second.add(i + 10000);
+        }
+        // 完全不同的两个列表编辑距离过大，按位置配对为变化的元素
+        CollectionDiff diff = new CollectionDiffer(comparator).diff(first, second);
+        Assert.assertEquals(10000, diff.getChanged().size());
+        Assert.assertTrue(diff.getAdded().isEmpty() && diff.getRemoved().isEmpty());
+
+        // 少量改动时仍然得到最短的编辑脚本
+        second = new ArrayList<>(first);
+        second.remove(5000);
+        second.add(100, -1);
+        diff = new CollectionDiffer(comparator).diff(first, second);
+        Assert.assertEquals(Collections.singletonList("[100]"), names(diff.getAdded()));
+        Assert.assertEquals(Collections.singletonList("[5000]"), names(diff.getRemoved()));
+        Assert.assertTrue(diff.getChanged().isEmpty());
+    }
+
+    private static List<Integer> randomList(Random random, int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(random.nextInt(4));
+        }
+        return list;
+    }
+
+    private static int lcs(List<Integer> first, List<Integer> second) {
+        int[][] lengths = new int[first.size() + 1][second.size() + 1];
+        for (int i = 1; i <= first.size(); i++) {
+            for (int j = 1; j <= second.size(); j++) {
+                lengths[i][j] = first.get(i - 1).equals(second.get(j - 1))
+                        ? lengths[i - 1][j - 1] + 1 : Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+            }
+        }
+        return lengths[first.size()][second.size()];
+    }
+
+    @Test
+    public void testSet() {
+        Set<String> first = new LinkedHashSet<>(Arrays.asList("a", "b", "c"));
+        Set<String> second = new LinkedHashSet<>(Arrays.asList("c", "b", "d"));
+        CollectionDiff diff = new CollectionDiffer(comparator).diff(first, second);
+        Assert.assertEquals(Collections.singletonList("[d]"), names(diff.getAdded()));
+        Assert.assertEquals(Collections.singletonList("[a]"), names(diff.getRemoved()));
+        Assert.assertTrue(diff.getChanged().isEmpty());
+    }
+
+    @Test
+    public void testSetField() {
+        Holder first = new Holder(new HashSet<>(Arrays.asList("a", "b")), Arrays.asList(new Item(1, "a")));
+        Holder second = new Holder(new LinkedHashSet<>(Arrays.asList("b", "a")), Arrays.asList(new Item(1, "a")));
+        Assert.assertEquals(Collections.singletonList("items"), names(comparator.getDiffFields(first, second)));
+        first.items = second.items;
+        Assert.assertTrue(comparator.isEquals(first, second));
+    }
+
+    @Test
+    public void testRecursiveByKey() {
+        FieldBaseComparator recursive = new FieldBaseComparator();
+        recursive.setRecursive(true);
+        recursive.registerCollectionKey(Item.class, item -> item.id);
+        Holder first = new Holder(new HashSet<>(Arrays.asList("a", "b")), Arrays.asList(new Item(1, "a"), new Item(2, "b")));
+        Holder second = new Holder(new HashSet<>(Arrays.asList("a", "c")), Arrays.asList(new Item(2, "x"), new Item(3, "c")));
+        List<String> paths = new ArrayList<>();
+        for (FieldInfo fieldInfo : recursive.getDiffFields(first, second)) {
+            paths.add(fieldInfo.getPath());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("tags[b]", "tags[c]", "items[2].name", "items[1]", "items[3]")),
+                new HashSet<>(paths));
+    }
+
+    @Test
+    public void testRecursiveLcs() {
+        FieldBaseComparator recursive = new FieldBaseComparator();
+        recursive.setRecursive(true);
+        recursive.setLcsListDiff(true);
+        Holder first = new Holder(Collections.<String>emptySet(), Arrays.asList(new Item(1, "a"), new Item(2, "b")));
+        Holder second = new Holder(Collections.<String>emptySet(), Arrays.asList(new Item(0, "z"), new Item(1, "a"), new Item(2, "b")));
+        List<FieldInfo> diffFields = recursive.getDiffFields(first, second);
+        Assert.assertEquals(1, diffFields.size());
+        Assert.assertEquals("items[0]", diffFields.get(0).getPath());
+        Assert.assertNull(diffFields.get(0).getFirstVal());
+    }
+
+    private static List<String> names(List<FieldInfo> fieldInfos) {
+        List<String> names = new ArrayList<>();
+        for (FieldInfo fieldInfo : fieldInfos) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class Item {
+        private int id;
+        private String name;
+
+        public Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Holder {
+        private Set<String> tags;
+        private List<Item> items;
+
+        public Holder(Set<String> tags, List<Item> items) {
+            this.tags = tags;
+            this.items = items;
+        }
+    }
+}
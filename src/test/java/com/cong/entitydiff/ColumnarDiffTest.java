@@ -0,0 +1,198 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 按列比对参数化测试
+ */
+@RunWith(Parameterized.class)
+public class ColumnarDiffTest {
+    private final AbstractComparator comparator;
+
+    public ColumnarDiffTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testSameAsDiff() {
+        Random random = new Random(42);
+        List<Row> first = new ArrayList<>();
+        List<Row> second = new LinkedList<>();
+        for (int i = 0; i < 500; i++) {
+            Row row = new Row(i, random);
+            first.add(row);
+            second.add(row.mutate(random));
+        }
+        ColumnarDiff result = comparator.diffColumnar(first, second);
+        Assert.assertEquals(500, result.size());
+        int diffRows = 0;
+        for (int i = 0; i < 500; i++) {
+            DiffResult expected = comparator.diff(first.get(i), second.get(i));
+            Assert.assertEquals(expected.getNames(), result.getDiffResult(i).getNames());
+            Assert.assertEquals(expected.isEmpty(), result.isEquals(i));
+            Assert.assertEquals(comparator.getDiffFields(first.get(i), second.get(i)).size(), result.getDiffFields(i).size());
+            diffRows += expected.isEmpty() ? 0 : 1;
+        }
+        Assert.assertEquals(diffRows, result.getDiffRowCount());
+        Assert.assertTrue(diffRows > 0 && diffRows < 500);
+    }
+
+    @Test
+    public void testPrimitiveSemantics() {
+        Row first = new Row(1, new Random(1));
+        Row second = new Row(1, new Random(1));
+        // 与 Double.equals 一致：NaN 与 NaN 相等，0.0 与 -0.0 不等
+        first.ratio = Double.NaN;
+        second.ratio = Double.NaN;
+        Assert.assertTrue(comparator.diffColumnar(Collections.singletonList(first), Collections.singletonList(second)).isEquals(0));
+        first.ratio = 0.0;
+        second.ratio = -0.0;
+        ColumnarDiff result = comparator.diffColumnar(Collections.singletonList(first), Collections.singletonList(second));
+        Assert.assertEquals(Collections.singletonList("ratio"), result.getDiffResult(0).getNames());
+        // 注解的误差策略
+        second.ratio = 0.0;
+        second.score = first.score + 0.001;
+        Assert.assertTrue(comparator.diffColumnar(Collections.singletonList(first), Collections.singletonList(second)).isEquals(0));
+    }
+
+    @Test
+    public void testWide() {
+        AbstractComparator fieldComparator = new FieldBaseComparator();
+        DiffResultTest.Wide first = new DiffResultTest.Wide();
+        DiffResultTest.Wide second = new DiffResultTest.Wide();
+        second.f64 = 1;
+        second.name = "b";
+        ColumnarDiff result = fieldComparator.diffColumnar(Arrays.asList(first, first), Arrays.asList(second, first));
+        Assert.assertEquals(Arrays.asList("f64", "name"), result.getDiffResult(0).getNames());
+        Assert.assertEquals(2, result.getMask(0).length);
+        Assert.assertTrue(result.isEquals(1));
+    }
+
+    @Test
+    public void testInvalid() {
+        Assert.assertEquals(0, comparator.diffColumnar(Collections.emptyList(), Collections.emptyList()).size());
+        try {
+            comparator.diffColumnar(Collections.singletonList(new Row(1, new Random())), Collections.emptyList());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 个数不一致
+        }
+        try {
+            comparator.diffColumnar(Collections.singletonList(new Row(1, new Random())), Collections.singletonList(new Object()));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 不是同一个类
+        }
+        try {
+            comparator.diffColumnar(Collections.singletonList("a"), Collections.singletonList("b"));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 简单类型
+        }
+    }
+
+    public static class Row {
+        private long id;
+        private int quantity;
+        private double ratio;
+        private boolean active;
+        @DiffTolerance(0.01)
+        private double score;
+        private String name;
+        private BigDecimal amount;
+        private List<String> tags;
+
+        public Row(long id, Random random) {
+            this.id = id;
+            this.quantity = random.nextInt(100);
+            this.ratio = random.nextDouble();
+            this.active = random.nextBoolean();
+            this.score = random.nextDouble();
+            this.name = "n" + random.nextInt(10);
+            this.amount = new BigDecimal(random.nextInt(1000)).movePointLeft(2);
+            this.tags = new ArrayList<>(Arrays.asList("t" + random.nextInt(3)));
+        }
+
+        private Row(Row other) {
+            this.id = other.id;
+            this.quantity = other.quantity;
+            this.ratio = other.ratio;
+            this.active = other.active;
+            this.score = other.score;
+            this.name = new String(other.name);
+            this.amount = other.amount.setScale(4);
+            this.tags = new ArrayList<>(other.tags);
+        }
+
+        Row mutate(Random random) {
+            Row copy = new Row(this);
+            switch (random.nextInt(8)) {
+                case 0:
+                    copy.quantity++;
+                    break;
+                case 1:
+                    copy.ratio = Double.NaN;
+                    break;
+                case 2:
+                    copy.active = !active;
+                    break;
+                case 3:
+                    copy.score += random.nextBoolean() ? 0.001 : 1;
+                    break;
+                case 4:
+                    copy.name = null;
+                    break;
+                case 5:
+                    copy.tags.add("x");
+                    copy.amount = copy.amount.add(BigDecimal.ONE);
+                    break;
+                default:
+                    // 不修改
+            }
+            return copy;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+
+/**
+ * 实体比对参数化测试，isEquals 的结果应与 getDiffFields 一致
+ */
+@RunWith(Parameterized.class)
+public class ComparatorEntityTest {
+    private final Object first;
+    private final Object second;
+    private final Comparator comparator;
+    private final List<String> expectDiffFields;
+
+    public ComparatorEntityTest(Object first, Object second, Comparator comparator, List<String> expectDiffFields) {
+        this.first = first;
+        this.second = second;
+        this.comparator = comparator;
+        this.expectDiffFields = expectDiffFields;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        List<Object[]> ps = new LinkedList<>();
+        List<Comparator> comparators = Arrays.asList(
+                new FieldBaseComparator(), new GetterBaseComparator(),
+                new FieldBaseComparator(false), new GetterBaseComparator(false));
+        for (Comparator comparator : comparators) {
+            ps.add(new Object[]{new User(1, "a", 1.5D), new User(1, "a", 1.5D), comparator, Collections.emptyList()});
+            ps.add(new Object[]{new User(1, "a", 1.5D), new User(2, "a", 1.5D), comparator, Collections.singletonList("id")});
+            ps.add(new Object[]{new User(1, "a", Double.NaN), new User(1, "a", Double.NaN), comparator, Collections.emptyList()});
+            ps.add(new Object[]{new User(1, "a", 0D), new User(1, "a", -0D), comparator, Collections.singletonList("score")});
+            ps.add(new Object[]{new User(1, "a", 1D), new User(1, null, 1D), comparator, Collections.singletonList("name")});
+            ps.add(new Object[]{new User(1, "a", 1D), null, comparator, Arrays.asList("id", "name", "score")});
+            ps.add(new Object[]{null, new User(0, null, 0D), comparator, Arrays.asList("id", "score")});
+            ps.add(new Object[]{new Admin(1, "a", 1D, true), new Admin(1, "a", 1D, false), comparator, Collections.singletonList("root")});
+        }
+        ps.add(new Object[]{new User(1, "a", 1D), new UserDTO(1L, "a", "x"), new FieldBaseComparator(), Collections.singletonList("id")});
+        ps.add(new Object[]{new User(1, "a", 1D), new UserDTO(1L, "b", null), new GetterBaseComparator(), Arrays.asList("id", "name")});
+        ps.add(new Object[]{new User(1, "a", 1D), new UserDTO(1L, "a", "x"), new FieldBaseComparator(false), Arrays.asList("id", "score", "remark")});
+        ps.add(new Object[]{new User(1, "a", 1D), new UserDTO(1L, "a", null), new GetterBaseComparator(false), Arrays.asList("id", "score")});
+        ps.add(new Object[]{new User(1, "a", 1D), new User(2, "b", 1D),
+                new FieldBaseComparator(null, Collections.singletonList("id")), Collections.singletonList("name")});
+        ps.add(new Object[]{new User(1, "a", 1D), new User(2, "b", 2D),
+                new GetterBaseComparator(Arrays.asList("id", "score"), Collections.singletonList("id")), Collections.singletonList("score")});
+        // 覆盖 isFieldEquals 的比对器走原有的逐字段判断
+        FieldBaseComparator ignoreCase = new FieldBaseComparator() {
+            @Override
+            protected boolean isFieldEquals(FieldInfo fieldInfo) {
+                if ("name".equals(fieldInfo.getFieldName()) && fieldInfo.getFirstVal() != null) {
+                    return ((String) fieldInfo.getFirstVal()).equalsIgnoreCase((String) fieldInfo.getSecondVal());
+                }
+                return super.isFieldEquals(fieldInfo);
+            }
+        };
+        ps.add(new Object[]{new User(1, "a", 1D), new User(1, "A", 1D), ignoreCase, Collections.emptyList()});
+        ps.add(new Object[]{new User(1, "a", 1D), new User(2, "A", 1D), ignoreCase, Collections.singletonList("id")});
+        return ps;
+    }
+
+    @Test
+    public void testEntity() {
+        List<String> diffFields = new ArrayList<>();
+        for (FieldInfo fieldInfo : comparator.getDiffFields(first, second)) {
+            diffFields.add(fieldInfo.getFieldName());
+        }
+        Assert.assertEquals(new HashSet<>(expectDiffFields), new HashSet<>(diffFields));
+        Assert.assertEquals(expectDiffFields.isEmpty(), comparator.isEquals(first, second));
+    }
+
+    public static class User {
+        private int id;
+        private String name;
+        private double score;
+
+        public User(int id, String name, double score) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    public static class Admin extends User {
+        private boolean root;
+
+        public Admin(int id, String name, double score, boolean root) {
+            super(id, name, score);
+            this.root = root;
+        }
+
+        public boolean isRoot() {
+            return root;
+        }
+    }
+
+    public static class UserDTO {
+        private long id;
+        private String name;
+        private String remark;
+
+        public UserDTO(long id, String name, String remark) {
+            this.id = id;
+            this.name = name;
+            this.remark = remark;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+    }
+}
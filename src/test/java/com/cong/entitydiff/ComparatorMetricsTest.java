@@ -0,0 +1,95 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 监听器和指标采集测试
+ */
+public class ComparatorMetricsTest {
+
+    @Test
+    public void testCompareMetrics() {
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        ComparatorMetrics metrics = new ComparatorMetrics();
+        comparator.addListener(metrics);
+        comparator.getDiffFields(new Sample(1, 2, "a"), new Sample(1, 3, "b"));
+        comparator.isEquals(new Sample(1, 2, "a"), new Sample(1, 2, "a"));
+        comparator.isEquals(new Sample(0, 2, "a"), new Sample(1, 2, "a"));
+
+        ComparatorMetrics.Stats stats = metrics.getStats(Sample.class);
+        Assert.assertEquals(3, stats.getCount());
+        // getDiffFields 比对 3 个属性，相等的 isEquals 比对 3 个，不相等的在第 1 个属性停止
+        Assert.assertEquals(7, stats.getFieldsScanned());
+        Assert.assertEquals(3, stats.getFieldsDifferent());
+        Assert.assertTrue(stats.getMaxNanos() >= stats.getMeanNanos());
+        Assert.assertTrue(stats.getPercentileNanos(1) >= stats.getMaxNanos());
+        Assert.assertEquals(6, metrics.getMetadataHits() + metrics.getMetadataMisses());
+        Assert.assertTrue(metrics.getMetadataCacheSize() > 0 || metrics.getMetadataMisses() == 0);
+    }
+
+    @Test
+    public void testError() {
+        GetterBaseComparator comparator = new GetterBaseComparator();
+        ComparatorMetrics metrics = new ComparatorMetrics();
+        comparator.addListener(metrics);
+        try {
+            comparator.isEquals(new Broken(), new Broken());
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // 预期的异常
+        }
+        Assert.assertEquals(1, metrics.getStats(Broken.class).getErrors());
+        Assert.assertEquals(1, metrics.getErrors());
+    }
+
+    @Test
+    public void testRemoveListener() {
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        List<Class<?>> first = new ArrayList<>();
+        List<Class<?>> second = new ArrayList<>();
+        ComparatorListener firstListener = new ComparatorListener() {
+            @Override
+            public void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+                first.add(firstType);
+            }
+        };
+        ComparatorListener secondListener = new ComparatorListener() {
+            @Override
+            public void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+                second.add(secondType);
+            }
+        };
+        comparator.addListener(firstListener);
+        comparator.addListener(secondListener);
+        comparator.getDiffFields(new Sample(1, 2, "a"), null);
+        comparator.removeListener(firstListener);
+        comparator.getDiffFields(new Sample(1, 2, "a"), new Sample(1, 2, "a"));
+        comparator.removeListener(secondListener);
+        comparator.getDiffFields(new Sample(1, 2, "a"), new Sample(1, 2, "a"));
+        Assert.assertEquals(1, first.size());
+        Assert.assertEquals(2, second.size());
+        Assert.assertNull(second.get(0));
+    }
+
+    public static class Sample {
+        private final int id;
+        private final long value;
+        private final String name;
+
+        public Sample(int id, long value, String name) {
+            this.id = id;
+            this.value = value;
+            this.name = name;
+        }
+    }
+
+    public static class Broken {
+        public String getValue() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 二进制差异编码参数化测试
+ */
+@RunWith(Parameterized.class)
+public class DiffCodecTest {
+    private final AbstractComparator comparator;
+    private final DiffCodec codec;
+
+    public DiffCodecTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+        this.codec = new DiffCodec(comparator);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Order first = new Order();
+        Order second = new Order();
+        second.setId(-123456789012L);
+        second.setQuantity(-1);
+        second.setPrice(Double.NaN);
+        second.setCode("订单 B");
+        second.setAmount(new BigDecimal("-12.3400"));
+        second.setStatus(Status.PAID);
+        second.setCreateTime(LocalDateTime.of(2020, 2, 29, 23, 59, 59, 123456789));
+        second.setTags(new ArrayList<>(Arrays.asList("a", null, "c")));
+        Map<Status, Integer> counts = new LinkedHashMap<>();
+        counts.put(Status.PAID, 1);
+        counts.put(Status.NEW, 2);
+        second.setCounts(counts);
+        second.setFlag(true);
+
+        ByteBuffer diff = codec.encode(first, second);
+        Order target = new Order();
+        codec.apply(diff, target);
+        Assert.assertFalse(diff.hasRemaining());
+        Assert.assertTrue(comparator.getDiffFields(target, second).isEmpty());
+        Assert.assertEquals(new BigDecimal("-12.3400"), target.getAmount());
+        Assert.assertEquals(counts, target.getCounts());
+    }
+
+    @Test
+    public void testPartialPatch() {
+        Order first = new Order();
+        Order second = new Order();
+        second.setCode(null);
+        second.setQuantity(300);
+        ByteBuffer diff = codec.encode(first, second);
+        // 版本、摘要、个数，两个属性的下标和值
+        Assert.assertTrue(diff.remaining() < 20);
+
+        // 只修改不相等的属性，其他属性保持目标对象自己的值
+        Order target = new Order();
+        target.setPrice(9.5);
+        codec.apply(diff, target);
+        Assert.assertNull(target.getCode());
+        Assert.assertEquals(300, target.getQuantity());
+        Assert.assertEquals(9.5, target.getPrice(), 0);
+
+        Assert.assertEquals(10, codec.encode(first, new Order()).remaining());
+    }
+
+    @Test
+    public void testMismatch() {
+        ByteBuffer diff = codec.encode(new Order(), new Order());
+        try {
+            codec.apply(diff, new Other());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 类元数据不一致
+        }
+        try {
+            codec.encode(new Order(), new Other());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 不同类
+        }
+        Order second = new Order();
+        second.setTags(Collections.<Object>singletonList(new Other()));
+        try {
+            codec.encode(new Order(), second);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 不支持的类型
+        }
+    }
+
+    @Test
+    public void testCorrupted() {
+        Order second = new Order();
+        second.setQuantity(3);
+        second.setCode("B");
+        ByteBuffer diff = codec.encode(new Order(), second);
+        ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(diff.array(), diff.limit() - 1));
+        Order target = new Order();
+        try {
+            codec.apply(truncated, target);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // 数据不完整
+        }
+        // 解码失败时不会写入任何属性
+        Assert.assertTrue(comparator.isEquals(new Order(), target));
+    }
+
+    @Test
+    public void testIncompatibleCollection() {
+        Sorted second = new Sorted();
+        second.setCode("B");
+        second.setNames(new TreeSet<>(Arrays.asList("b", "a")));
+        ByteBuffer diff = codec.encode(new Sorted(), second);
+        Sorted target = new Sorted();
+        try {
+            codec.apply(diff, target);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 解码得到的 LinkedHashSet 不能写入 TreeSet 属性
+        }
+        Assert.assertEquals("A", target.getCode());
+        Assert.assertNull(target.getNames());
+    }
+
+    public enum Status {
+        NEW, PAID
+    }
+
+    public static class Order {
+        private long id = 1;
+        private int quantity = 2;
+        private double price = 1.5;
+        private boolean flag;
+        private String code = "A";
+        private BigDecimal amount = BigDecimal.TEN;
+        private Status status = Status.NEW;
+        private LocalDateTime createTime = LocalDateTime.of(2020, 1, 1, 0, 0);
+        private List<Object> tags;
+        private Map<Status, Integer> counts;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+
+        public void setFlag(boolean flag) {
+            this.flag = flag;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(LocalDateTime createTime) {
+            this.createTime = createTime;
+        }
+
+        public List<Object> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<Object> tags) {
+            this.tags = tags;
+        }
+
+        public Map<Status, Integer> getCounts() {
+            return counts;
+        }
+
+        public void setCounts(Map<Status, Integer> counts) {
+            this.counts = counts;
+        }
+    }
+
+    public static class Sorted {
+        private String code = "A";
+        private TreeSet<String> names;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public TreeSet<String> getNames() {
+            return names;
+        }
+
+        public void setNames(TreeSet<String> names) {
+            this.names = names;
+        }
+    }
+
+    public static class Other {
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 不可变子对象比对结果缓存参数化测试
+ */
+@RunWith(Parameterized.class)
+public class DiffMemoTest {
+    private final AbstractComparator comparator;
+
+    public DiffMemoTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+        comparator.setRecursive(true);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testImmutableTypes() {
+        Assert.assertTrue(ImmutableTypes.isImmutable(Price.class));
+        Assert.assertTrue(ImmutableTypes.isImmutable(Catalog.class));
+        Assert.assertTrue(ImmutableTypes.isImmutable(Config.class));
+        Assert.assertFalse(ImmutableTypes.isImmutable(Order.class));
+        Assert.assertFalse(ImmutableTypes.isImmutable(Node.class));
+        Assert.assertFalse(ImmutableTypes.isImmutable(List.class));
+    }
+
+    @Test
+    public void testSameResult() {
+        Catalog oldCatalog = new Catalog("c", new Price(new BigDecimal("1.0"), "CNY"), Arrays.asList("a", "b"));
+        Catalog newCatalog = new Catalog("c", new Price(new BigDecimal("2.0"), "CNY"), Arrays.asList("a", "c"));
+        Config config = new Config(new ArrayList<>(Arrays.asList(1, 2)));
+        Config otherConfig = new Config(new ArrayList<>(Arrays.asList(1, 2)));
+        DiffMemo memo = new DiffMemo();
+        for (int i = 0; i < 20; i++) {
+            Order first = new Order(i, oldCatalog, config);
+            Order second = new Order(i % 3 == 0 ? -i : i, newCatalog, otherConfig);
+            List<FieldInfo> expected = comparator.getDiffFields(first, second);
+            List<FieldInfo> actual = comparator.getDiffFields(first, second, memo);
+            Assert.assertEquals(paths(expected), paths(actual));
+            Assert.assertEquals(comparator.isEquals(first, second), comparator.isEquals(first, second, memo));
+        }
+        Assert.assertTrue(paths(comparator.getDiffFields(new Order(1, oldCatalog, config), new Order(1, newCatalog, config), memo))
+                .contains("catalog.price.amount"));
+        // Catalog、Price、Config 各记录一对，Order 是可变的，不记录
+        Assert.assertEquals(3, memo.size());
+        Assert.assertTrue(memo.getHitCount() > 40);
+    }
+
+    @Test
+    public void testRebasePath() {
+        Price oldPrice = new Price(BigDecimal.ONE, "CNY");
+        Price newPrice = new Price(BigDecimal.TEN, "CNY");
+        Catalog first = new Catalog("c", oldPrice, Collections.<String>emptyList());
+        Catalog second = new Catalog("c", newPrice, Collections.<String>emptyList());
+        Holder firstHolder = new Holder(first, Arrays.asList(first, first));
+        Holder secondHolder = new Holder(second, Arrays.asList(second, first));
+        DiffMemo memo = new DiffMemo();
+        List<FieldInfo> diff = comparator.getDiffFields(firstHolder, secondHolder, memo);
+        Assert.assertEquals(paths(comparator.getDiffFields(firstHolder, secondHolder)), paths(diff));
+        Assert.assertTrue(paths(diff).contains("items[0].price.amount"));
+        Assert.assertTrue(memo.getHitCount() > 0);
+        // 修改返回的结果不影响缓存
+        for (FieldInfo fieldInfo : diff) {
+            fieldInfo.setPath("x");
+        }
+        Assert.assertTrue(paths(comparator.getDiffFields(firstHolder, secondHolder, memo)).contains("main.price.amount"));
+    }
+
+    @Test
+    public void testDepthLimit() {
+        Catalog first = new Catalog("c", new Price(BigDecimal.ONE, "CNY"), Collections.<String>emptyList());
+        Catalog second = new Catalog("c", new Price(BigDecimal.TEN, "CNY"), Collections.<String>emptyList());
+        DiffMemo memo = new DiffMemo();
+        comparator.setMaxDepth(2);
+        try {
+            // 浅层记录的结果不能用于更深的位置
+            Holder shallow1 = new Holder(first, Collections.<Catalog>emptyList());
+            Holder shallow2 = new Holder(second, Collections.<Catalog>emptyList());
+            comparator.getDiffFields(shallow1, shallow2, memo);
+            Wrapper deep1 = new Wrapper(shallow1);
+            Wrapper deep2 = new Wrapper(shallow2);
+            Assert.assertEquals(paths(comparator.getDiffFields(deep1, deep2)), paths(comparator.getDiffFields(deep1, deep2, memo)));
+        } finally {
+            comparator.setMaxDepth(AbstractComparator.DEFAULT_MAX_DEPTH);
+        }
+    }
+
+    @Test
+    public void testSharedBetweenComparators() {
+        Catalog oldCatalog = new Catalog("c", new Price(BigDecimal.ONE, "CNY"), Collections.<String>emptyList());
+        Catalog newCatalog = new Catalog("c", new Price(BigDecimal.ONE, "USD"), Collections.<String>emptyList());
+        Order first = new Order(1, oldCatalog, null);
+        Order second = new Order(1, newCatalog, null);
+        DiffMemo memo = new DiffMemo();
+        Assert.assertEquals(Collections.singletonList("catalog.price.currency"), paths(comparator.getDiffFields(first, second, memo)));
+
+        // 另一个配置不同的比对器不复用前一个比对器记录的结果
+        AbstractComparator other = comparator instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+        other.setRecursive(true);
+        other.setExcludeFields(Collections.singletonList("currency"));
+        Assert.assertTrue(other.getDiffFields(first, second, memo).isEmpty());
+        Assert.assertTrue(other.isEquals(first, second, memo));
+
+        // 同一个比对器修改配置后也不复用
+        comparator.setExcludeFields(Collections.singletonList("currency"));
+        try {
+            Assert.assertTrue(comparator.getDiffFields(first, second, memo).isEmpty());
+        } finally {
+            comparator.setExcludeFields(null);
+        }
+        Assert.assertEquals(Collections.singletonList("catalog.price.currency"), paths(comparator.getDiffFields(first, second, memo)));
+    }
+
+    @Test
+    public void testBounded() {
+        DiffMemo memo = new DiffMemo(1);
+        for (int i = 0; i < 5; i++) {
+            comparator.getDiffFields(new Holder(new Catalog("c" + i, null, null), null),
+                    new Holder(new Catalog("d" + i, null, null), null), memo);
+        }
+        Assert.assertEquals(1, memo.size());
+    }
+
+    @Test
+    public void testBulk() {
+        Catalog oldCatalog = new Catalog("c", new Price(BigDecimal.ONE, "CNY"), Collections.singletonList("a"));
+        Catalog newCatalog = new Catalog("c", new Price(BigDecimal.ONE, "USD"), Collections.singletonList("a"));
+        List<DiffPair<Order, Order>> pairs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pairs.add(new DiffPair<>(i, new Order(i, oldCatalog, null), new Order(i, newCatalog, null)));
+        }
+        BulkComparator bulk = new BulkComparator(comparator, ForkJoinPool.commonPool(), 16, 4);
+        bulk.setMemoSize(100);
+        for (PairDiff<Order, Order> diff : bulk.diffAll(pairs)) {
+            Assert.assertEquals(Collections.singletonList("catalog.price.currency"), paths(diff.getDiffFields()));
+        }
+    }
+
+    private static List<String> paths(List<FieldInfo> diff) {
+        List<String> paths = new ArrayList<>();
+        for (FieldInfo fieldInfo : diff) {
+            paths.add(fieldInfo.getPath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    public static final class Price {
+        private final BigDecimal amount;
+        private final String currency;
+
+        public Price(BigDecimal amount, String currency) {
+            this.amount = amount;
+            this.currency = currency;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+    }
+
+    @DiffImmutable
+    public static final class Catalog {
+        private final String name;
+        private final Price price;
+        private final List<String> tags;
+
+        public Catalog(String name, Price price, List<String> tags) {
+            this.name = name;
+            this.price = price;
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Price getPrice() {
+            return price;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+
+    @DiffImmutable
+    public static final class Config {
+        private final List<Integer> values;
+
+        public Config(List<Integer> values) {
+            this.values = values;
+        }
+
+        public List<Integer> getValues() {
+            return values;
+        }
+    }
+
+    public static class Order {
+        private int id;
+        private Catalog catalog;
+        private Config config;
+
+        public Order(int id, Catalog catalog, Config config) {
+            this.id = id;
+            this.catalog = catalog;
+            this.config = config;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Catalog getCatalog() {
+            return catalog;
+        }
+
+        public Config getConfig() {
+            return config;
+        }
+    }
+
+    /**
+     * 引用自身类型的 final 字段，无法自动确认不可变
+     */
+    public static final class Node {
+        private final Node next;
+
+        public Node(Node next) {
+            this.next = next;
+        }
+
+        public Node getNext() {
+            return next;
+        }
+    }
+
+    public static class Holder {
+        private Catalog main;
+        private List<Catalog> items;
+
+        public Holder(Catalog main, List<Catalog> items) {
+            this.main = main;
+            this.items = items;
+        }
+
+        public Catalog getMain() {
+            return main;
+        }
+
+        public List<Catalog> getItems() {
+            return items;
+        }
+    }
+
+    public static class Wrapper {
+        private Holder holder;
+
+        public Wrapper(Holder holder) {
+            this.holder = holder;
+        }
+
+        public Holder getHolder() {
+            return holder;
+        }
+    }
+}
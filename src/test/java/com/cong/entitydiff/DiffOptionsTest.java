@@ -0,0 +1,219 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提前结束的比对参数化测试
+ */
+@RunWith(Parameterized.class)
+public class DiffOptionsTest {
+    private final AbstractComparator comparator;
+
+    public DiffOptionsTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testUnbounded() {
+        Mixed first = new Mixed();
+        Mixed second = Mixed.changed();
+        DiffResult result = comparator.diff(first, second, new DiffOptions());
+        Assert.assertEquals(comparator.diff(first, second).getNames(), result.getNames());
+        Assert.assertFalse(result.isTruncated());
+    }
+
+    @Test
+    public void testMaxDiffs() {
+        DiffOptions options = new DiffOptions();
+        options.setMaxDiffs(2);
+        DiffResult result = comparator.diff(new Mixed(), Mixed.changed(), options);
+        Assert.assertEquals(2, result.size());
+        Assert.assertTrue(result.isTruncated());
+        // 基本类型先比对
+        Assert.assertEquals(new HashSet<>(Arrays.asList("count", "flag")), new HashSet<>(result.getNames()));
+
+        // 只有最后一个属性不相等时找到也不算提前结束
+        Mixed second = new Mixed();
+        second.items = Collections.singletonList("b");
+        options.setMaxDiffs(1);
+        result = comparator.diff(new Mixed(), second, options);
+        Assert.assertEquals(Collections.singletonList("items"), result.getNames());
+        Assert.assertFalse(result.isTruncated());
+    }
+
+    @Test
+    public void testMaxCost() {
+        DiffOptions options = new DiffOptions();
+        // 两个基本类型 + 一个 String
+        options.setMaxCost(4);
+        DiffResult result = comparator.diff(new Mixed(), Mixed.changed(), options);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("count", "flag", "name")), new HashSet<>(result.getNames()));
+        Assert.assertTrue(result.isTruncated());
+    }
+
+    @Test
+    public void testTimeout() {
+        Slow first = new Slow();
+        Slow second = new Slow();
+        DiffOptions options = new DiffOptions();
+        options.setTimeout(1, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        DiffResult result = comparator.diff(first, second, options);
+        Assert.assertTrue(result.isTruncated());
+        Assert.assertTrue(result.size() < 4);
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(4 * Delay.MILLIS));
+    }
+
+    @Test
+    public void testListenerLatency() {
+        AbstractComparator listened = comparator instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+        long[] latency = {-1};
+        listened.addListener(new ComparatorListener() {
+            @Override
+            public void onCompare(Class<?> firstType, Class<?> secondType, long nanos, int fieldsScanned, int fieldsDifferent) {
+                latency[0] = nanos;
+            }
+        });
+        DiffOptions options = new DiffOptions();
+        options.setMaxDiffs(1);
+        long start = System.nanoTime();
+        listened.diff(new Mixed(), Mixed.changed(), options);
+        long elapsed = System.nanoTime() - start;
+        // 没有超时时同样从比对开始计时
+        Assert.assertTrue(latency[0] >= 0 && latency[0] <= elapsed);
+    }
+
+    @Test
+    public void testAdaptiveOrder() {
+        DiffOptions options = new DiffOptions();
+        options.setMaxDiffs(1);
+        Pair equal = new Pair("a", "b");
+        Pair changed = new Pair("a", "c");
+        for (int i = 0; i < 2048; i++) {
+            comparator.diff(equal, changed, options);
+        }
+        // second 总是不相等，求值顺序调整到 first 之前
+        DiffResult result = comparator.diff(new Pair("a", "b"), new Pair("x", "y"), options);
+        Assert.assertEquals(Collections.singletonList("second"), result.getNames());
+        Assert.assertTrue(result.isTruncated());
+        // 不影响完整比对的结果
+        Assert.assertEquals(Arrays.asList("first", "second"), comparator.diff(new Pair("a", "b"), new Pair("x", "y")).getNames());
+    }
+
+    @Test
+    public void testRecursiveFallback() {
+        AbstractComparator recursive = comparator instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+        recursive.setRecursive(true);
+        DiffOptions options = new DiffOptions();
+        options.setMaxDiffs(1);
+        DiffResult result = recursive.diff(new Mixed(), Mixed.changed(), options);
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(result.isTruncated());
+    }
+
+    public static class Mixed {
+        private List<String> items = Collections.singletonList("a");
+        private String name = "a";
+        private int count;
+        private boolean flag;
+
+        static Mixed changed() {
+            Mixed mixed = new Mixed();
+            mixed.items = Collections.singletonList("b");
+            mixed.name = "b";
+            mixed.count = 1;
+            mixed.flag = true;
+            return mixed;
+        }
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+    }
+
+    public static class Pair {
+        private final String first;
+        private final String second;
+
+        public Pair(String first, String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public String getFirst() {
+            return first;
+        }
+
+        public String getSecond() {
+            return second;
+        }
+    }
+
+    /**
+     * equals 很慢的嵌套对象，每次比对都不相等
+     */
+    public static class Delay {
+        static final long MILLIS = 20;
+
+        @Override
+        public boolean equals(Object o) {
+            try {
+                Thread.sleep(MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    public static class Slow {
+        private Delay d1 = new Delay();
+        private Delay d2 = new Delay();
+        private Delay d3 = new Delay();
+        private Delay d4 = new Delay();
+
+        public Delay getD1() {
+            return d1;
+        }
+
+        public Delay getD2() {
+            return d2;
+        }
+
+        public Delay getD3() {
+            return d3;
+        }
+
+        public Delay getD4() {
+            return d4;
+        }
+    }
+}
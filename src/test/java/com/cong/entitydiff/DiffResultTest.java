@@ -0,0 +1,111 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+
+/**
+ * 紧凑比对结果参数化测试，结果需要与 getDiffFields 一致
+ */
+@RunWith(Parameterized.class)
+public class DiffResultTest {
+    private final AbstractComparator comparator;
+
+    public DiffResultTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testSameAsDiffFields() {
+        Wide first = new Wide();
+        Wide second = new Wide();
+        second.f0 = 1;
+        second.f63 = 1;
+        second.f64 = 1;
+        second.name = "b";
+        DiffResult result = comparator.diff(first, second);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals(Arrays.asList("f0", "f63", "f64", "name"), sorted(result.getNames()));
+        Assert.assertTrue(result.contains("f64"));
+        Assert.assertFalse(result.contains("f1"));
+        Assert.assertEquals(toMap(comparator.getDiffFields(first, second)), toMap(result.toFieldInfos()));
+    }
+
+    @Test
+    public void testIterate() {
+        Wide first = new Wide();
+        Wide second = new Wide();
+        second.f64 = 7;
+        DiffResult result = comparator.diff(first, second);
+        int visited = 0;
+        for (int i = result.nextIndex(0); i >= 0; i = result.nextIndex(i + 1)) {
+            Assert.assertEquals("f64", result.getName(i));
+            Assert.assertEquals(0, result.getFirstValue(i));
+            Assert.assertEquals(7, result.getSecondValue(i));
+            visited++;
+        }
+        Assert.assertEquals(1, visited);
+    }
+
+    @Test
+    public void testEmptyAndFallback() {
+        Assert.assertTrue(comparator.diff(new Wide(), new Wide()).isEmpty());
+        DiffResult simple = comparator.diff("a", "b");
+        Assert.assertEquals(1, simple.size());
+        Assert.assertEquals("String", simple.getName(simple.nextIndex(0)));
+        Assert.assertEquals(-1, simple.nextIndex(1));
+    }
+
+    private static List<String> sorted(List<String> names) {
+        List<String> copy = new ArrayList<>(names);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static Map<String, List<Object>> toMap(List<FieldInfo> fieldInfos) {
+        Map<String, List<Object>> map = new HashMap<>();
+        for (FieldInfo fieldInfo : fieldInfos) {
+            map.put(fieldInfo.getFieldName(), Arrays.asList(fieldInfo.getFirstFieldType(), fieldInfo.getSecondFieldType(),
+                    fieldInfo.getFirstVal(), fieldInfo.getSecondVal()));
+        }
+        return map;
+    }
+
+    /**
+     * 超过 64 个属性，位图需要多个 long
+     */
+    public static class Wide {
+        int f0, f1, f2, f3, f4, f5, f6, f7, f8, f9, f10, f11, f12, f13, f14, f15, f16, f17, f18, f19, f20, f21, f22, f23,
+                f24, f25, f26, f27, f28, f29, f30, f31, f32, f33, f34, f35, f36, f37, f38, f39, f40, f41, f42, f43, f44, f45,
+                f46, f47, f48, f49, f50, f51, f52, f53, f54, f55, f56, f57, f58, f59, f60, f61, f62, f63, f64;
+        String name = "a";
+
+        public int getF0() {
+            return f0;
+        }
+
+        public int getF1() {
+            return f1;
+        }
+
+        public int getF63() {
+            return f63;
+        }
+
+        public int getF64() {
+            return f64;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 基线快照比对参数化测试
+ */
+@RunWith(Parameterized.class)
+public class EntitySnapshotTest {
+    private final AbstractComparator comparator;
+
+    public EntitySnapshotTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testUnchanged() {
+        Order order = new Order();
+        EntitySnapshot snapshot = comparator.snapshot(order);
+        Assert.assertFalse(comparator.isChanged(snapshot, order));
+        Assert.assertTrue(comparator.getDiffFields(snapshot, order).isEmpty());
+        // 引用变化但值相等的属性不算修改
+        order.setAmount(new BigDecimal("10.000"));
+        order.setCode(new String("A001"));
+        Assert.assertFalse(comparator.isChanged(snapshot, order));
+    }
+
+    @Test
+    public void testChanged() {
+        Order order = new Order();
+        EntitySnapshot snapshot = comparator.snapshot(order);
+        order.setQuantity(3);
+        order.setPrice(Double.NaN);
+        order.setCode("A002");
+        List<FieldInfo> diff = comparator.getDiffFields(snapshot, order);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("quantity", "price", "code")), names(diff));
+        for (FieldInfo fieldInfo : diff) {
+            if ("quantity".equals(fieldInfo.getFieldName())) {
+                Assert.assertEquals(1, fieldInfo.getFirstVal());
+                Assert.assertEquals(3, fieldInfo.getSecondVal());
+            }
+        }
+        Assert.assertTrue(comparator.isChanged(snapshot, order));
+    }
+
+    @Test
+    public void testMutatedInPlace() {
+        Order order = new Order();
+        EntitySnapshot snapshot = comparator.snapshot(order);
+        order.getTags().add("urgent");
+        order.getScores()[0] = 9;
+        Assert.assertEquals(new HashSet<>(Arrays.asList("tags", "scores")), names(comparator.getDiffFields(snapshot, order)));
+    }
+
+    @Test
+    public void testMutatedWithSameHashCode() {
+        Holder holder = new Holder();
+        EntitySnapshot snapshot = comparator.snapshot(holder);
+        int hashCode = holder.getNumbers().hashCode();
+        holder.getNumbers().set(0, 2);
+        holder.getNumbers().set(1, 1);
+        Assert.assertEquals(hashCode, holder.getNumbers().hashCode());
+        Assert.assertEquals(Collections.singleton("numbers"), names(comparator.getDiffFields(snapshot, holder)));
+
+        // hashCode 只取决于标识的嵌套实体被原地修改
+        snapshot = comparator.snapshot(holder);
+        holder.getItem().name = "b";
+        Assert.assertEquals(Collections.singleton("item"), names(comparator.getDiffFields(snapshot, holder)));
+        Assert.assertTrue(comparator.isChanged(snapshot, holder));
+    }
+
+    @Test
+    public void testIgnoreAndExclude() {
+        AbstractComparator excluding = comparator instanceof FieldBaseComparator
+                ? new FieldBaseComparator(null, Collections.singletonList("code"))
+                : new GetterBaseComparator(null, Collections.singletonList("code"));
+        Order order = new Order();
+        EntitySnapshot snapshot = excluding.snapshot(order);
+        order.setCode("A002");
+        order.setRemark("changed");
+        Assert.assertFalse(excluding.isChanged(snapshot, order));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        comparator.isChanged(comparator.snapshot(new Order()), new Object());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSimpleType() {
+        comparator.snapshot("abc");
+    }
+
+    private static Set<String> names(List<FieldInfo> diff) {
+        Set<String> names = new HashSet<>();
+        for (FieldInfo fieldInfo : diff) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class Holder {
+        private List<Integer> numbers = new ArrayList<>(Arrays.asList(1, 32));
+        private Item item = new Item(1, "a");
+
+        public List<Integer> getNumbers() {
+            return numbers;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+    }
+
+    public static class Item {
+        private final long id;
+        private String name;
+
+        public Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+
+    public static class Order {
+        private int quantity = 1;
+        private double price = 2.5;
+        private String code = "A001";
+        private BigDecimal amount = new BigDecimal("10");
+        private List<String> tags = new ArrayList<>();
+        private int[] scores = {1, 2};
+        @DiffIgnore
+        private String remark;
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public int[] getScores() {
+            return scores;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+    }
+}
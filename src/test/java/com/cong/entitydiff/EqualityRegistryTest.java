@@ -0,0 +1,130 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 相等判断注册表测试
+ */
+public class EqualityRegistryTest {
+    private final EqualityRegistry registry = EqualityRegistry.defaults();
+
+    @Test
+    public void testBuiltins() {
+        Assert.assertTrue(registry.isEquals(new BigDecimal("1.0"), new BigDecimal("1.00")));
+        Assert.assertFalse(registry.isEquals(new BigDecimal("1.0"), new BigDecimal("1.01")));
+        OffsetDateTime time = OffsetDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.ofHours(8));
+        Assert.assertTrue(registry.isEquals(time, time.withOffsetSameInstant(ZoneOffset.UTC)));
+        Assert.assertTrue(registry.isEquals(new Date(1000), new Timestamp(1000)));
+        Assert.assertTrue(registry.isEquals(new int[]{1, 2}, new int[]{1, 2}));
+        Assert.assertTrue(registry.isEquals(new Object[]{new BigDecimal("2")}, new Object[]{new BigDecimal("2.0")}));
+        Assert.assertTrue(registry.isEquals(Collections.singletonMap("a", new BigDecimal("1")),
+                new HashMap<>(Collections.singletonMap("a", new BigDecimal("1.000")))));
+        Assert.assertFalse(registry.isEquals(Collections.singletonMap("a", null), Collections.singletonMap("b", null)));
+        Assert.assertTrue(registry.isEquals(Arrays.asList(new BigDecimal("1"), "x"), Arrays.asList(new BigDecimal("1.0"), "x")));
+    }
+
+    @Test
+    public void testRegister() {
+        EqualityRegistry custom = registry.with(Money.class, (a, b) -> ((Money) a).cents / 100 == ((Money) b).cents / 100);
+        Assert.assertTrue(custom.isEquals(new Money(150), new Money(199)));
+        Assert.assertFalse(registry.isEquals(new Money(150), new Money(199)));
+        Assert.assertNull(registry.getStrategy(Money.class));
+    }
+
+    @Test
+    public void testComparator() {
+        for (AbstractComparator comparator : new AbstractComparator[]{new FieldBaseComparator(), new GetterBaseComparator()}) {
+            Account first = new Account(new BigDecimal("10.0"), new Money(100), new Money(100));
+            Account second = new Account(new BigDecimal("10.00"), new Money(120), new Money(120));
+            Assert.assertEquals(2, comparator.getDiffFields(first, second).size());
+            comparator.registerEquality(Money.class, (a, b) -> ((Money) a).cents / 100 == ((Money) b).cents / 100);
+            Assert.assertTrue(comparator.isEquals(first, second));
+            Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+            // 注册了比对方式的类型在顶层也作为整体比对
+            Assert.assertTrue(comparator.getDiffFields(new Money(150), new Money(199)).isEmpty());
+            Assert.assertEquals(1, comparator.getDiffFields(new Money(150), new Money(250)).size());
+        }
+    }
+
+    @Test
+    public void testCustomRegistryPlansNotShared() {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache();
+        Account first = new Account(new BigDecimal("10.0"), new Money(100), null);
+        Account second = new Account(new BigDecimal("10.0"), new Money(120), null);
+        for (int i = 0; i < 100; i++) {
+            FieldBaseComparator comparator = new FieldBaseComparator();
+            comparator.setMetadataCache(cache);
+            comparator.registerEquality(Money.class, (a, b) -> ((Money) a).cents / 100 == ((Money) b).cents / 100);
+            Assert.assertTrue(comparator.isEquals(first, second));
+        }
+        // 自定义注册表的比对计划缓存在比对器自身，不会在共享的类元数据上越积越多
+        Assert.assertEquals(0, cache.get(Account.class).getComparePlanCount());
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        comparator.setMetadataCache(cache);
+        Assert.assertFalse(comparator.isEquals(first, second));
+        Assert.assertEquals(1, cache.get(Account.class).getComparePlanCount());
+    }
+
+    @Test
+    public void testCustomRegistryCollected() throws Exception {
+        WeakReference<EqualityRegistry> custom = compareMapsAndArrays();
+        for (int i = 0; i < 50 && custom.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull("比对过 Map 和数组的注册表没有被回收", custom.get());
+    }
+
+    private WeakReference<EqualityRegistry> compareMapsAndArrays() {
+        EqualityRegistry custom = registry.with(Money.class, (a, b) -> ((Money) a).cents / 100 == ((Money) b).cents / 100);
+        Assert.assertTrue(custom.isEquals(new HashMap<>(Collections.singletonMap("a", new Money(150))),
+                new HashMap<>(Collections.singletonMap("a", new Money(199)))));
+        Assert.assertTrue(custom.isEquals(new Money[]{new Money(150)}, new Money[]{new Money(199)}));
+        Assert.assertTrue(custom.getStrategy(HashMap.class).isEquals(Collections.singletonMap("a", new Money(150)),
+                Collections.singletonMap("a", new Money(199))));
+        return new WeakReference<>(custom);
+    }
+
+    public static class Money {
+        private final long cents;
+
+        public Money(long cents) {
+            this.cents = cents;
+        }
+    }
+
+    public static class Account {
+        private final BigDecimal balance;
+        private final Money limit;
+        /**
+         * 声明类型为 Object，按值的实际类型分派
+         */
+        private final Object extra;
+
+        public Account(BigDecimal balance, Money limit, Object extra) {
+            this.balance = balance;
+            this.limit = limit;
+            this.extra = extra;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public Money getLimit() {
+            return limit;
+        }
+
+        public Object getExtra() {
+            return extra;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 结构指纹参数化测试，指纹相同时 getDiffFields 必须为空
+ */
+@RunWith(Parameterized.class)
+public class FingerprintTest {
+    private final AbstractComparator comparator;
+
+    public FingerprintTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testStableAcrossRuns() {
+        // 枚举的 hashCode 每次启动都不同，作为值、Set 元素和 Map 的键时指纹仍然固定
+        Assert.assertEquals("51de3344beb51ee6c1b7637fc0cfedc2", comparator.fingerprint(new Tagged()).toString());
+    }
+
+    @Test
+    public void testContentCollisions() {
+        // 这些值的 hashCode 相同，指纹按完整内容计算后应当不同
+        Object[][] pairs = {
+                {LocalDateTime.of(2024, 1, 1, 0, 0, 0, 3), LocalDateTime.of(2024, 1, 2, 0, 0, 0, 0)},
+                {new UUID(1, 0), new UUID(0, 1)},
+                {new BigDecimal("1E-31"), new BigDecimal("2")},
+                {Instant.ofEpochSecond(51), Instant.ofEpochSecond(0, 1)},
+                {Collections.singleton(new UUID(1, 0)), Collections.singleton(new UUID(0, 1))},
+        };
+        for (Object[] pair : pairs) {
+            Assert.assertEquals(pair[0].hashCode(), pair[1].hashCode());
+            Valued first = new Valued(pair[0]);
+            Valued second = new Valued(pair[1]);
+            Assert.assertFalse(comparator.getDiffFields(first, second).isEmpty());
+            Assert.assertNotEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+        }
+    }
+
+    @Test
+    public void testEqualObjects() {
+        Record first = new Record(1, "a", new BigDecimal("1.0"), new HashSet<>(Arrays.asList("x", "y")));
+        Record second = new Record(1, "a", new BigDecimal("1.00"), new LinkedHashSet<>(Arrays.asList("y", "x")));
+        first.time = OffsetDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.ofHours(8));
+        second.time = first.time.withOffsetSameInstant(ZoneOffset.UTC);
+        Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+        Assert.assertEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+    }
+
+    @Test
+    public void testDifferentObjects() {
+        Record base = new Record(1, "a", new BigDecimal("1"), Collections.<String>emptySet());
+        List<Record> changed = Arrays.asList(
+                new Record(2, "a", new BigDecimal("1"), Collections.<String>emptySet()),
+                new Record(1, "b", new BigDecimal("1"), Collections.<String>emptySet()),
+                new Record(1, "a", new BigDecimal("1.01"), Collections.<String>emptySet()),
+                new Record(1, "a", new BigDecimal("1"), Collections.singleton("x")),
+                new Record(1, null, new BigDecimal("1"), Collections.<String>emptySet()));
+        Set<Fingerprint> fingerprints = new HashSet<>();
+        fingerprints.add(comparator.fingerprint(base));
+        for (Record record : changed) {
+            Assert.assertFalse(comparator.getDiffFields(base, record).isEmpty());
+            Assert.assertTrue(fingerprints.add(comparator.fingerprint(record)));
+        }
+    }
+
+    @Test
+    public void testExcludeAndIgnore() {
+        AbstractComparator excluding = comparator instanceof FieldBaseComparator
+                ? new FieldBaseComparator(null, Collections.singletonList("name"))
+                : new GetterBaseComparator(null, Collections.singletonList("name"));
+        Record first = new Record(1, "a", null, null);
+        Record second = new Record(1, "b", null, null);
+        second.remark = "ignored";
+        Assert.assertEquals(excluding.fingerprint(first), excluding.fingerprint(second));
+        Assert.assertNotEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+    }
+
+    @Test
+    public void testRecursive() {
+        comparator.setRecursive(true);
+        try {
+            Record first = new Record(1, "a", null, null);
+            Record second = new Record(1, "a", null, null);
+            first.child = new Record(2, "c", null, null);
+            second.child = new Record(2, "c", null, null);
+            // 循环引用
+            first.child.child = first;
+            second.child.child = second;
+            Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+            Assert.assertEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+            second.child.name = "d";
+            Assert.assertNotEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+        } finally {
+            comparator.setRecursive(false);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Fingerprint fingerprint = comparator.fingerprint(new Record(1, "a", null, null));
+        Assert.assertEquals(32, fingerprint.toString().length());
+        Assert.assertEquals(fingerprint, Fingerprint.parse(fingerprint.toString()));
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class Tagged {
+        private Level level = Level.HIGH;
+        private Set<Level> levels = EnumSet.of(Level.LOW, Level.HIGH);
+        private Map<Level, String> labels = new HashMap<>();
+
+        public Tagged() {
+            labels.put(Level.LOW, "l");
+            labels.put(Level.HIGH, "h");
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public Set<Level> getLevels() {
+            return levels;
+        }
+
+        public Map<Level, String> getLabels() {
+            return labels;
+        }
+    }
+
+    public static class Valued {
+        private Object value;
+
+        public Valued(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    public static class Record {
+        private int id;
+        private String name;
+        private BigDecimal amount;
+        private Set<String> tags;
+        private OffsetDateTime time;
+        private Record child;
+        @DiffIgnore
+        private String remark;
+
+        public Record(int id, String name, BigDecimal amount, Set<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.amount = amount;
+            this.tags = tags;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public OffsetDateTime getTime() {
+            return time;
+        }
+
+        public Record getChild() {
+            return child;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.cong.entitydiff;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 混合比对器测试
+ */
+public class HybridComparatorTest {
+    private final HybridComparator comparator = new HybridComparator();
+
+    @Test
+    public void testFieldFirst() {
+        Order first = new Order(1L, "a");
+        Order second = new Order(1L, "b");
+        List<FieldInfo> diff = comparator.getDiffFields(first, second);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("name", "displayName")), names(diff));
+        // 有字段的属性读字段，不调用 getter
+        Assert.assertEquals(0, first.nameReads + second.nameReads);
+        ClassPlan plan = comparator.getClassPlan(first);
+        Assert.assertTrue(plan.getAccessor("name").getMember() instanceof java.lang.reflect.Field);
+        Assert.assertTrue(plan.getAccessor("displayName").getMember() instanceof java.lang.reflect.Method);
+        Assert.assertTrue(comparator.isEquals(new Order(2L, "a"), new Order(2L, "a")));
+    }
+
+    @Test
+    public void testSharedCache() {
+        ClassPlan plan = comparator.getClassPlan(new Order(1L, "a"));
+        Assert.assertSame(plan, new HybridComparator().getClassPlan(new Order(2L, "b")));
+        Assert.assertSame(plan, HybridComparator.getDefaultMetadataCache().get(Order.class));
+    }
+
+    @Test
+    public void testCglibProxy() {
+        Order$$EnhancerByCGLIB$$1 proxy = new Order$$EnhancerByCGLIB$$1(new Order(1L, "a"));
+        Assert.assertTrue(ProxySupport.isProxyClass(proxy.getClass()));
+        Assert.assertSame(Order.class, ProxySupport.getUserClass(proxy.getClass()));
+        // 代理对象的字段是空的，只能通过 getter 读取
+        Assert.assertTrue(comparator.getDiffFields(proxy, new Order$$EnhancerByCGLIB$$1(new Order(1L, "a"))).isEmpty());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("name", "displayName")),
+                names(comparator.getDiffFields(proxy, new Order$$EnhancerByCGLIB$$1(new Order(1L, "b")))));
+    }
+
+    @Test
+    public void testHibernateProxy() {
+        OrderProxy lazy1 = new OrderProxy(1L, null);
+        OrderProxy lazy2 = new OrderProxy(1L, null);
+        Assert.assertTrue(comparator.isEquals(lazy1, lazy2));
+        Assert.assertFalse(comparator.isEquals(lazy1, new OrderProxy(2L, null)));
+        Assert.assertEquals(0, lazy1.initializations + lazy2.initializations);
+
+        // 已经初始化的代理比对被代理的对象
+        OrderProxy loaded = new OrderProxy(1L, new Order(1L, "a"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("name", "displayName")), names(comparator.getDiffFields(loaded, new Order(1L, "b"))));
+
+        // 作为属性值时不会触发加载
+        Holder first = new Holder(lazy1);
+        Holder second = new Holder(new OrderProxy(2L, null));
+        Assert.assertEquals(Collections.singleton("order"), names(comparator.getDiffFields(first, second)));
+        Assert.assertTrue(comparator.getDiffFields(first, new Holder(lazy2)).isEmpty());
+        Assert.assertEquals(0, lazy1.initializations + lazy2.initializations);
+    }
+
+    @Test
+    public void testMixedHibernateProxy() {
+        // 代理与实体混合时按标识比对，不调用 equals 也不触发加载
+        OrderProxy lazy = new OrderProxy(1L, null);
+        Assert.assertTrue(comparator.getDiffFields(new Holder(lazy), new Holder(new Order(1L, "a"))).isEmpty());
+        Assert.assertTrue(comparator.getDiffFields(new Holder(new Order(1L, "a")), new Holder(lazy)).isEmpty());
+        Assert.assertEquals(Collections.singleton("order"), names(comparator.getDiffFields(new Holder(lazy), new Holder(new Order(2L, "a")))));
+        Assert.assertEquals(0, lazy.initializations);
+
+        // 已经初始化的代理同样按标识比对
+        OrderProxy loaded = new OrderProxy(1L, new Order(1L, "a"));
+        Assert.assertTrue(comparator.getDiffFields(new Holder(loaded), new Holder(new Order(1L, "b"))).isEmpty());
+        Assert.assertEquals(Collections.singleton("order"), names(comparator.getDiffFields(new Holder(new Order(2L, "a")), new Holder(loaded))));
+        // 没有标识的实体只与自身相等
+        Assert.assertEquals(Collections.singleton("order"), names(comparator.getDiffFields(new Holder(new OrderProxy(null, null)), new Holder(new Order(null, "a")))));
+    }
+
+    @Test
+    public void testCyclicHibernateProxy() {
+        Node first = cycle("a");
+        Node second = cycle("a");
+        for (HybridComparator comparator : new HybridComparator[]{new HybridComparator(), recursive()}) {
+            Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+            Assert.assertTrue(comparator.isEquals(first, second));
+            Assert.assertEquals(Collections.singleton("name"), names(comparator.getDiffFields(first, cycle("b"))));
+        }
+    }
+
+    private static HybridComparator recursive() {
+        HybridComparator comparator = new HybridComparator();
+        comparator.setRecursive(true);
+        return comparator;
+    }
+
+    /**
+     * 两个节点通过已经初始化的代理互相引用
+     */
+    private static Node cycle(String name) {
+        Node node1 = new Node(1L, name);
+        Node node2 = new Node(2L, "c");
+        node1.partner = new NodeProxy(2L, node2);
+        node2.partner = new NodeProxy(1L, node1);
+        return node1;
+    }
+
+    @Test
+    public void testSharedProxyRegistry() {
+        // 所有实例共享同一个注册表，比对计划不会随实例增长
+        Assert.assertSame(comparator.getEqualityRegistry(), new HybridComparator().getEqualityRegistry());
+        Assert.assertTrue(comparator.getEqualityRegistry().isShared());
+    }
+
+    private static Set<String> names(List<FieldInfo> diff) {
+        Set<String> names = new HashSet<>();
+        for (FieldInfo fieldInfo : diff) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class Order {
+        private Long id;
+        private String name;
+        transient int nameReads;
+
+        public Order() {
+        }
+
+        public Order(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            nameReads++;
+            return name;
+        }
+
+        /**
+         * 没有对应字段的计算属性
+         */
+        public String getDisplayName() {
+            return "#" + id + " " + name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            throw new UnsupportedOperationException("不应该调用 equals");
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(id);
+        }
+    }
+
+    /**
+     * 模拟 CGLIB 生成的代理类，自身的字段没有赋值，getter 转发给被代理的对象
+     */
+    public static class Order$$EnhancerByCGLIB$$1 extends Order {
+        private final Order target;
+
+        public Order$$EnhancerByCGLIB$$1(Order target) {
+            this.target = target;
+        }
+
+        @Override
+        public Long getId() {
+            return target.getId();
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return target.getDisplayName();
+        }
+    }
+
+    /**
+     * 模拟 Hibernate 的代理，implementation 为 null 表示没有初始化
+     */
+    public static class OrderProxy extends Order implements HibernateProxy, LazyInitializer {
+        private final Long identifier;
+        private final Order implementation;
+        int initializations;
+
+        public OrderProxy(Long identifier, Order implementation) {
+            this.identifier = identifier;
+            this.implementation = implementation;
+        }
+
+        @Override
+        public LazyInitializer getHibernateLazyInitializer() {
+            return this;
+        }
+
+        @Override
+        public boolean isUninitialized() {
+            return implementation == null;
+        }
+
+        @Override
+        public Object getImplementation() {
+            if (implementation == null) {
+                initializations++;
+                throw new IllegalStateException("不应该触发加载");
+            }
+            return implementation;
+        }
+
+        @Override
+        public Object getIdentifier() {
+            return identifier;
+        }
+    }
+
+    public static class Node {
+        private Long id;
+        private String name;
+        private Node partner;
+
+        public Node() {
+        }
+
+        public Node(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class NodeProxy extends Node implements HibernateProxy, LazyInitializer {
+        private final Long identifier;
+        private final Node implementation;
+
+        public NodeProxy(Long identifier, Node implementation) {
+            this.identifier = identifier;
+            this.implementation = implementation;
+        }
+
+        @Override
+        public LazyInitializer getHibernateLazyInitializer() {
+            return this;
+        }
+
+        @Override
+        public boolean isUninitialized() {
+            return false;
+        }
+
+        @Override
+        public Object getImplementation() {
+            return implementation;
+        }
+
+        @Override
+        public Object getIdentifier() {
+            return identifier;
+        }
+    }
+
+    public static class Holder {
+        private final Order order;
+
+        public Holder(Order order) {
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * 类元数据缓存测试
+ */
+public class MetadataCacheTest {
+
+    @Test
+    public void testInvalidate() {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache();
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        comparator.setMetadataCache(cache);
+        Assert.assertFalse(comparator.isEquals(new First(1), new First(2)));
+        Assert.assertFalse(comparator.isEquals(new Second(1), new Second(2)));
+        Assert.assertEquals(2, cache.size());
+        ClassPlan plan = cache.get(First.class);
+        Assert.assertNotNull(plan);
+
+        cache.invalidate(First.class);
+        Assert.assertNull(cache.get(First.class));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertTrue(comparator.isEquals(new First(1), new First(1)));
+        Assert.assertNotSame(plan, cache.get(First.class));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get(Second.class));
+        Assert.assertEquals(1, comparator.getDiffFields(new Second(1), new Second(2)).size());
+    }
+
+    @Test
+    public void testBounded() {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache(2);
+        Function<Class<?>, ClassPlan> loader = k -> new ClassPlan(k, Collections.<PropertyAccessor>emptyList());
+        cache.computeIfAbsent(First.class, loader);
+        cache.computeIfAbsent(Second.class, loader);
+        // 都带有访问标记，扫描一轮后淘汰最早加载的 First
+        cache.computeIfAbsent(Third.class, loader);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get(First.class));
+        // 命中 Second，再次超出容量时淘汰没有访问标记的 Third
+        Assert.assertNotNull(cache.get(Second.class));
+        cache.computeIfAbsent(First.class, loader);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(First.class));
+        Assert.assertNotNull(cache.get(Second.class));
+        Assert.assertNull(cache.get(Third.class));
+
+        // 被淘汰后重新加载，比对结果不变
+        cache.invalidateAll();
+        GetterBaseComparator comparator = new GetterBaseComparator();
+        comparator.setMetadataCache(cache);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1, comparator.getDiffFields(new First(1), new First(2)).size());
+            Assert.assertEquals(1, comparator.getDiffFields(new Second(1), new Second(2)).size());
+            Assert.assertEquals(1, comparator.getDiffFields(new Third(1), new Third(2)).size());
+        }
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testReloadDoesNotGrowComparePlans() {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache();
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        comparator.setMetadataCache(cache);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertFalse(comparator.isEquals(new First(1), new Second(2)));
+            // 对象2的类元数据被淘汰后重新加载，替换按旧元数据构建的比对计划
+            cache.invalidate(Second.class);
+        }
+        Assert.assertEquals(1, cache.get(First.class).getComparePlanCount());
+    }
+
+    @Test
+    public void testClassUnloading() throws Exception {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache();
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        comparator.setMetadataCache(cache);
+        WeakReference<ClassLoader> loader = compareInIsolatedLoader(comparator);
+        Assert.assertEquals(1, cache.size());
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull("类加载器没有被回收", loader.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testOtherClassUnloading() throws Exception {
+        ClassValueMetadataCache cache = new ClassValueMetadataCache();
+        FieldBaseComparator comparator = new FieldBaseComparator();
+        comparator.setMetadataCache(cache);
+        WeakReference<ClassLoader> loader = compareWithIsolatedLoader(comparator);
+        ClassPlan plan = cache.get(Second.class);
+        Assert.assertEquals(1, plan.getComparePlanCount());
+        // 挂在对象1的类元数据上的比对计划不能让对象2的类加载器无法回收
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull("类加载器没有被回收", loader.get());
+        Assert.assertSame(plan, cache.get(Second.class));
+        Assert.assertFalse(comparator.isEquals(new Second(1), new First(2)));
+    }
+
+    private static WeakReference<ClassLoader> compareWithIsolatedLoader(FieldBaseComparator comparator) throws Exception {
+        IsolatedLoader loader = new IsolatedLoader(First.class.getName());
+        Object second = loader.loadClass(First.class.getName()).getConstructor(int.class).newInstance(2);
+        Assert.assertFalse(comparator.isEquals(new Second(1), second));
+        Assert.assertTrue(comparator.isEquals(new Second(2), second));
+        return new WeakReference<>(loader);
+    }
+
+    private static WeakReference<ClassLoader> compareInIsolatedLoader(FieldBaseComparator comparator) throws Exception {
+        IsolatedLoader loader = new IsolatedLoader(First.class.getName());
+        Class<?> type = loader.loadClass(First.class.getName());
+        Assert.assertNotSame(First.class, type);
+        Object first = type.getConstructor(int.class).newInstance(1);
+        Object second = type.getConstructor(int.class).newInstance(2);
+        Assert.assertEquals(1, comparator.getDiffFields(first, second).size());
+        Assert.assertFalse(comparator.isEquals(first, second));
+        return new WeakReference<>(loader);
+    }
+
+    /**
+     * 自行定义指定的类，其余委托给父加载器
+     */
+    private static class IsolatedLoader extends ClassLoader {
+        private final String isolated;
+
+        IsolatedLoader(String isolated) {
+            super(MetadataCacheTest.class.getClassLoader());
+            this.isolated = isolated;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!isolated.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    for (int n; (n = in.read(buffer)) > 0; ) {
+                        out.write(buffer, 0, n);
+                    }
+                    byte[] bytes = out.toByteArray();
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+
+    public static class First {
+        private final int value;
+
+        public First(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public static class Second {
+        private final int value;
+
+        public Second(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public static class Third {
+        private final int value;
+
+        public Third(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+}
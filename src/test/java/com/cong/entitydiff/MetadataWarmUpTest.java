@@ -0,0 +1,218 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 元数据预热和快照测试
+ */
+public class MetadataWarmUpTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testScanAndWarmUp() throws Exception {
+        List<Class<?>> types = MetadataWarmUp.scanPackage("com.cong.entitydiff", getClass().getClassLoader());
+        Assert.assertTrue(types.contains(Model.class));
+        Assert.assertTrue(types.contains(FieldBaseComparator.class));
+        Assert.assertFalse(types.contains(Comparator.class));
+
+        ClassValueMetadataCache fieldCache = new ClassValueMetadataCache();
+        ClassValueMetadataCache getterCache = new ClassValueMetadataCache();
+        FieldBaseComparator fieldComparator = new FieldBaseComparator();
+        fieldComparator.setMetadataCache(fieldCache);
+        GetterBaseComparator getterComparator = new GetterBaseComparator();
+        getterComparator.setMetadataCache(getterCache);
+        List<Class<?>> models = Arrays.asList(Model.class, Base.class);
+        Assert.assertEquals(4, MetadataWarmUp.warmUp(models, fieldComparator, getterComparator));
+        Assert.assertEquals(2, fieldCache.size());
+        Assert.assertEquals(2, getterCache.size());
+        Assert.assertEquals(Arrays.asList("name", "active", "id"), propertyNames(fieldCache.get(Model.class)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("name", "active", "id")), getterCache.get(Model.class).getPropertyNames());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        for (AbstractComparator source : new AbstractComparator[]{new FieldBaseComparator(), new GetterBaseComparator()}) {
+            Path file = folder.newFile().toPath();
+            MetadataWarmUp.save(file, Arrays.asList(Model.class, Base.class), source);
+
+            AbstractComparator target = source instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+            ClassValueMetadataCache cache = new ClassValueMetadataCache();
+            target.setMetadataCache(cache);
+            Assert.assertEquals(2, MetadataWarmUp.load(file, target, getClass().getClassLoader()));
+            Assert.assertEquals(propertyNames(source.loadClassPlan(Model.class)), propertyNames(cache.get(Model.class)));
+
+            List<FieldInfo> diff = target.getDiffFields(new Model(1, "a", true), new Model(1, "b", true));
+            Assert.assertEquals(1, diff.size());
+            Assert.assertEquals("name", diff.get(0).getFieldName());
+            Assert.assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void testChangedMembers() throws Exception {
+        for (AbstractComparator source : new AbstractComparator[]{new FieldBaseComparator(), new GetterBaseComparator()}) {
+            Path file = folder.newFile().toPath();
+            MetadataWarmUp.save(file, Collections.singletonList(Schema1.class), source);
+            // 模拟保存快照之后类新增了属性：把快照中的类名换成多一个属性的同名长度的类
+            String content = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+            Files.write(file, content.replace("Schema1", "Schema2").getBytes(StandardCharsets.ISO_8859_1));
+
+            AbstractComparator target = source instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+            ClassValueMetadataCache cache = new ClassValueMetadataCache();
+            target.setMetadataCache(cache);
+            Assert.assertEquals(0, MetadataWarmUp.load(file, target, getClass().getClassLoader()));
+            Assert.assertEquals(0, cache.size());
+            List<FieldInfo> diff = target.getDiffFields(new Schema2("a", 1), new Schema2("a", 2));
+            Assert.assertEquals(1, diff.size());
+            Assert.assertEquals("added", diff.get(0).getFieldName());
+        }
+    }
+
+    @Test
+    public void testMissingDependency() throws Exception {
+        Class<?> dependent = new MissingDependencyLoader().loadClass(Dependent.class.getName());
+        for (AbstractComparator source : new AbstractComparator[]{new FieldBaseComparator(), new HybridComparator()}) {
+            Assert.assertEquals(1, MetadataWarmUp.warmUp(Arrays.asList(Model.class, dependent), source));
+            Path file = folder.newFile().toPath();
+            // 字段引用了缺失的类，与预热一样跳过
+            MetadataWarmUp.save(file, Arrays.asList(Model.class, dependent), source);
+            AbstractComparator target = source instanceof FieldBaseComparator ? new FieldBaseComparator() : new HybridComparator();
+            target.setMetadataCache(new ClassValueMetadataCache());
+            Assert.assertEquals(1, MetadataWarmUp.load(file, target, getClass().getClassLoader()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKindMismatch() throws Exception {
+        Path file = folder.newFile().toPath();
+        MetadataWarmUp.save(file, Arrays.asList(Model.class, Base.class), new FieldBaseComparator());
+        MetadataWarmUp.load(file, new GetterBaseComparator(), getClass().getClassLoader());
+    }
+
+    private static List<String> propertyNames(ClassPlan plan) {
+        return Arrays.asList(plan.getPropertyNames().toArray(new String[0]));
+    }
+
+    public static class Base {
+        private final long id;
+
+        public Base(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    /**
+     * 自行定义 Dependent，加载不到 Missing
+     */
+    private static class MissingDependencyLoader extends ClassLoader {
+        MissingDependencyLoader() {
+            super(MetadataWarmUpTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(Missing.class.getName())) {
+                throw new ClassNotFoundException(name);
+            }
+            if (!name.equals(Dependent.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try {
+                    byte[] bytes = Files.readAllBytes(Paths.get(getParent().getResource(name.replace('.', '/') + ".class").toURI()));
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException | URISyntaxException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+
+    public static class Missing {
+    }
+
+    public static class Dependent {
+        private Missing missing;
+        private int value;
+
+        public Missing getMissing() {
+            return missing;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public static class Schema1 {
+        private final String name;
+
+        public Schema1(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Schema2 {
+        private final String name;
+        private final int added;
+
+        public Schema2(String name, int added) {
+            this.name = name;
+            this.added = added;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+    }
+
+    public static class Model extends Base {
+        private final String name;
+        private final boolean active;
+
+        public Model(long id, String name, boolean active) {
+            super(id);
+            this.name = name;
+            this.active = active;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 数值误差策略参数化测试
+ */
+@RunWith(Parameterized.class)
+public class NumericToleranceTest {
+    private final AbstractComparator comparator;
+
+    public NumericToleranceTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testTolerance() {
+        NumericTolerance absolute = NumericTolerance.absolute(0.01);
+        Assert.assertTrue(absolute.isEquals(1.0, 1.005));
+        Assert.assertFalse(absolute.isEquals(1.0, 1.02));
+        Assert.assertTrue(absolute.isEquals(0.0, -0.0));
+        Assert.assertTrue(absolute.isEquals(Double.NaN, Double.NaN));
+        Assert.assertFalse(absolute.withNanEquals(false).isEquals(Double.NaN, Double.NaN));
+        Assert.assertFalse(absolute.isEquals(Double.NaN, 1.0));
+
+        NumericTolerance relative = NumericTolerance.relative(1e-6);
+        Assert.assertTrue(relative.isEquals(1e9, 1e9 + 100));
+        Assert.assertFalse(relative.isEquals(1e-9, 2e-9));
+
+        NumericTolerance ulps = NumericTolerance.ulps(2);
+        Assert.assertTrue(ulps.isEquals(1.0, Math.nextUp(Math.nextUp(1.0))));
+        Assert.assertFalse(ulps.isEquals(1.0, Math.nextUp(Math.nextUp(Math.nextUp(1.0)))));
+        Assert.assertTrue(ulps.isEquals(Double.MIN_VALUE, -Double.MIN_VALUE));
+        Assert.assertTrue(ulps.isEquals(1.0f, Math.nextUp(1.0f)));
+        Assert.assertFalse(ulps.isEquals(1.0, (double) Math.nextUp(1.0f)));
+
+        Assert.assertTrue(NumericTolerance.EXACT.isEquals(new BigDecimal("1.0"), new BigDecimal("1.00")));
+        Assert.assertFalse(NumericTolerance.EXACT.withScaleSensitive(true).isEquals(new BigDecimal("1.0"), new BigDecimal("1.00")));
+        Assert.assertTrue(absolute.isEquals(new BigDecimal("10.00"), new BigDecimal("10.01")));
+        Assert.assertTrue(relative.isEquals(new BigDecimal("1000000"), new BigDecimal("1000001")));
+        Assert.assertEquals(absolute, NumericTolerance.absolute(0.01));
+        try {
+            NumericTolerance.absolute(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 误差不能为负数
+        }
+    }
+
+    @Test
+    public void testComparator() {
+        AbstractComparator comparator = newComparator();
+        Measure first = new Measure(1.0, 1.0f, 1.0, new BigDecimal("1.0"), 1);
+        Measure second = new Measure(1.0 + 1e-12, Math.nextUp(1.0f), 1.0 + 1e-12, new BigDecimal("1.00"), 1);
+        assertConsistent(comparator, first, second, Arrays.asList("value", "ratio", "boxed"));
+
+        comparator.setNumericTolerance(NumericTolerance.absolute(1e-9).withUlps(1));
+        assertConsistent(comparator, first, second, Collections.<String>emptyList());
+        // 整数属性不受比对器的误差影响
+        second.count = 2;
+        assertConsistent(comparator, first, second, Collections.singletonList("count"));
+
+        comparator.setNumericTolerance(NumericTolerance.EXACT.withScaleSensitive(true));
+        second.count = 1;
+        assertConsistent(comparator, first, second, Arrays.asList("value", "ratio", "boxed", "amount"));
+
+        comparator.setNumericTolerance(null);
+        assertConsistent(comparator, first, second, Arrays.asList("value", "ratio", "boxed"));
+    }
+
+    @Test
+    public void testNan() {
+        AbstractComparator comparator = newComparator();
+        Measure first = new Measure(Double.NaN, Float.NaN, Double.NaN, null, 0);
+        Measure second = new Measure(Double.NaN, Float.NaN, Double.NaN, null, 0);
+        Assert.assertTrue(comparator.isEquals(first, second));
+        comparator.setNumericTolerance(NumericTolerance.EXACT.withNanEquals(false));
+        assertConsistent(comparator, first, second, Arrays.asList("value", "ratio", "boxed"));
+        // 同一个对象的指纹稳定，NaN 的指纹相同时由完整比对确认
+        Assert.assertEquals(comparator.fingerprint(first), comparator.fingerprint(first));
+        Assert.assertEquals(comparator.fingerprint(first), comparator.fingerprint(second));
+        // 按数值比对时 0.0 与 -0.0 相等
+        comparator.setNumericTolerance(NumericTolerance.EXACT);
+        assertConsistent(comparator, new Measure(0.0, 0.0f, 0.0, null, 0), new Measure(-0.0, -0.0f, -0.0, null, 0),
+                Collections.<String>emptyList());
+    }
+
+    @Test
+    public void testAnnotation() {
+        AbstractComparator comparator = newComparator();
+        Annotated first = new Annotated();
+        Annotated second = new Annotated();
+        second.relative = 1e6 + 1;
+        second.ulps = Math.nextUp(1.0);
+        second.scale = new BigDecimal("1.00");
+        second.nan = Double.NaN;
+        second.count = 1004;
+        assertConsistent(comparator, first, second, Arrays.asList("scale", "nan"));
+        // 注解优先于比对器的误差
+        comparator.setNumericTolerance(NumericTolerance.absolute(1e9));
+        assertConsistent(comparator, first, second, Arrays.asList("scale", "nan"));
+        second.count = 1006;
+        assertConsistent(comparator, first, second, Arrays.asList("scale", "nan", "count"));
+    }
+
+    @Test
+    public void testIntegral() {
+        NumericTolerance exact = NumericTolerance.EXACT;
+        // 超过 2^53 的 long 转换为 double 会丢失精度
+        Assert.assertFalse(exact.isEquals(9007199254740993L, 9007199254740992L));
+        Assert.assertFalse(exact.isEquals((Object) 9007199254740993L, (Object) 9007199254740992L));
+        Assert.assertTrue(NumericTolerance.absolute(1.5).isEquals(9007199254740993L, 9007199254740992L));
+        Assert.assertFalse(NumericTolerance.absolute(0.99).isEquals(9007199254740993L, 9007199254740992L));
+        // 差值溢出 long
+        Assert.assertFalse(NumericTolerance.absolute(1e18).isEquals(Long.MAX_VALUE, Long.MIN_VALUE));
+        Assert.assertTrue(NumericTolerance.absolute(Double.POSITIVE_INFINITY).isEquals(Long.MAX_VALUE, Long.MIN_VALUE));
+        Assert.assertTrue(NumericTolerance.relative(1e-18).isEquals(Long.MAX_VALUE, Long.MAX_VALUE - 1));
+
+        AbstractComparator comparator = newComparator();
+        Stamped first = new Stamped(9007199254740992L);
+        Stamped second = new Stamped(9007199254740993L);
+        assertConsistent(comparator, first, second, Collections.singletonList("ts"));
+    }
+
+    @Test
+    public void testCustomized() {
+        AbstractComparator customized = comparator instanceof FieldBaseComparator ? new FieldBaseComparator() {
+            @Override
+            protected boolean isFieldEquals(FieldInfo fieldInfo) {
+                return super.isFieldEquals(fieldInfo);
+            }
+        } : new GetterBaseComparator() {
+            @Override
+            protected boolean isFieldEquals(FieldInfo fieldInfo) {
+                return super.isFieldEquals(fieldInfo);
+            }
+        };
+        customized.setNumericTolerance(NumericTolerance.absolute(0.01));
+        Measure first = new Measure(1.0, 1.0f, 1.0, BigDecimal.ONE, 1);
+        Measure second = new Measure(1.001, 1.001f, 1.001, new BigDecimal("1.001"), 2);
+        Assert.assertEquals(Collections.singletonList("count"), names(customized.getDiffFields(first, second)));
+    }
+
+    @Test
+    public void testSnapshot() {
+        AbstractComparator comparator = newComparator();
+        comparator.setNumericTolerance(NumericTolerance.absolute(0.01));
+        Measure measure = new Measure(1.0, 1.0f, 1.0, BigDecimal.ONE, 1);
+        EntitySnapshot snapshot = comparator.snapshot(measure);
+        measure.value = 1.001;
+        measure.amount = new BigDecimal("1.001");
+        Assert.assertTrue(comparator.getDiffFields(snapshot, measure).isEmpty());
+        measure.value = 1.1;
+        Assert.assertEquals(Collections.singletonList("value"), names(comparator.getDiffFields(snapshot, measure)));
+    }
+
+    private AbstractComparator newComparator() {
+        return comparator instanceof FieldBaseComparator ? new FieldBaseComparator() : new GetterBaseComparator();
+    }
+
+    /**
+     * 各个比对入口的结果一致
+     */
+    private static void assertConsistent(AbstractComparator comparator, Object first, Object second, List<String> expected) {
+        Assert.assertEquals(new HashSet<>(expected), new HashSet<>(comparator.diff(first, second).getNames()));
+        Assert.assertEquals(new HashSet<>(expected), new HashSet<>(names(comparator.getDiffFields(first, second))));
+        Assert.assertEquals(expected.isEmpty(), comparator.isEquals(first, second));
+        DiffOptions options = new DiffOptions();
+        options.setMaxDiffs(1);
+        Assert.assertEquals(Math.min(1, expected.size()), comparator.diff(first, second, options).size());
+        ColumnarDiff columnar = comparator.diffColumnar(Collections.singletonList(first), Collections.singletonList(second));
+        Assert.assertEquals(new HashSet<>(expected), new HashSet<>(columnar.getDiffResult(0).getNames()));
+    }
+
+    private static List<String> names(List<FieldInfo> diff) {
+        List<String> names = new ArrayList<>();
+        for (FieldInfo fieldInfo : diff) {
+            names.add(fieldInfo.getFieldName());
+        }
+        return names;
+    }
+
+    public static class Measure {
+        private double value;
+        private float ratio;
+        private Double boxed;
+        private BigDecimal amount;
+        private int count;
+
+        public Measure(double value, float ratio, Double boxed, BigDecimal amount, int count) {
+            this.value = value;
+            this.ratio = ratio;
+            this.boxed = boxed;
+            this.amount = amount;
+            this.count = count;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public float getRatio() {
+            return ratio;
+        }
+
+        public Double getBoxed() {
+            return boxed;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    public static class Stamped {
+        @DiffTolerance(0)
+        private long ts;
+
+        public Stamped(long ts) {
+            this.ts = ts;
+        }
+
+        public long getTs() {
+            return ts;
+        }
+    }
+
+    public static class Annotated {
+        @DiffTolerance(relative = 1e-6)
+        private double relative = 1e6;
+        @DiffTolerance(ulps = 1)
+        private double ulps = 1.0;
+        @DiffTolerance(scaleSensitive = true)
+        private BigDecimal scale = new BigDecimal("1.0");
+        @DiffTolerance(nanEquals = false)
+        private double nan = Double.NaN;
+        @DiffTolerance(5)
+        private long count = 1000;
+
+        public double getRelative() {
+            return relative;
+        }
+
+        public double getUlps() {
+            return ulps;
+        }
+
+        public BigDecimal getScale() {
+            return scale;
+        }
+
+        public double getNan() {
+            return nan;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
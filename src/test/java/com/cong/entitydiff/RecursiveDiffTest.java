@@ -0,0 +1,136 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.*;
+
+/**
+ * 递归比对参数化测试
+ */
+@RunWith(Parameterized.class)
+public class RecursiveDiffTest {
+    private final AbstractComparator comparator;
+
+    public RecursiveDiffTest(AbstractComparator comparator) {
+        this.comparator = comparator;
+        this.comparator.setRecursive(true);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[]{new FieldBaseComparator()}, new Object[]{new GetterBaseComparator()});
+    }
+
+    @Test
+    public void testNestedEntity() {
+        Customer first = new Customer("a", new Address("hz", "310000"));
+        Customer second = new Customer("a", new Address("hz", "310001"));
+        Assert.assertEquals(Collections.singletonList("address.zip"), paths(comparator.getDiffFields(first, second)));
+        Assert.assertEquals("zip", comparator.getDiffFields(first, second).get(0).getFieldName());
+        Assert.assertFalse(comparator.isEquals(first, second));
+        Assert.assertTrue(comparator.isEquals(first, new Customer("a", new Address("hz", "310000"))));
+    }
+
+    @Test
+    public void testNullNested() {
+        Customer first = new Customer("a", new Address("hz", "310000"));
+        Customer second = new Customer("a", null);
+        Assert.assertEquals(Collections.singletonList("address"), paths(comparator.getDiffFields(first, second)));
+    }
+
+    @Test
+    public void testListAndMap() {
+        Customer first = new Customer("a", null);
+        first.history = Arrays.asList(new Address("hz", "1"), new Address("sh", "2"));
+        first.tags.put("level", "1");
+        Customer second = new Customer("a", null);
+        second.history = Arrays.asList(new Address("hz", "1"), new Address("bj", "2"), new Address("sz", "3"));
+        second.tags.put("level", "2");
+        second.tags.put("vip", "true");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("history[1].city", "history[2]", "tags[level]", "tags[vip]")),
+                new HashSet<>(paths(comparator.getDiffFields(first, second))));
+    }
+
+    @Test
+    public void testCycle() {
+        Customer first = new Customer("a", null);
+        first.referrer = first;
+        Customer second = new Customer("a", null);
+        second.referrer = second;
+        Assert.assertTrue(comparator.getDiffFields(first, second).isEmpty());
+        second.name = "b";
+        Assert.assertEquals(Collections.singletonList("name"), paths(comparator.getDiffFields(first, second)));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        Customer first = new Customer("a", new Address("hz", "310000"));
+        Customer second = new Customer("a", new Address("hz", "310001"));
+        comparator.setMaxDepth(0);
+        Assert.assertEquals(Collections.singletonList("address"), paths(comparator.getDiffFields(first, second)));
+        comparator.setMaxDepth(1);
+        Assert.assertEquals(Collections.singletonList("address.zip"), paths(comparator.getDiffFields(first, second)));
+    }
+
+    private static List<String> paths(List<FieldInfo> diffFields) {
+        List<String> paths = new ArrayList<>();
+        for (FieldInfo fieldInfo : diffFields) {
+            paths.add(fieldInfo.getPath());
+        }
+        return paths;
+    }
+
+    public static class Customer {
+        private String name;
+        private Address address;
+        private List<Address> history = Collections.emptyList();
+        private Map<String, String> tags = new HashMap<>();
+        private Customer referrer;
+
+        public Customer(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public List<Address> getHistory() {
+            return history;
+        }
+
+        public Map<String, String> getTags() {
+            return tags;
+        }
+
+        public Customer getReferrer() {
+            return referrer;
+        }
+    }
+
+    public static class Address {
+        private String city;
+        private String zip;
+
+        public Address(String city, String zip) {
+            this.city = city;
+            this.zip = zip;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getZip() {
+            return zip;
+        }
+    }
+}
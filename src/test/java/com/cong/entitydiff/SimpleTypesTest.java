@@ -0,0 +1,81 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简单类型作为整体比对的参数化测试
+ */
+@RunWith(Parameterized.class)
+public class SimpleTypesTest {
+    private final Object first;
+    private final Object second;
+    private final AbstractComparator comparator;
+    private final boolean expectEq;
+
+    public SimpleTypesTest(Object first, Object second, AbstractComparator comparator, boolean expectEq) {
+        this.first = first;
+        this.second = second;
+        this.comparator = comparator;
+        this.expectEq = expectEq;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        Object[][] values = {
+                {"abc", "abd", false},
+                {"abc", new String("abc"), true},
+                {new BigDecimal("1.0"), new BigDecimal("1.00"), true},
+                {new BigDecimal("1.0"), new BigDecimal("1.01"), false},
+                {BigInteger.ONE, BigInteger.TEN, false},
+                {LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), false},
+                {LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 1, 0, 0), true},
+                {Duration.ofSeconds(1), Duration.ofMillis(1000), true},
+                {UUID.fromString("00000000-0000-0000-0000-000000000001"), UUID.fromString("00000000-0000-0000-0000-000000000002"), false},
+                {TimeUnit.SECONDS, TimeUnit.MINUTES, false},
+                {new Date(1000), new Date(2000), false},
+                {new int[]{1, 2}, new int[]{1, 2}, true},
+                {new int[]{1, 2}, new int[]{1, 3}, false},
+                {Arrays.asList("a", "b"), Arrays.asList("a", "c"), false},
+                {Locale.CHINA, Locale.US, false},
+        };
+        List<Object[]> ps = new LinkedList<>();
+        for (Object[] value : values) {
+            ps.add(new Object[]{value[0], value[1], new FieldBaseComparator(), value[2]});
+            ps.add(new Object[]{value[0], value[1], new GetterBaseComparator(), value[2]});
+        }
+        return ps;
+    }
+
+    @Test
+    public void testSimpleType() {
+        Assert.assertTrue(SimpleTypes.isSimple(first.getClass()));
+        Assert.assertEquals(expectEq, comparator.isEquals(first, second));
+        List<FieldInfo> diffFields = comparator.getDiffFields(first, second);
+        if (expectEq) {
+            Assert.assertTrue(diffFields.isEmpty());
+        } else {
+            // 不相等时整体报告为一个以类名命名的字段，而不是内部字段
+            Assert.assertEquals(1, diffFields.size());
+            Assert.assertEquals(first.getClass().getSimpleName(), diffFields.get(0).getFieldName());
+        }
+    }
+
+    @Test
+    public void testEntityIsNotSimple() {
+        Assert.assertFalse(SimpleTypes.isSimple(EqualityRegistryTest.Money.class));
+        Assert.assertFalse(SimpleTypes.isSimple(Object.class));
+        Assert.assertTrue(SimpleTypes.isSimple(int.class));
+        Assert.assertTrue(SimpleTypes.isSimple(EqualityRegistryTest.Money[].class));
+    }
+}
@@ -0,0 +1,85 @@
+package com.cong.entitydiff;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 流式快照比对测试
+ */
+public class SnapshotDifferTest {
+    private final SnapshotDiffer<Row, Integer> differ =
+            new SnapshotDiffer<>(new FieldBaseComparator(), Row::getId, Integer::compare);
+
+    @Test
+    public void testSorted() {
+        List<Row> first = Arrays.asList(new Row(1, 10), new Row(2, 20), new Row(4, 40));
+        List<Row> second = Arrays.asList(new Row(2, 21), new Row(3, 30), new Row(4, 40), new Row(5, 50));
+        List<SnapshotRecord<Row>> records = differ.diff(first.iterator(), second.iterator()).collect(Collectors.toList());
+        Assert.assertEquals(4, records.size());
+        assertRecord(records.get(0), SnapshotRecord.Type.REMOVED, 1);
+        assertRecord(records.get(1), SnapshotRecord.Type.MODIFIED, 2);
+        Assert.assertEquals("amount", records.get(1).getDiffFields().get(0).getFieldName());
+        assertRecord(records.get(2), SnapshotRecord.Type.ADDED, 3);
+        assertRecord(records.get(3), SnapshotRecord.Type.ADDED, 5);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnsortedInput() {
+        List<Row> first = Arrays.asList(new Row(2, 20), new Row(1, 10));
+        differ.diff(first.iterator(), Collections.<Row>emptyIterator(), record -> {
+        });
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        List<Row> first = new ArrayList<>();
+        List<Row> second = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            first.add(new Row(i, i));
+            if (i % 10 != 0) {
+                second.add(new Row(i, i % 7 == 0 ? -i : i));
+            }
+        }
+        second.add(new Row(1000, 0));
+        Collections.shuffle(first, new Random(1));
+        Collections.shuffle(second, new Random(2));
+        differ.setSpillThreshold(64);
+        Map<SnapshotRecord.Type, Integer> counts = new EnumMap<>(SnapshotRecord.Type.class);
+        List<Integer> keys = new ArrayList<>();
+        differ.diffUnsorted(first.iterator(), second.iterator(), record -> {
+            counts.merge(record.getType(), 1, Integer::sum);
+            keys.add((Integer) record.getKey());
+        });
+        Assert.assertEquals(Integer.valueOf(100), counts.get(SnapshotRecord.Type.REMOVED));
+        Assert.assertEquals(Integer.valueOf(1), counts.get(SnapshotRecord.Type.ADDED));
+        // 1 到 999 中 7 的倍数，去掉同时是 10 的倍数的
+        Assert.assertEquals(Integer.valueOf(142 - 14), counts.get(SnapshotRecord.Type.MODIFIED));
+        List<Integer> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        Assert.assertEquals(sorted, keys);
+    }
+
+    private static void assertRecord(SnapshotRecord<Row> record, SnapshotRecord.Type type, int key) {
+        Assert.assertEquals(type, record.getType());
+        Assert.assertEquals(key, record.getKey());
+    }
+
+    public static class Row implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int id;
+        private final long amount;
+
+        public Row(int id, long amount) {
+            this.id = id;
+            this.amount = amount;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
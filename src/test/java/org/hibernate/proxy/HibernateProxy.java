@@ -0,0 +1,8 @@
+package org.hibernate.proxy;
+
+/**
+ * 测试用的 Hibernate 代理接口，只包含比对器通过反射使用的方法
+ */
+public interface HibernateProxy {
+    LazyInitializer getHibernateLazyInitializer();
+}
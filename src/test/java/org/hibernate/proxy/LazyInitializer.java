@@ -0,0 +1,12 @@
+package org.hibernate.proxy;
+
+/**
+ * 测试用的 Hibernate 懒加载接口，只包含比对器通过反射使用的方法
+ */
+public interface LazyInitializer {
+    boolean isUninitialized();
+
+    Object getImplementation();
+
+    Object getIdentifier();
+}